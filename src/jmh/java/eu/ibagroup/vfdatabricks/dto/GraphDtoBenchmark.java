@@ -0,0 +1,51 @@
+package eu.ibagroup.vfdatabricks.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import eu.ibagroup.vfdatabricks.services.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+public class GraphDtoBenchmark {
+    @Param({"10", "100"})
+    private int stages;
+    private JsonNode jobDefinition;
+    private JsonNode pipelineDefinition;
+
+    @Setup
+    public void setUp() {
+        jobDefinition = BenchmarkFixtures.jobDefinition(stages);
+        pipelineDefinition = BenchmarkFixtures.pipelineDefinition(stages);
+    }
+
+    @Benchmark
+    public GraphDto parseJobGraph() {
+        return GraphDto.parseGraph(jobDefinition);
+    }
+
+    @Benchmark
+    public GraphDto parsePipelineGraph() {
+        return GraphDto.parseGraph(pipelineDefinition);
+    }
+
+    @Benchmark
+    public String serializeJobGraph() {
+        return GraphDto.parseGraph(jobDefinition).toString();
+    }
+}
@@ -0,0 +1,200 @@
+package eu.ibagroup.vfdatabricks.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Reproducible inputs of the benchmarks. Graphs are generated from their size only,
+ * random parts use fixed seeds, so every run measures exactly the same data.
+ */
+public final class BenchmarkFixtures {
+    public static final ObjectMapper MAPPER = new ObjectMapper();
+    public static final String PROJECT_ID = "vf-benchmark";
+    private static final long SEED = 42L;
+    private static final String[] STAGES = {"READ", "TRANSFORM", "FILTER", "JOIN", "GROUP", "WRITE"};
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Pipeline graph in the format saved by the UI: a chain of diamonds, where every fifth branch
+     * is a nested pipeline.
+     *
+     * @param diamondCount number of diamonds
+     * @return pipeline definition
+     */
+    public static JsonNode pipelineDefinition(int diamondCount) {
+        ObjectNode definition = MAPPER.createObjectNode();
+        ArrayNode graph = definition.putArray("graph");
+        String fork = "0";
+        ObjectNode forkNode = vertex(graph, fork, jobValue(fork));
+        for (int i = 0; i < diamondCount; i++) {
+            String left = "l" + i;
+            String right = "r" + i;
+            String join = String.valueOf(i + 1);
+            ObjectNode leftNode = vertex(graph, left, i % 5 == 0 ? pipelineValue(left) : jobValue(left));
+            ObjectNode rightNode = vertex(graph, right, jobValue(right));
+            ObjectNode joinNode = vertex(graph, join, jobValue(join));
+            connect(graph, forkNode, leftNode, i % 7 == 0 ? "false" : "true");
+            connect(graph, forkNode, rightNode, i % 7 == 0 ? "false" : "true");
+            connect(graph, leftNode, joinNode, "true");
+            connect(graph, rightNode, joinNode, "true");
+            forkNode = joinNode;
+        }
+        return definition;
+    }
+
+    /**
+     * Graph of the pipeline, which is nested into the generated pipelines: a diamond of four jobs.
+     *
+     * @return nested pipeline definition
+     */
+    public static JsonNode nestedPipelineDefinition() {
+        ObjectNode definition = MAPPER.createObjectNode();
+        ArrayNode graph = definition.putArray("graph");
+        ObjectNode top = vertex(graph, "1", jobValue("1"));
+        ObjectNode left = vertex(graph, "2", jobValue("2"));
+        ObjectNode right = vertex(graph, "3", jobValue("3"));
+        ObjectNode bottom = vertex(graph, "4", jobValue("4"));
+        connect(graph, top, left, "true");
+        connect(graph, top, right, "false");
+        connect(graph, left, bottom, "true");
+        connect(graph, right, bottom, "true");
+        return definition;
+    }
+
+    /**
+     * Job graph with a chain of stages, each of them having a typical set of string options.
+     *
+     * @param stageCount number of stages
+     * @return job definition
+     */
+    public static JsonNode jobDefinition(int stageCount) {
+        Random random = new Random(SEED);
+        ObjectNode definition = MAPPER.createObjectNode();
+        ArrayNode graph = definition.putArray("graph");
+        ObjectNode previous = null;
+        for (int i = 0; i < stageCount; i++) {
+            ObjectNode value = MAPPER.createObjectNode();
+            value.put("operation", STAGES[i % STAGES.length]);
+            value.put("name", "stage_" + i);
+            value.put("storage", i % 2 == 0 ? "s3" : "databricks");
+            value.put("path", "s3a://bucket/path/to/table_" + random.nextInt(1000));
+            value.put("format", "parquet");
+            value.put("query", "select * from t" + i + " where id > #minId# and region = '#region#'");
+            value.put("description", "x".repeat(64 + random.nextInt(64)));
+            ObjectNode node = vertex(graph, "s" + i, value);
+            if (previous != null) {
+                connect(graph, previous, node, "true");
+            }
+            previous = node;
+        }
+        return definition;
+    }
+
+    /**
+     * Connection with parameter placeholders in most of its values.
+     *
+     * @param size number of values
+     * @return connection values
+     */
+    public static Map<String, String> connectionValues(int size) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            values.put("key" + i, i % 4 == 0 ? "plain value " + i : "jdbc://#host" + i % 8 + "#:5432/#db#?user=#user#");
+        }
+        return values;
+    }
+
+    /**
+     * Project parameters referenced by {@link #connectionValues(int)}.
+     *
+     * @return parameter values by key
+     */
+    public static Map<String, String> parameterValues() {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < 8; i++) {
+            values.put("host" + i, "host-" + i + ".example.com");
+        }
+        values.put("db", "sales");
+        values.put("user", "analyst");
+        return values;
+    }
+
+    /**
+     * Driver log of a real Databricks run (the same one used by the unit tests),
+     * repeated until it has the requested number of lines.
+     *
+     * @param lineCount min number of lines
+     * @return driver log text
+     */
+    public static String driverLogs(int lineCount) {
+        String logs = readDriverLogs();
+        int linesPerCopy = (int) logs.chars().filter(c -> c == '\n').count() + 1;
+        int copies = Math.max(1, (lineCount + linesPerCopy - 1) / linesPerCopy);
+        StringBuilder result = new StringBuilder(logs.length() * copies + copies);
+        for (int i = 0; i < copies; i++) {
+            result.append(logs);
+            if (!logs.endsWith("\n")) {
+                result.append('\n');
+            }
+        }
+        return result.toString();
+    }
+
+    private static String readDriverLogs() {
+        try (InputStream inputStream = BenchmarkFixtures.class.getResourceAsStream("/logs.json")) {
+            return UtilsService.decodeFromBase64(MAPPER.readTree(inputStream).get("data").asText());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ObjectNode jobValue(String id) {
+        ObjectNode value = MAPPER.createObjectNode();
+        value.put("operation", "JOB");
+        value.put("name", "job " + id);
+        value.put("jobId", "job-" + id);
+        return value;
+    }
+
+    private static ObjectNode pipelineValue(String id) {
+        ObjectNode value = MAPPER.createObjectNode();
+        value.put("operation", "PIPELINE");
+        value.put("name", "pipeline " + id);
+        value.put("pipelineId", "nested");
+        return value;
+    }
+
+    private static ObjectNode vertex(ArrayNode graph, String id, ObjectNode value) {
+        ObjectNode node = graph.addObject();
+        node.put("id", id);
+        node.put("vertex", true);
+        node.put("parent", "1");
+        node.set("value", value);
+        node.putArray("edges");
+        return node;
+    }
+
+    private static void connect(ArrayNode graph, ObjectNode source, ObjectNode target, String successPath) {
+        ObjectNode edge = MAPPER.createObjectNode();
+        edge.put("id", source.get("id").asText() + "->" + target.get("id").asText());
+        edge.put("edge", true);
+        edge.put("parent", "1");
+        edge.put("source", source.get("id").asText());
+        edge.put("target", target.get("id").asText());
+        edge.putObject("value").put("operation", "EDGE").put("successPath", successPath);
+        ((ArrayNode) source.get("edges")).add(edge);
+        ((ArrayNode) target.get("edges")).add(edge);
+        graph.add(edge);
+    }
+}
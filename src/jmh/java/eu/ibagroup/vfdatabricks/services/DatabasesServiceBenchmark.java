@@ -0,0 +1,64 @@
+package eu.ibagroup.vfdatabricks.services;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import eu.ibagroup.vfdatabricks.dto.connections.ConnectionDto;
+import eu.ibagroup.vfdatabricks.dto.parameters.ParameterValue;
+import eu.ibagroup.vfdatabricks.model.Parameter;
+import eu.ibagroup.vfdatabricks.util.ParameterTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static eu.ibagroup.vfdatabricks.dto.Constants.PARAMETER_TEMPLATE_CACHE_MAX_SIZE;
+import static eu.ibagroup.vfdatabricks.services.BenchmarkFixtures.PROJECT_ID;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+public class DatabasesServiceBenchmark {
+    @Param({"10", "100"})
+    private int size;
+    private DatabasesService databasesService;
+    private Map<String, String> connectionValues;
+
+    @Setup
+    public void setUp() {
+        Map<String, Parameter> parameters = new LinkedHashMap<>();
+        BenchmarkFixtures.parameterValues().forEach((String key, String value) -> parameters.put(key,
+                Parameter.builder().key(key).value(ParameterValue.builder().text(value).build()).build()));
+        // parameters are served from the near-cache of ParameterService in the hot path
+        ParameterService parameterService = mock(ParameterService.class, withSettings().stubOnly());
+        when(parameterService.getParameters(PROJECT_ID)).thenReturn(parameters);
+        ParameterTemplateService parameterTemplateService = new ParameterTemplateService(parameterService,
+                CacheBuilder.newBuilder()
+                        .maximumSize(PARAMETER_TEMPLATE_CACHE_MAX_SIZE)
+                        .build(CacheLoader.from(ParameterTemplate::compile)));
+        databasesService = new DatabasesService(null, parameterTemplateService, null, null);
+        connectionValues = BenchmarkFixtures.connectionValues(size);
+    }
+
+    @Benchmark
+    public ConnectionDto replaceParams() {
+        return databasesService.replaceParams(PROJECT_ID,
+                ConnectionDto.builder().key("connection").value(connectionValues).build());
+    }
+}
@@ -0,0 +1,76 @@
+package eu.ibagroup.vfdatabricks.services;
+
+import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
+import eu.ibagroup.vfdatabricks.dto.jobs.JobDto;
+import eu.ibagroup.vfdatabricks.dto.jobs.JobParams;
+import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobTask;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static eu.ibagroup.vfdatabricks.dto.Constants.PATH_TO_FILE;
+import static eu.ibagroup.vfdatabricks.services.BenchmarkFixtures.MAPPER;
+import static eu.ibagroup.vfdatabricks.services.BenchmarkFixtures.PROJECT_ID;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+public class MapperServiceBenchmark {
+    @Param({"10", "100"})
+    private int stages;
+    private MapperService mapperService;
+    private JobDto jobDto;
+
+    @Setup
+    public void setUp() {
+        // stub-only mocks don't record the invocations, which would slow down every next iteration
+        KubernetesService kubernetesService = mock(KubernetesService.class, withSettings().stubOnly());
+        when(kubernetesService.getSecret(PROJECT_ID)).thenReturn(new SecretBuilder()
+                .addToData(PATH_TO_FILE, UtilsService.encodeToBase64("/Volumes/sales/dims/ingestion_zone"))
+                .build());
+        // artifacts are disabled, so the job config is inlined into the cluster environment
+        mapperService = new MapperService(kubernetesService, MAPPER,
+                mock(JobConfigArtifactService.class, withSettings().stubOnly()), new ApplicationConfigurationProperties());
+        jobDto = JobDto.builder()
+                .name("benchmark-job")
+                .definition(BenchmarkFixtures.jobDefinition(stages))
+                .params(JobParams.builder()
+                        .upTo("10")
+                        .intervals("2")
+                        .clusterDatabricksSchema(Map.of(
+                                "spark_version", "14.3.x-scala2.12",
+                                "node_type_id", "m5.large",
+                                "autoscale", Map.of("min_workers", 1, "max_workers", 4),
+                                "spark_env_vars", Map.of("CUSTOM_VAR", "value")))
+                        .build())
+                .build();
+    }
+
+    @Benchmark
+    public DatabricksJobTask mapJobDtoToDatabricksJobTask() {
+        return mapperService.mapJobDtoToDatabricksJobTask(jobDto, PROJECT_ID);
+    }
+
+    @Benchmark
+    public Map<String, String> prepareSparkEnv() {
+        return mapperService.prepareSparkEnv(jobDto, PROJECT_ID, null);
+    }
+}
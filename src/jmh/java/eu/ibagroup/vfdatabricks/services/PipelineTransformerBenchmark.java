@@ -0,0 +1,43 @@
+package eu.ibagroup.vfdatabricks.services;
+
+import eu.ibagroup.vfdatabricks.dto.GraphDto;
+import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+public class PipelineTransformerBenchmark {
+    @Param({"50", "500", "5000"})
+    private int diamonds;
+    private GraphDto pipeline;
+    private GraphDto nestedPipeline;
+
+    @Setup
+    public void setUp() {
+        pipeline = GraphDto.parseGraph(BenchmarkFixtures.pipelineDefinition(diamonds));
+        nestedPipeline = GraphDto.parseGraph(BenchmarkFixtures.nestedPipelineDefinition());
+    }
+
+    @Benchmark
+    public List<DatabricksJobTask> transform() {
+        return new PipelineTransformer(pipelineId -> nestedPipeline, jobId -> new DatabricksJobTask())
+                .transform(pipeline);
+    }
+}
@@ -0,0 +1,45 @@
+package eu.ibagroup.vfdatabricks.services;
+
+import eu.ibagroup.vfdatabricks.dto.jobs.databricks.JobLogDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+public class UtilsServiceBenchmark {
+    @Param({"1000", "20000"})
+    private int lines;
+    private String logs;
+
+    @Setup
+    public void setUp() {
+        logs = BenchmarkFixtures.driverLogs(lines);
+    }
+
+    @Benchmark
+    public List<JobLogDto> getParsedLogs() {
+        return UtilsService.getParsedLogs(() -> logs);
+    }
+
+    @Benchmark
+    public int parseLogsInChunks(Blackhole blackhole) {
+        return UtilsService.parseLogsInChunks(logs, 1000, blackhole::consume);
+    }
+}
@@ -0,0 +1,35 @@
+package eu.ibagroup.vfdatabricks.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+public class CronExpressionUtilsBenchmark {
+    @Param({"*/5 * * * *", "15 18-20/1 * * 1", "30 9-17 * * MON-FRI"})
+    private String unixExpression;
+
+    @Benchmark
+    public String unixToQuartz() {
+        return CronExpressionUtils.unixToQuartz(unixExpression);
+    }
+
+    @Benchmark
+    public String roundTrip() {
+        return CronExpressionUtils.quartzToUnix(CronExpressionUtils.unixToQuartz(unixExpression));
+    }
+}
@@ -0,0 +1,95 @@
+package eu.ibagroup.vfdatabricks.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in of the Databricks REST API. All runs are reported in the same state, successfully finished by default,
+ * other endpoints answer with empty objects. Latency and throttling are set via {@link StubServer#configure}.
+ */
+public class DatabricksStub implements AutoCloseable {
+    private final StubServer server = new StubServer("databricks");
+    private final AtomicLong runIds = new AtomicLong();
+    private final Map<String, Long> submittedAt = new ConcurrentHashMap<>();
+    private volatile String runState = runState("TERMINATED", "SUCCESS");
+
+    public DatabricksStub(ObjectMapper mapper) {
+        server.route("POST", "/api/2.1/jobs/runs/submit", (StubServer.Request request) -> {
+                    submittedAt.putIfAbsent(mapper.readTree(request.body()).path("run_name").asText(),
+                            System.nanoTime());
+                    return StubServer.Response.ok("{\"run_id\":" + runIds.incrementAndGet() + "}");
+                })
+                .route("GET", "/api/2.1/jobs/runs/get", (StubServer.Request request) -> {
+                    long now = System.currentTimeMillis();
+                    return StubServer.Response.ok("{\"run_id\":" + request.query("run_id")
+                            + ",\"start_time\":" + (now - 60_000) + ",\"end_time\":" + now
+                            + ",\"state\":" + runState + ",\"tasks\":[]}");
+                })
+                .route("POST", "/api/2.1/jobs/runs/cancel", request -> StubServer.Response.ok("{}"))
+                .route("GET", "/api/2\\.0/.*", request -> StubServer.Response.ok("{}"))
+                .route("POST", "/api/2\\.0/.*", request -> StubServer.Response.ok("{}"))
+                .route("PUT", "/api/2\\.0/.*", request -> new StubServer.Response(204, null));
+    }
+
+    private static String runState(String lifeCycleState, String resultState) {
+        return "{\"life_cycle_state\":\"" + lifeCycleState + "\""
+                + (resultState == null ? "" : ",\"result_state\":\"" + resultState + "\"") + "}";
+    }
+
+    /**
+     * Setting the state, in which all runs are reported.
+     *
+     * @param lifeCycleState life cycle state
+     * @param resultState    result state, null for active runs
+     */
+    public void setRunState(String lifeCycleState, String resultState) {
+        runState = runState(lifeCycleState, resultState);
+    }
+
+    public StubServer getServer() {
+        return server;
+    }
+
+    /**
+     * Getting the time of the first submit of a run.
+     *
+     * @param runName run name
+     * @return {@link System#nanoTime()} of the submit or null, if the run was not submitted
+     */
+    public Long getSubmittedAt(String runName) {
+        return submittedAt.get(runName);
+    }
+
+    /**
+     * Waiting until the runs are submitted.
+     *
+     * @param count   number of runs
+     * @param timeout max time to wait
+     * @return true if all runs were submitted in time
+     */
+    public boolean awaitSubmits(int count, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (submittedAt.size() < count) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        return true;
+    }
+
+    public void reset() {
+        submittedAt.clear();
+        server.resetCalls();
+    }
+
+    @Override
+    public void close() {
+        server.close();
+    }
+}
@@ -0,0 +1,118 @@
+package eu.ibagroup.vfdatabricks.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Stand-in of the job storage service keeping jobs and pipelines of projects in memory.
+ * A job or a pipeline is addressed both as "job/{id}" and "pipeline/{id}", as statuses of both are
+ * updated via the job resource.
+ */
+public class JobStorageStub implements AutoCloseable {
+    private static final String PROJECT = "/vf/be/api/project/([^/]+)";
+    private static final String DOCUMENT = "/(?:job|pipeline)/([^/]+)";
+    private final ObjectMapper mapper;
+    private final StubServer server = new StubServer("job-storage");
+    private final Map<String, Map<String, ObjectNode>> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, ObjectNode>> pipelines = new ConcurrentHashMap<>();
+
+    public JobStorageStub(ObjectMapper mapper) {
+        this.mapper = mapper;
+        server.route("GET", PROJECT + "/job", request -> list(jobs, request.group(1), "jobs"))
+                .route("GET", PROJECT + "/pipeline", request -> list(pipelines, request.group(1), "pipelines"))
+                .route("GET", PROJECT + DOCUMENT, (StubServer.Request request) -> {
+                    ObjectNode document = find(request.group(1), request.group(2));
+                    return document == null
+                            ? new StubServer.Response(404, null)
+                            : StubServer.Response.ok(mapper.writeValueAsString(document));
+                })
+                .route("POST", PROJECT + DOCUMENT + "/status", (StubServer.Request request) -> {
+                    ObjectNode document = find(request.group(1), request.group(2));
+                    if (document != null) {
+                        document.put("status", request.query("status"));
+                    }
+                    return StubServer.Response.ok(null);
+                })
+                .route("POST", PROJECT + "/job", (StubServer.Request request) -> {
+                    String id = UUID.randomUUID().toString();
+                    store(jobs, request.group(1), id, (ObjectNode) mapper.readTree(request.body()));
+                    return StubServer.Response.ok(id);
+                })
+                .route("POST", PROJECT + "/pipeline", (StubServer.Request request) -> {
+                    String id = UUID.randomUUID().toString();
+                    store(pipelines, request.group(1), id, (ObjectNode) mapper.readTree(request.body()));
+                    return StubServer.Response.ok(id);
+                })
+                .route("POST", PROJECT + DOCUMENT, request -> replace(request))
+                .route("PUT", PROJECT + DOCUMENT, request -> replace(request))
+                .route("PATCH", PROJECT + DOCUMENT, (StubServer.Request request) -> {
+                    ObjectNode document = find(request.group(1), request.group(2));
+                    if (document != null) {
+                        document.setAll((ObjectNode) mapper.readTree(request.body()));
+                    }
+                    return StubServer.Response.ok(null);
+                });
+    }
+
+    public StubServer getServer() {
+        return server;
+    }
+
+    public void putJob(String projectId, String id, Object job) {
+        store(jobs, projectId, id, mapper.valueToTree(job));
+    }
+
+    public void putPipeline(String projectId, String id, Object pipeline) {
+        store(pipelines, projectId, id, mapper.valueToTree(pipeline));
+    }
+
+    public JsonNode get(String projectId, String id) {
+        return find(projectId, id);
+    }
+
+    private static void store(Map<String, Map<String, ObjectNode>> documents, String projectId, String id,
+                              ObjectNode document) {
+        document.put("id", id);
+        documents.computeIfAbsent(projectId, key -> new ConcurrentSkipListMap<>()).put(id, document);
+    }
+
+    private ObjectNode find(String projectId, String id) {
+        ObjectNode document = jobs.getOrDefault(projectId, Map.of()).get(id);
+        return document != null ? document : pipelines.getOrDefault(projectId, Map.of()).get(id);
+    }
+
+    private StubServer.Response replace(StubServer.Request request) throws IOException {
+        String projectId = request.group(1);
+        String id = request.group(2);
+        ObjectNode document = (ObjectNode) mapper.readTree(request.body());
+        store(pipelines.getOrDefault(projectId, Map.of()).containsKey(id) ? pipelines : jobs, projectId, id,
+                document);
+        return StubServer.Response.ok(null);
+    }
+
+    private StubServer.Response list(Map<String, Map<String, ObjectNode>> documents, String projectId,
+                                     String field) throws IOException {
+        ObjectNode result = mapper.createObjectNode();
+        ArrayNode items = result.putArray(field);
+        documents.getOrDefault(projectId, Map.of()).values().forEach((ObjectNode document) -> {
+            ObjectNode overview = document.deepCopy();
+            overview.remove("definition");
+            items.add(overview);
+        });
+        result.put("editable", true);
+        return StubServer.Response.ok(mapper.writeValueAsString(result));
+    }
+
+    @Override
+    public void close() {
+        server.close();
+    }
+}
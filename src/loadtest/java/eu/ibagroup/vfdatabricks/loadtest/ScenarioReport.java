@@ -0,0 +1,109 @@
+package eu.ibagroup.vfdatabricks.loadtest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies and upstream calls of a load scenario. Reports are printed and appended
+ * to target/load-test-report.md.
+ */
+public class ScenarioReport {
+    private static final Path REPORT_FILE = Path.of("target", "load-test-report.md");
+    private final String scenario;
+    private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+    private final List<StubServer> upstreams;
+    private final Map<String, Integer> errors = new TreeMap<>();
+    private long wallNanos;
+
+    public ScenarioReport(String scenario, StubServer... upstreams) {
+        this.scenario = scenario;
+        this.upstreams = List.of(upstreams);
+        this.upstreams.forEach(StubServer::resetCalls);
+    }
+
+    public void record(long nanos) {
+        latencies.add(nanos);
+    }
+
+    public synchronized void error(String reason) {
+        errors.merge(reason, 1, Integer::sum);
+    }
+
+    public void setWallNanos(long wallNanos) {
+        this.wallNanos = wallNanos;
+    }
+
+    public int getCount() {
+        return latencies.size();
+    }
+
+    public synchronized int getErrors() {
+        return errors.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * Getting the latency percentile with the nearest-rank method.
+     *
+     * @param percentile percentile from 0 to 100
+     * @return latency in millis
+     */
+    public double percentile(double percentile) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        Collections.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * sorted.size());
+        return sorted.get(Math.max(0, rank - 1)) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public String format() {
+        StringBuilder result = new StringBuilder();
+        result.append(String.format(Locale.ROOT, "## %s%n%n", scenario));
+        result.append(String.format(Locale.ROOT,
+                "| operations | errors | wall, s | p50, ms | p99, ms | max, ms |%n|---|---|---|---|---|---|%n"));
+        result.append(String.format(Locale.ROOT, "| %d | %d | %.2f | %.1f | %.1f | %.1f |%n%n",
+                getCount(), getErrors(), wallNanos / 1e9, percentile(50), percentile(99), percentile(100)));
+        synchronized (this) {
+            if (!errors.isEmpty()) {
+                result.append(String.format(Locale.ROOT, "| error | count |%n|---|---|%n"));
+                errors.forEach((reason, count) ->
+                        result.append(String.format(Locale.ROOT, "| %s | %d |%n", reason, count)));
+                result.append(System.lineSeparator());
+            }
+        }
+        result.append(String.format(Locale.ROOT, "| upstream | call | count |%n|---|---|---|%n"));
+        for (StubServer upstream : upstreams) {
+            for (Map.Entry<String, Long> call : upstream.getCalls().entrySet()) {
+                result.append(String.format(Locale.ROOT, "| %s | %s | %d |%n",
+                        upstream.getName(), call.getKey(), call.getValue()));
+            }
+        }
+        return result.append(System.lineSeparator()).toString();
+    }
+
+    /**
+     * Printing the report and appending it to the report file.
+     */
+    public void write() {
+        String report = format();
+        System.out.println(report);
+        try {
+            Files.createDirectories(REPORT_FILE.getParent());
+            Files.writeString(REPORT_FILE, report, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
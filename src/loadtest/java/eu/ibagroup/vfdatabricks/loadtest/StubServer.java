@@ -0,0 +1,205 @@
+package eu.ibagroup.vfdatabricks.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local HTTP stand-in of an upstream service. Requests are matched against routes by method and path pattern.
+ * Every request can be delayed by a fixed latency, and a share of the requests can be throttled with 429.
+ * Calls are counted per route, so scenarios can report how many upstream calls they caused.
+ */
+public class StubServer implements AutoCloseable {
+    private final String name;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<Route> routes = new CopyOnWriteArrayList<>();
+    private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+    private final AtomicLong requestCounter = new AtomicLong();
+    private volatile long latencyMillis;
+    private volatile int throttleEvery;
+
+    /**
+     * Handler of a matched request.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        Response handle(Request request) throws IOException;
+    }
+
+    /**
+     * Matched request.
+     *
+     * @param matcher matcher of the route path pattern
+     * @param uri     request URI
+     * @param body    request body
+     */
+    public record Request(Matcher matcher, URI uri, String body) {
+        public String group(int index) {
+            return matcher.group(index);
+        }
+
+        public String query(String param) {
+            String query = uri.getRawQuery();
+            if (query == null) {
+                return null;
+            }
+            for (String pair : query.split("&")) {
+                int separator = pair.indexOf('=');
+                if (separator > 0 && pair.substring(0, separator).equals(param)) {
+                    return pair.substring(separator + 1);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Response of a stand-in.
+     *
+     * @param status status code
+     * @param body   JSON body, may be null
+     */
+    public record Response(int status, String body) {
+        public static Response ok(String body) {
+            return new Response(200, body);
+        }
+    }
+
+    private record Route(String method, Pattern path, String name, Handler handler) {
+    }
+
+    public StubServer(String name) {
+        this.name = name;
+        try {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Registering a route. Routes are matched in the order of registration.
+     *
+     * @param method  HTTP method
+     * @param path    regex of the request path
+     * @param handler request handler
+     * @return this stand-in
+     */
+    public StubServer route(String method, String path, Handler handler) {
+        // groups are shown as placeholders in the reported call counts
+        String name = method + " " + path.replace("([^/]+)", "{}").replace("(?:", "(").replace('|', ',');
+        routes.add(new Route(method, Pattern.compile(path), name, handler));
+        return this;
+    }
+
+    /**
+     * Setting the behaviour of the upstream.
+     *
+     * @param latencyMillis delay of every response
+     * @param throttleEvery every n-th request is answered with 429, 0 disables throttling
+     */
+    public void configure(long latencyMillis, int throttleEvery) {
+        this.latencyMillis = latencyMillis;
+        this.throttleEvery = throttleEvery;
+    }
+
+    /**
+     * Getting the number of calls by route, throttled calls are counted separately.
+     *
+     * @return snapshot of call counts
+     */
+    public Map<String, Long> getCalls() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        calls.forEach((String route, LongAdder count) -> snapshot.put(route, count.sum()));
+        return snapshot;
+    }
+
+    public void resetCalls() {
+        calls.clear();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            sleep(latencyMillis);
+            Response response = dispatch(exchange, body);
+            byte[] bytes = response.body() == null ? new byte[0] : response.body().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(response.status(), bytes.length == 0 ? -1 : bytes.length);
+            if (bytes.length > 0) {
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(bytes);
+                }
+            }
+        }
+    }
+
+    private Response dispatch(HttpExchange exchange, String body) throws IOException {
+        String method = exchange.getRequestMethod();
+        URI uri = exchange.getRequestURI();
+        for (Route route : routes) {
+            Matcher matcher = route.path().matcher(uri.getPath());
+            if (route.method().equals(method) && matcher.matches()) {
+                int every = throttleEvery;
+                if (every > 0 && requestCounter.incrementAndGet() % every == 0) {
+                    count(route.name() + " [429]");
+                    return new Response(429, "{\"error_code\":\"REQUEST_LIMIT_EXCEEDED\"}");
+                }
+                count(route.name());
+                return route.handler().handle(new Request(matcher, uri, body));
+            }
+        }
+        count(method + " " + uri.getPath() + " [404]");
+        return new Response(404, null);
+    }
+
+    private void count(String route) {
+        calls.computeIfAbsent(route, key -> new LongAdder()).increment();
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
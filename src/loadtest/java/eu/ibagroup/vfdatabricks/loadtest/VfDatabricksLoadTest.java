@@ -0,0 +1,342 @@
+package eu.ibagroup.vfdatabricks.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import eu.ibagroup.vfdatabricks.dto.jobs.JobDto;
+import eu.ibagroup.vfdatabricks.dto.jobs.JobParams;
+import eu.ibagroup.vfdatabricks.dto.pipelines.PipelineDto;
+import eu.ibagroup.vfdatabricks.dto.pipelines.PipelineParams;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesCrudDispatcher;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.mockwebserver.Context;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.quartz.JobKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.quartz.SchedulerFactoryBean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Load scenarios against the whole application, which is started with local stand-ins of its upstreams:
+ * Databricks API, job storage and history service (also serving user info) are {@link StubServer}s,
+ * Kubernetes is the CRUD mock server, Redis is embedded and Quartz keeps its jobs in H2.
+ * Sizes of the scenarios can be changed with the loadtest.* system properties.
+ * Latencies, errors and upstream calls of each scenario are reported to target/load-test-report.md,
+ * only the completion of the scenarios is asserted.
+ */
+@SpringBootTest(properties = {
+        "parameterCache.enabled=true",
+        "cronCache.enabled=true",
+        "spring.quartz.job-store-type=jdbc",
+        "spring.quartz.properties.org.quartz.threadPool.threadCount=4"
+})
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class VfDatabricksLoadTest {
+    private static final String PROJECT_ID = "loadtest";
+    private static final String TOKEN = "Bearer load-test";
+    private static final int JOBS = Integer.getInteger("loadtest.jobs", 500);
+    private static final int LISTINGS = Integer.getInteger("loadtest.listings", 50);
+    private static final int CRONS = Integer.getInteger("loadtest.crons", 200);
+    private static final int RUNS = Integer.getInteger("loadtest.runs", 200);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 16);
+    private static final long UPSTREAM_LATENCY_MILLIS = Long.getLong("loadtest.latencyMillis", 20);
+    private static final Duration SUBMIT_TIMEOUT = Duration.ofMinutes(2);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final RedisServer REDIS;
+    private static final int REDIS_PORT;
+    private static final KubernetesMockServer KUBERNETES =
+            new KubernetesMockServer(new Context(), new MockWebServer(), new HashMap<>(),
+                    new KubernetesCrudDispatcher(), false);
+    private static final DatabricksStub DATABRICKS = new DatabricksStub(MAPPER);
+    private static final JobStorageStub JOB_STORAGE = new JobStorageStub(MAPPER);
+    private static final StubServer HISTORY = new StubServer("history-service")
+            .route("GET", "/user", request -> StubServer.Response.ok(
+                    "{\"id\":\"1\",\"login\":\"Username\",\"name\":\"Load Test\",\"email\":\"load@test.local\"}"))
+            .route("GET", ".*", request -> StubServer.Response.ok("[]"))
+            .route("POST", ".*", request -> StubServer.Response.ok("\"1\""))
+            .route("DELETE", ".*", request -> StubServer.Response.ok(null));
+
+    static {
+        try {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                REDIS_PORT = socket.getLocalPort();
+            }
+            REDIS = new RedisServer(REDIS_PORT);
+            REDIS.start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Embedded Redis can't be started", e);
+        }
+        KUBERNETES.init();
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private KubernetesClient kubernetesClient;
+    @Autowired
+    private SchedulerFactoryBean schedulerFactoryBean;
+    @Value("${namespace.app}")
+    private String namespace;
+
+    @TestConfiguration
+    static class LoadTestConfiguration {
+        @Bean
+        @Primary
+        KubernetesClient mockKubernetesClient() {
+            return KUBERNETES.createClient();
+        }
+    }
+
+    @DynamicPropertySource
+    static void upstreams(DynamicPropertyRegistry registry) {
+        registry.add("jobStorage.host", JOB_STORAGE.getServer()::getUrl);
+        registry.add("historyService.host", HISTORY::getUrl);
+        registry.add("oauth.url.userInfo", () -> HISTORY.getUrl() + "/user");
+        registry.add("spring.data.redis.host", () -> "localhost");
+        registry.add("spring.data.redis.port", () -> REDIS_PORT);
+    }
+
+    @AfterAll
+    static void stopUpstreams() throws IOException {
+        DATABRICKS.close();
+        JOB_STORAGE.close();
+        HISTORY.close();
+        KUBERNETES.destroy();
+        REDIS.stop();
+    }
+
+    @BeforeAll
+    static void configureUpstreams() {
+        DATABRICKS.getServer().configure(UPSTREAM_LATENCY_MILLIS, 0);
+        JOB_STORAGE.getServer().configure(UPSTREAM_LATENCY_MILLIS / 2, 0);
+        HISTORY.configure(UPSTREAM_LATENCY_MILLIS / 2, 0);
+    }
+
+    private void createProject(String projectId) {
+        if (kubernetesClient.secrets().inNamespace(namespace).withName(projectId).get() != null) {
+            return;
+        }
+        kubernetesClient.secrets().inNamespace(namespace).resource(new SecretBuilder()
+                .withNewMetadata()
+                .withName(projectId)
+                .addToLabels("type", "project")
+                .endMetadata()
+                .addToData("host", encode(DATABRICKS.getServer().getUrl()))
+                .addToData("token", encode("dapi-load-test"))
+                .addToData("authType", encode("PAT"))
+                .addToData("pathToFile", encode("/Volumes/load/test/files"))
+                .build()).create();
+    }
+
+    private static String encode(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static JobDto job(String id, String status, long runId) throws IOException {
+        return JobDto.builder()
+                .id(id)
+                .name(id)
+                .status(status)
+                .runId(runId)
+                .definition(MAPPER.readTree("{\"graph\":[{\"id\":\"1\",\"vertex\":true,\"value\":{\"operation\":"
+                        + "\"READ\",\"name\":\"read\",\"storage\":\"s3\"}},{\"id\":\"2\",\"vertex\":true,"
+                        + "\"value\":{\"operation\":\"WRITE\",\"name\":\"write\",\"storage\":\"s3\"}},"
+                        + "{\"id\":\"3\",\"source\":\"1\",\"target\":\"2\",\"value\":{}}]}"))
+                .params(JobParams.builder()
+                        .upTo("3")
+                        .intervals("1")
+                        .clusterDatabricksSchema(Map.of("spark_version", "14.3.x-scala2.12",
+                                "node_type_id", "m5.large", "num_workers", 1))
+                        .build())
+                .build();
+    }
+
+    private static PipelineDto pipeline(String id, List<String> jobIds) {
+        ObjectNode definition = MAPPER.createObjectNode();
+        ArrayNode graph = definition.putArray("graph");
+        ObjectNode previous = null;
+        for (int i = 0; i < jobIds.size(); i++) {
+            ObjectNode node = graph.addObject().put("id", String.valueOf(i)).put("vertex", true);
+            node.putObject("value").put("operation", "JOB").put("name", "job" + i).put("jobId", jobIds.get(i));
+            ArrayNode edges = node.putArray("edges");
+            if (previous != null) {
+                ObjectNode edge = MAPPER.createObjectNode()
+                        .put("source", previous.get("id").asText())
+                        .put("target", node.get("id").asText());
+                edge.putObject("value").put("successPath", "true");
+                edges.add(edge);
+                ((ArrayNode) previous.get("edges")).add(edge);
+            }
+            previous = node;
+        }
+        return PipelineDto.builder()
+                .id(id)
+                .name(id)
+                .status("Draft")
+                .definition(definition)
+                .params(PipelineParams.builder().upTo("3").intervals("1").build())
+                .build();
+    }
+
+    /**
+     * Running the requests with the given concurrency, recording the latency of each of them.
+     */
+    private void drive(ScenarioReport report, List<RequestBuilder> requests) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        long start = System.nanoTime();
+        for (RequestBuilder request : requests) {
+            executor.execute(() -> {
+                long requestStart = System.nanoTime();
+                try {
+                    int status = mockMvc.perform(request).andReturn().getResponse().getStatus();
+                    if (status >= 300) {
+                        report.error("HTTP " + status);
+                    }
+                } catch (Exception e) {
+                    report.error(NestedExceptionUtils.getMostSpecificCause(e).getClass().getSimpleName());
+                } finally {
+                    report.record(System.nanoTime() - requestStart);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.MINUTES));
+        report.setWallNanos(System.nanoTime() - start);
+    }
+
+    @Test
+    void projectListingWith500Jobs() throws Exception {
+        String projectId = PROJECT_ID + "-listing";
+        createProject(projectId);
+        for (int i = 0; i < JOBS; i++) {
+            // every other job is reported as running, so its status is checked on each listing
+            JOB_STORAGE.putJob(projectId, "job-" + i, job("job-" + i, i % 2 == 0 ? "Running" : "Succeeded", i + 1));
+        }
+        DATABRICKS.setRunState("RUNNING", null);
+        ScenarioReport report = new ScenarioReport("Project listing with " + JOBS + " jobs",
+                DATABRICKS.getServer(), JOB_STORAGE.getServer(), HISTORY);
+        List<RequestBuilder> requests = new ArrayList<>();
+        for (int i = 0; i < LISTINGS; i++) {
+            requests.add(get("/api/project/{projectId}/job", projectId)
+                    .secure(true)
+                    .header(HttpHeaders.AUTHORIZATION, TOKEN));
+        }
+
+        drive(report, requests);
+
+        report.write();
+        // failed listings are what this scenario measures, so they are reported rather than asserted
+        assertEquals(LISTINGS, report.getCount());
+    }
+
+    @Test
+    void cronStorm() throws Exception {
+        String projectId = PROJECT_ID + "-cron";
+        createProject(projectId);
+        List<String> jobIds = List.of("cron-job-0", "cron-job-1", "cron-job-2");
+        for (String jobId : jobIds) {
+            JOB_STORAGE.putJob(projectId, jobId, job(jobId, "Draft", 0));
+        }
+        for (int i = 0; i < CRONS; i++) {
+            JOB_STORAGE.putPipeline(projectId, "cron-pipeline-" + i, pipeline("cron-pipeline-" + i, jobIds));
+            // yearly schedule, the storm is fired manually below
+            mockMvc.perform(post("/api/project/{projectId}/pipeline/{id}/cron", projectId, "cron-pipeline-" + i)
+                    .secure(true)
+                    .header(HttpHeaders.AUTHORIZATION, TOKEN)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"schedule\":\"0 0 1 1 *\"}"));
+        }
+        DATABRICKS.setRunState("TERMINATED", "SUCCESS");
+        DATABRICKS.reset();
+        ScenarioReport report = new ScenarioReport("Cron storm of " + CRONS + " pipelines fired at once "
+                + "(latency from fire to Databricks submit)",
+                DATABRICKS.getServer(), JOB_STORAGE.getServer(), HISTORY);
+
+        long firedAt = System.nanoTime();
+        for (int i = 0; i < CRONS; i++) {
+            schedulerFactoryBean.getScheduler()
+                    .triggerJob(JobKey.jobKey("JobName-cron-pipeline-" + i, "JobGroup" + projectId));
+        }
+        boolean submitted = DATABRICKS.awaitSubmits(CRONS, SUBMIT_TIMEOUT);
+        report.setWallNanos(System.nanoTime() - firedAt);
+        for (int i = 0; i < CRONS; i++) {
+            Long submittedAt = DATABRICKS.getSubmittedAt("cron-pipeline-" + i);
+            if (submittedAt == null) {
+                report.error("not submitted");
+            } else {
+                report.record(submittedAt - firedAt);
+            }
+        }
+
+        report.write();
+        assertTrue(submitted);
+    }
+
+    @Test
+    void bulkRun() throws Exception {
+        String projectId = PROJECT_ID + "-bulk";
+        createProject(projectId);
+        for (int i = 0; i < RUNS; i++) {
+            JOB_STORAGE.putJob(projectId, "bulk-job-" + i, job("bulk-job-" + i, "Draft", 0));
+        }
+        DATABRICKS.reset();
+        // every tenth submit is throttled and retried by the application
+        DATABRICKS.getServer().configure(UPSTREAM_LATENCY_MILLIS, 10);
+        ScenarioReport report = new ScenarioReport("Bulk run of " + RUNS + " jobs (request latency, "
+                + "every 10th Databricks call throttled)",
+                DATABRICKS.getServer(), JOB_STORAGE.getServer(), HISTORY);
+        List<RequestBuilder> requests = new ArrayList<>();
+        for (int i = 0; i < RUNS; i++) {
+            requests.add(post("/api/project/{projectId}/job/{id}/run", projectId, "bulk-job-" + i)
+                    .secure(true)
+                    .header(HttpHeaders.AUTHORIZATION, TOKEN));
+        }
+
+        try {
+            drive(report, requests);
+            assertTrue(DATABRICKS.awaitSubmits(RUNS, SUBMIT_TIMEOUT));
+        } finally {
+            DATABRICKS.getServer().configure(UPSTREAM_LATENCY_MILLIS, 0);
+        }
+
+        report.write();
+        assertEquals(RUNS, report.getCount());
+    }
+}
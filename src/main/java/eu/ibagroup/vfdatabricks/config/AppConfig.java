@@ -23,6 +23,9 @@ import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 /**
  * Configuration class for common configs.
@@ -40,4 +43,105 @@ public class AppConfig {
         return new KubernetesClientBuilder().build();
     }
 
+    /**
+     * Scheduler for {@link org.springframework.scheduling.annotation.Scheduled} methods.
+     * Declared explicitly, so they do not run on one of the dedicated schedulers below.
+     *
+     * @return scheduler
+     */
+    @Bean("taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("scheduling-");
+        return scheduler;
+    }
+
+    /**
+     * Scheduler for pushing secrets to Databricks.
+     * The pool size bounds the number of concurrent secret requests.
+     *
+     * @param appProperties application properties
+     * @return scheduler
+     */
+    @Bean("secretSyncScheduler")
+    public ThreadPoolTaskScheduler secretSyncScheduler(ApplicationConfigurationProperties appProperties) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(Math.max(1, appProperties.getDatabricks().getSecretSync().getConcurrency()));
+        scheduler.setThreadNamePrefix("secret-sync-");
+        return scheduler;
+    }
+
+    /**
+     * Executor for starting scheduled pipeline runs, so Quartz threads are released right after a trigger fires.
+     * The pool size bounds the number of concurrently compiled and submitted runs.
+     *
+     * @param appProperties application properties
+     * @return executor
+     */
+    @Bean("cronDispatchExecutor")
+    public ThreadPoolTaskExecutor cronDispatchExecutor(ApplicationConfigurationProperties appProperties) {
+        ApplicationConfigurationProperties.Scheduler settings = appProperties.getScheduler();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, settings.getDispatchConcurrency()));
+        executor.setMaxPoolSize(Math.max(1, settings.getDispatchConcurrency()));
+        executor.setQueueCapacity(settings.getDispatchQueueCapacity());
+        executor.setThreadNamePrefix("cron-dispatch-");
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        return executor;
+    }
+
+    /**
+     * Executor for starting pipelines triggered by their dependencies, so they are not started on the threads
+     * publishing pipeline events. Kept apart from {@link #cronDispatchExecutor}, so a burst of fired schedules
+     * can't reject a trigger.
+     *
+     * @param appProperties application properties
+     * @return executor
+     */
+    @Bean("dependencyTriggerExecutor")
+    public ThreadPoolTaskExecutor dependencyTriggerExecutor(ApplicationConfigurationProperties appProperties) {
+        int concurrency = Math.max(1, appProperties.getScheduler().getDependencyTriggerConcurrency());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setThreadNamePrefix("dependency-trigger-");
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        return executor;
+    }
+
+    /**
+     * Executor for the requests of Databricks cluster config fields, which are issued in parallel.
+     *
+     * @param appProperties application properties
+     * @return executor
+     */
+    @Bean("clusterConfigExecutor")
+    public ThreadPoolTaskExecutor clusterConfigExecutor(ApplicationConfigurationProperties appProperties) {
+        int concurrency = Math.max(1, appProperties.getClusterConfigCache().getConcurrency());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setThreadNamePrefix("cluster-config-");
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        return executor;
+    }
+
+    /**
+     * Executor for the background reloads of cached Databricks cluster config fields.
+     * Kept apart from {@link #clusterConfigExecutor}, since a reload waits for the requests issued there.
+     *
+     * @param appProperties application properties
+     * @return executor
+     */
+    @Bean("clusterConfigRefreshExecutor")
+    public ThreadPoolTaskExecutor clusterConfigRefreshExecutor(ApplicationConfigurationProperties appProperties) {
+        int concurrency = Math.max(1, appProperties.getClusterConfigCache().getConcurrency());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setThreadNamePrefix("cluster-config-refresh-");
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        return executor;
+    }
+
 }
@@ -27,6 +27,32 @@ import org.springframework.validation.annotation.Validated;
 
 import java.util.List;
 
+import static eu.ibagroup.vfdatabricks.dto.Constants.CLUSTER_CONFIG_CACHE_EXPIRE_MINUTES;
+import static eu.ibagroup.vfdatabricks.dto.Constants.CLUSTER_CONFIG_CACHE_REFRESH_MINUTES;
+import static eu.ibagroup.vfdatabricks.dto.Constants.CLUSTER_CONFIG_CONCURRENCY;
+import static eu.ibagroup.vfdatabricks.dto.Constants.CLUSTER_CONFIG_TIMEOUT_SECONDS;
+import static eu.ibagroup.vfdatabricks.dto.Constants.CRON_CACHE_EXPIRE_MINUTES;
+import static eu.ibagroup.vfdatabricks.dto.Constants.CRON_DISPATCH_CONCURRENCY;
+import static eu.ibagroup.vfdatabricks.dto.Constants.CRON_DISPATCH_QUEUE_CAPACITY;
+import static eu.ibagroup.vfdatabricks.dto.Constants.DEPENDENCY_RUN_CONCURRENCY;
+import static eu.ibagroup.vfdatabricks.dto.Constants.DEPENDENCY_TRIGGER_CONCURRENCY;
+import static eu.ibagroup.vfdatabricks.dto.Constants.HISTORY_LOG_CHUNK_SIZE;
+import static eu.ibagroup.vfdatabricks.dto.Constants.PARAMETER_CACHE_EXPIRE_MINUTES;
+import static eu.ibagroup.vfdatabricks.dto.Constants.CIRCUIT_BREAKER_FAILURE_THRESHOLD;
+import static eu.ibagroup.vfdatabricks.dto.Constants.CIRCUIT_BREAKER_OPEN_MILLIS;
+import static eu.ibagroup.vfdatabricks.dto.Constants.RATE_LIMIT_DECREASE_FACTOR;
+import static eu.ibagroup.vfdatabricks.dto.Constants.RATE_LIMIT_INCREASE;
+import static eu.ibagroup.vfdatabricks.dto.Constants.RATE_LIMIT_INITIAL_RATE;
+import static eu.ibagroup.vfdatabricks.dto.Constants.RATE_LIMIT_MAX_BACKGROUND_WAIT_MILLIS;
+import static eu.ibagroup.vfdatabricks.dto.Constants.RATE_LIMIT_MAX_INTERACTIVE_WAIT_MILLIS;
+import static eu.ibagroup.vfdatabricks.dto.Constants.RATE_LIMIT_MAX_RATE;
+import static eu.ibagroup.vfdatabricks.dto.Constants.RATE_LIMIT_MAX_RETRY_AFTER_MILLIS;
+import static eu.ibagroup.vfdatabricks.dto.Constants.RATE_LIMIT_MIN_RATE;
+import static eu.ibagroup.vfdatabricks.dto.Constants.SECRET_SYNC_BACKOFF_MILLIS;
+import static eu.ibagroup.vfdatabricks.dto.Constants.SECRET_SYNC_CONCURRENCY;
+import static eu.ibagroup.vfdatabricks.dto.Constants.SECRET_SYNC_MAX_ATTEMPTS;
+import static eu.ibagroup.vfdatabricks.dto.Constants.SECRET_SYNC_MAX_BACKOFF_MILLIS;
+
 /**
  * Application Configuration (from yaml) class.
  * Represents properties from this configuration.
@@ -48,13 +74,19 @@ public class ApplicationConfigurationProperties {
     @Valid
     private HistoryService historyService;
     @Valid
-    private Scheduler scheduler;
+    private Scheduler scheduler = new Scheduler();
     @Valid
     private String jarFilePath;
     @Valid
     private String jarHash;
     @Valid
     private DBServiceSettings dbService;
+    @Valid
+    private ParameterCache parameterCache = new ParameterCache();
+    @Valid
+    private CronCache cronCache = new CronCache();
+    @Valid
+    private ClusterConfigCache clusterConfigCache = new ClusterConfigCache();
 
     /**
      * Represents oauth and user management settings.
@@ -91,6 +123,12 @@ public class ApplicationConfigurationProperties {
         private DatabricksTransformationsSettings transformations;
         private DatabricksIsvSettings isv;
         private DatabricksRetrySettings retry;
+        private DatabricksSecretSyncSettings secretSync = new DatabricksSecretSyncSettings();
+        private DatabricksRateLimitSettings rateLimit = new DatabricksRateLimitSettings();
+        private DatabricksCircuitBreakerSettings circuitBreaker = new DatabricksCircuitBreakerSettings();
+        private boolean sharedJobClusters;
+        private boolean jobConfigArtifacts;
+        private boolean existingClusters;
     }
 
     /**
@@ -120,6 +158,44 @@ public class ApplicationConfigurationProperties {
         private String upTo;
     }
 
+    /**
+     * Represents settings of the secrets synchronization with Databricks.
+     */
+    @Data
+    public static class DatabricksSecretSyncSettings {
+        private int concurrency = SECRET_SYNC_CONCURRENCY;
+        private int maxAttempts = SECRET_SYNC_MAX_ATTEMPTS;
+        private long backoffMillis = SECRET_SYNC_BACKOFF_MILLIS;
+        private long maxBackoffMillis = SECRET_SYNC_MAX_BACKOFF_MILLIS;
+    }
+
+    /**
+     * Represents settings of the rate limiter of requests to Databricks workspaces.
+     * Rates are in requests per second per workspace.
+     */
+    @Data
+    public static class DatabricksRateLimitSettings {
+        private boolean enabled = true;
+        private double initialRate = RATE_LIMIT_INITIAL_RATE;
+        private double minRate = RATE_LIMIT_MIN_RATE;
+        private double maxRate = RATE_LIMIT_MAX_RATE;
+        private double increase = RATE_LIMIT_INCREASE;
+        private double decreaseFactor = RATE_LIMIT_DECREASE_FACTOR;
+        private long maxRetryAfterMillis = RATE_LIMIT_MAX_RETRY_AFTER_MILLIS;
+        private long maxInteractiveWaitMillis = RATE_LIMIT_MAX_INTERACTIVE_WAIT_MILLIS;
+        private long maxBackgroundWaitMillis = RATE_LIMIT_MAX_BACKGROUND_WAIT_MILLIS;
+    }
+
+    /**
+     * Represents settings of the circuit breaker of requests to Databricks workspaces.
+     */
+    @Data
+    public static class DatabricksCircuitBreakerSettings {
+        private boolean enabled = true;
+        private int failureThreshold = CIRCUIT_BREAKER_FAILURE_THRESHOLD;
+        private long openMillis = CIRCUIT_BREAKER_OPEN_MILLIS;
+    }
+
     /**
      * Represents jobStorage info.
      */
@@ -134,6 +210,8 @@ public class ApplicationConfigurationProperties {
     @Data
     public static class HistoryService {
         private String host;
+        private int logChunkSize = HISTORY_LOG_CHUNK_SIZE;
+        private boolean chunkedLogs;
     }
 
     /**
@@ -142,6 +220,10 @@ public class ApplicationConfigurationProperties {
     @Data
     public static class Scheduler {
         private String interval;
+        private int dispatchConcurrency = CRON_DISPATCH_CONCURRENCY;
+        private int dispatchQueueCapacity = CRON_DISPATCH_QUEUE_CAPACITY;
+        private int dependencyConcurrency = DEPENDENCY_RUN_CONCURRENCY;
+        private int dependencyTriggerConcurrency = DEPENDENCY_TRIGGER_CONCURRENCY;
     }
 
     /**
@@ -152,4 +234,33 @@ public class ApplicationConfigurationProperties {
         private String host;
     }
 
+    /**
+     * Represents settings of the local parameters cache.
+     */
+    @Data
+    public static class ParameterCache {
+        private boolean enabled = true;
+        private int expireMinutes = PARAMETER_CACHE_EXPIRE_MINUTES;
+    }
+
+    /**
+     * Represents settings of the local cron details cache.
+     */
+    @Data
+    public static class CronCache {
+        private boolean enabled = true;
+        private int expireMinutes = CRON_CACHE_EXPIRE_MINUTES;
+    }
+
+    /**
+     * Represents settings of the local cache of Databricks cluster config fields.
+     */
+    @Data
+    public static class ClusterConfigCache {
+        private int refreshMinutes = CLUSTER_CONFIG_CACHE_REFRESH_MINUTES;
+        private int expireMinutes = CLUSTER_CONFIG_CACHE_EXPIRE_MINUTES;
+        private int concurrency = CLUSTER_CONFIG_CONCURRENCY;
+        private int timeoutSeconds = CLUSTER_CONFIG_TIMEOUT_SECONDS;
+    }
+
 }
@@ -19,46 +19,134 @@
 
 package eu.ibagroup.vfdatabricks.config;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import eu.ibagroup.vfdatabricks.dto.pipelines.CronPipelineDto;
+import eu.ibagroup.vfdatabricks.model.Parameter;
 import eu.ibagroup.vfdatabricks.services.DatabricksAuthorizationService;
+import eu.ibagroup.vfdatabricks.services.MetricsService;
+import eu.ibagroup.vfdatabricks.util.ParameterTemplate;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import static eu.ibagroup.vfdatabricks.dto.Constants.COMPLETED_RUN_CACHE_EXPIRE_HOURS;
+import static eu.ibagroup.vfdatabricks.dto.Constants.COMPLETED_RUN_CACHE_MAX_SIZE;
 import static eu.ibagroup.vfdatabricks.dto.Constants.JAR_FILE_CACHE_EXPIRE_MINUTES;
+import static eu.ibagroup.vfdatabricks.dto.Constants.JOB_CONFIG_ARTIFACT_CACHE_EXPIRE_HOURS;
+import static eu.ibagroup.vfdatabricks.dto.Constants.JOB_CONFIG_ARTIFACT_CACHE_MAX_SIZE;
+import static eu.ibagroup.vfdatabricks.dto.Constants.PARAMETER_TEMPLATE_CACHE_MAX_SIZE;
 import static eu.ibagroup.vfdatabricks.dto.Constants.TOKEN_CACHE_EXPIRE_MINUTES;
 
 @Configuration
 public class CacheConfig {
 
     @Bean("jarFileCache")
-    public LoadingCache<String, byte[]> jarFileCache(ApplicationConfigurationProperties appProperties) {
-        return CacheBuilder.newBuilder()
+    public LoadingCache<String, byte[]> jarFileCache(ApplicationConfigurationProperties appProperties,
+                                                     MetricsService metricsService) {
+        return metricsService.monitorCache(CacheBuilder.newBuilder()
                 .expireAfterAccess(JAR_FILE_CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
                 .maximumSize(1)
+                .recordStats()
                 .build(new CacheLoader<>() {
                     @Override
                     public byte[] load(String key) throws IOException {
                         return Files.readAllBytes(Path.of(appProperties.getJarFilePath()));
                     }
-                });
+                }), "jarFileCache");
     }
 
     @Bean("tokenCache")
-    public LoadingCache<String, String> tokenCache(DatabricksAuthorizationService databricksAuthorizationService) {
-        return CacheBuilder.newBuilder()
+    public LoadingCache<String, String> tokenCache(DatabricksAuthorizationService databricksAuthorizationService,
+                                                   MetricsService metricsService) {
+        return metricsService.monitorCache(CacheBuilder.newBuilder()
                 .expireAfterWrite(TOKEN_CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
+                .recordStats()
                 .build(new CacheLoader<String, String>() {
                     @Override
                     public String load(String projectId) {
                         return databricksAuthorizationService.getOAuthToken(projectId);
                     }
-                });
+                }), "tokenCache");
+    }
+
+    /**
+     * Run ids, whose completion has already been recorded in the history service.
+     * Used to make sure only the first observer of a finished run archives it.
+     */
+    @Bean("completedRunCache")
+    public Cache<Long, Boolean> completedRunCache() {
+        return CacheBuilder.newBuilder()
+                .expireAfterWrite(COMPLETED_RUN_CACHE_EXPIRE_HOURS, TimeUnit.HOURS)
+                .maximumSize(COMPLETED_RUN_CACHE_MAX_SIZE)
+                .build();
+    }
+
+    /**
+     * Pipeline run ids, whose completion has already been handled.
+     * Used to make sure dependents of a pipeline are triggered only once per run.
+     */
+    @Bean("finishedPipelineRunCache")
+    public Cache<Long, Boolean> finishedPipelineRunCache() {
+        return CacheBuilder.newBuilder()
+                .expireAfterWrite(COMPLETED_RUN_CACHE_EXPIRE_HOURS, TimeUnit.HOURS)
+                .maximumSize(COMPLETED_RUN_CACHE_MAX_SIZE)
+                .build();
+    }
+
+    /**
+     * Deserialized parameters of projects. Entries are invalidated on change via Redis pub/sub,
+     * the expiration is only a safety net for lost invalidation messages.
+     */
+    @Bean("parameterCache")
+    public Cache<String, Map<String, Parameter>> parameterCache(ApplicationConfigurationProperties appProperties) {
+        ApplicationConfigurationProperties.ParameterCache settings = appProperties.getParameterCache();
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .expireAfterWrite(settings.getExpireMinutes(), TimeUnit.MINUTES);
+        if (!settings.isEnabled()) {
+            builder.maximumSize(0);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Job config artifacts, which have already been uploaded to Databricks.
+     * Artifacts are named by their content hash, so an entry never gets stale.
+     */
+    @Bean("jobConfigArtifactCache")
+    public Cache<String, Boolean> jobConfigArtifactCache() {
+        return CacheBuilder.newBuilder()
+                .expireAfterAccess(JOB_CONFIG_ARTIFACT_CACHE_EXPIRE_HOURS, TimeUnit.HOURS)
+                .maximumSize(JOB_CONFIG_ARTIFACT_CACHE_MAX_SIZE)
+                .build();
+    }
+
+    @Bean("parameterTemplateCache")
+    public LoadingCache<String, ParameterTemplate> parameterTemplateCache() {
+        return CacheBuilder.newBuilder()
+                .maximumSize(PARAMETER_TEMPLATE_CACHE_MAX_SIZE)
+                .build(CacheLoader.from(ParameterTemplate::compile));
+    }
+
+    /**
+     * Cron details of project pipelines. Entries are updated by the scheduler mutations of this replica
+     * and invalidated via Redis pub/sub on changes made by other replicas.
+     */
+    @Bean("cronCache")
+    public Cache<String, Map<String, CronPipelineDto>> cronCache(ApplicationConfigurationProperties appProperties) {
+        ApplicationConfigurationProperties.CronCache settings = appProperties.getCronCache();
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .expireAfterWrite(settings.getExpireMinutes(), TimeUnit.MINUTES);
+        if (!settings.isEnabled()) {
+            builder.maximumSize(0);
+        }
+        return builder.build();
     }
 }
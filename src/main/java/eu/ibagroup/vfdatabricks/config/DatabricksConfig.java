@@ -21,6 +21,10 @@ package eu.ibagroup.vfdatabricks.config;
 
 import eu.ibagroup.vfdatabricks.exceptions.ConfigurationException;
 import eu.ibagroup.vfdatabricks.exceptions.RestTemplateResponseErrorHandler;
+import eu.ibagroup.vfdatabricks.services.DatabricksCircuitBreaker;
+import eu.ibagroup.vfdatabricks.services.DatabricksRateLimiter;
+import eu.ibagroup.vfdatabricks.services.MetricsService;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
@@ -43,6 +47,7 @@ import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.X509Certificate;
 
+import static eu.ibagroup.vfdatabricks.dto.Constants.DATABRICKS_UPSTREAM;
 import static org.springframework.http.HttpHeaders.USER_AGENT;
 
 @RequiredArgsConstructor
@@ -50,11 +55,18 @@ import static org.springframework.http.HttpHeaders.USER_AGENT;
 public class DatabricksConfig {
 
     private final ApplicationConfigurationProperties appProperties;
+    private final MetricsService metricsService;
+    private final DatabricksCircuitBreaker databricksCircuitBreaker;
+    private final DatabricksRateLimiter databricksRateLimiter;
+    private final ObservationRegistry observationRegistry;
 
     @Bean
     @Primary
     public RestTemplate getRestTemplate() {
-        return new RestTemplate();
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(metricsService.upstreamInterceptor(null));
+        restTemplate.setObservationRegistry(observationRegistry);
+        return restTemplate;
     }
 
     @Bean("databricksRestTemplate")
@@ -70,6 +82,10 @@ public class DatabricksConfig {
                     appProperties.getDatabricks().getIsv().getVersion()));
             return execution.execute(request, body);
         });
+        restTemplate.getInterceptors().add(databricksCircuitBreaker.interceptor());
+        restTemplate.getInterceptors().add(databricksRateLimiter.interceptor());
+        restTemplate.getInterceptors().add(metricsService.upstreamInterceptor(DATABRICKS_UPSTREAM));
+        restTemplate.setObservationRegistry(observationRegistry);
         return restTemplate;
     }
 
@@ -87,7 +103,10 @@ public class DatabricksConfig {
 
             HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory();
             requestFactory.setHttpClient(httpClient);
-            return new RestTemplate(requestFactory);
+            RestTemplate restTemplate = new RestTemplate(requestFactory);
+            restTemplate.getInterceptors().add(metricsService.upstreamInterceptor(null));
+            restTemplate.setObservationRegistry(observationRegistry);
+            return restTemplate;
         } catch (NoSuchAlgorithmException | KeyManagementException | KeyStoreException e) {
             throw new ConfigurationException("Unable to build unsecured rest template", e);
         }
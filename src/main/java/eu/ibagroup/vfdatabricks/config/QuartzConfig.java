@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2021 IBA Group, a.s. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.ibagroup.vfdatabricks.config;
+
+import eu.ibagroup.vfdatabricks.services.quartz.CronTriggerListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.quartz.SchedulerFactoryBeanCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the Quartz scheduler.
+ */
+@Configuration
+public class QuartzConfig {
+
+    /**
+     * Registering the listener, which counts misfired triggers.
+     *
+     * @param meterRegistry meter registry
+     * @return scheduler customizer
+     */
+    @Bean
+    public SchedulerFactoryBeanCustomizer cronTriggerListenerCustomizer(MeterRegistry meterRegistry) {
+        return schedulerFactoryBean ->
+                schedulerFactoryBean.setGlobalTriggerListeners(new CronTriggerListener(meterRegistry));
+    }
+}
@@ -19,12 +19,20 @@
 
 package eu.ibagroup.vfdatabricks.config;
 
+import eu.ibagroup.vfdatabricks.services.ParameterService;
+import eu.ibagroup.vfdatabricks.services.SchedulerService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import static eu.ibagroup.vfdatabricks.dto.Constants.CRON_CACHE_CHANNEL;
+import static eu.ibagroup.vfdatabricks.dto.Constants.PARAMETER_CACHE_CHANNEL;
+
 @Configuration
 public class RedisConfig {
 
@@ -39,5 +47,22 @@ public class RedisConfig {
         return redisTemplate;
     }
 
+    @Bean
+    @ConditionalOnExpression("${parameter-cache.enabled:true} or ${cron-cache.enabled:true}")
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       ApplicationConfigurationProperties appProperties,
+                                                                       ParameterService parameterService,
+                                                                       SchedulerService schedulerService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        if (appProperties.getParameterCache().isEnabled()) {
+            container.addMessageListener(parameterService, new ChannelTopic(PARAMETER_CACHE_CHANNEL));
+        }
+        if (appProperties.getCronCache().isEnabled()) {
+            container.addMessageListener((message, pattern) -> schedulerService.onMessage(message),
+                    new ChannelTopic(CRON_CACHE_CHANNEL));
+        }
+        return container;
+    }
 
 }
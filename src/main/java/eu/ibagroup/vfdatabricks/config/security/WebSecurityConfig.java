@@ -20,9 +20,11 @@
 package eu.ibagroup.vfdatabricks.config.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -106,6 +108,7 @@ public class WebSecurityConfig {
 
     /**
      * Configure task executor.
+     * Tasks run in the tracing context of the caller.
      *
      * @return executor
      */
@@ -116,6 +119,7 @@ public class WebSecurityConfig {
         executor.setMaxPoolSize(MAX_POOL_SIZE);
         executor.setQueueCapacity(QUEUE_CAPACITY);
         executor.setThreadNamePrefix("async-");
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
         return executor;
     }
 
@@ -126,7 +130,8 @@ public class WebSecurityConfig {
      * @return security wrapper for async task
      */
     @Bean
-    public DelegatingSecurityContextAsyncTaskExecutor taskExecutor(ThreadPoolTaskExecutor delegate) {
+    public DelegatingSecurityContextAsyncTaskExecutor taskExecutor(
+            @Qualifier("threadPoolTaskExecutor") ThreadPoolTaskExecutor delegate) {
         return new DelegatingSecurityContextAsyncTaskExecutor(delegate);
     }
 }
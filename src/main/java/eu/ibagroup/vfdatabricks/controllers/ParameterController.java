@@ -37,8 +37,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @Slf4j
 @RequiredArgsConstructor
 @RestController
@@ -113,6 +116,40 @@ public class ParameterController {
         return ResponseEntity.status(HttpStatus.OK).build();
     }
 
+    @Operation(summary = "Create or update several parameters",
+            description = "Create new or replace existing parameters in a project in one request")
+    @PutMapping("{projectId}/params")
+    public ResponseEntity<Void> updateAll(@PathVariable String projectId,
+                                          @RequestBody List<ParameterDto> parameterDtos)
+            throws JsonProcessingException {
+        LOGGER.info(
+                "{} - Updating {} parameters in project '{}'",
+                AuthenticationService.getFormattedUserInfo(authenticationService.getUserInfo()),
+                parameterDtos.size(),
+                projectId
+        );
+        parameterService.createAll(projectId, parameterDtos);
+        LOGGER.info(
+                "{} parameters in project '{}' successfully updated by {}",
+                parameterDtos.size(),
+                projectId,
+                AuthenticationService.getFormattedUserInfo(authenticationService.getUserInfo())
+        );
+        return ResponseEntity.status(HttpStatus.OK).build();
+    }
+
+    @Operation(summary = "Reconcile parameter secrets",
+            description = "Push missing secrets of the parameters to Databricks and delete the redundant ones")
+    @PostMapping("{projectId}/params/secrets/reconcile")
+    public ResponseEntity<Integer> reconcileSecrets(@PathVariable String projectId) {
+        LOGGER.info(
+                "{} - Reconciling parameter secrets in project '{}'",
+                AuthenticationService.getFormattedUserInfo(authenticationService.getUserInfo()),
+                projectId
+        );
+        return ResponseEntity.accepted().body(parameterService.reconcileSecrets(projectId));
+    }
+
     /**
      * Deleting job in project by id.
      *
@@ -138,4 +175,31 @@ public class ParameterController {
         );
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Deleting several parameters in project.
+     *
+     * @param projectId    project id
+     * @param parameterIds parameter ids
+     */
+    @Operation(summary = "Delete several parameters", description = "Delete existing parameters", responses = {
+            @ApiResponse(responseCode = "204", description = "Indicates successful parameters deletion")})
+    @DeleteMapping("{projectId}/params")
+    public ResponseEntity<Void> deleteAll(@PathVariable String projectId,
+                                          @RequestParam("keys") List<String> parameterIds) {
+        LOGGER.info(
+                "{} - Deleting parameters {} in project '{}'",
+                AuthenticationService.getFormattedUserInfo(authenticationService.getUserInfo()),
+                parameterIds,
+                projectId
+        );
+        parameterService.deleteAll(projectId, parameterIds);
+        LOGGER.info(
+                "Parameters {} in project '{}' successfully deleted by {}",
+                parameterIds,
+                projectId,
+                AuthenticationService.getFormattedUserInfo(authenticationService.getUserInfo())
+        );
+        return ResponseEntity.noContent().build();
+    }
 }
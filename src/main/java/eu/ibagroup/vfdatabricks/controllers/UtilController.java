@@ -26,6 +26,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
@@ -44,13 +45,18 @@ public class UtilController {
 
     /**
      * Get additional job params fields from Databricks.
+     * The fields are cached, refresh flag forces loading them from Databricks.
      */
     @GetMapping("{projectId}/cluster/config/fields")
-    public Map<String, Object> getClusterConfigFields(@PathVariable String projectId) {
+    public Map<String, Object> getClusterConfigFields(@PathVariable String projectId,
+                                                      @RequestParam(defaultValue = "false") boolean refresh) {
         LOGGER.info(
                 "{} - Receiving databricks job cluster config fields",
                 AuthenticationService.getFormattedUserInfo(authenticationService.getUserInfo())
         );
+        if (refresh) {
+            return databricksAPIService.refreshDatabricksClusterConfigFields(projectId);
+        }
         return databricksAPIService.getDatabricksClusterConfigFields(projectId);
     }
 }
@@ -42,6 +42,8 @@ public final class Constants {
     public static final int MAX_TOKEN_LENGTH = 38;
     public static final String JOB_CONFIG_FIELD = "JOB_CONFIG";
     public static final String JOB_DEFINITION_FIELD = "JOB_DEFINITION";
+    public static final String JOB_CONFIG_ARTIFACT_FIELD = "JOB_CONFIG_ARTIFACT";
+    public static final String JOB_CONFIG_ARTIFACT_DIRECTORY = "job-configs";
     public static final String APP = "app";
     public static final String TYPE = "type";
     public static final String PROJECT = "project";
@@ -53,6 +55,7 @@ public final class Constants {
     public static final String PATH_TO_FILE = "pathToFile";
     public static final String AUTHENTICATION_TYPE = "authType";
     public static final String CLOUD = "cloud";
+    public static final String INSTANCE_POOL_ID = "instancePoolId";
     public static final String DESCRIPTION = "description";
     public static final String EXECUTOR_CORES = "EXECUTOR_CORES";
     public static final String EXECUTOR_INSTANCES = "EXECUTOR_INSTANCES";
@@ -125,12 +128,77 @@ public final class Constants {
     public static final String NODE_TYPE_PARAM = "NODE_TYPE";
     public static final String CLUSTER_DATABRICKS_SCHEMA = "CLUSTER_DATABRICKS_SCHEMA";
     public static final String CLUSTER_SCRIPTS = "CLUSTER_SCRIPTS";
+    public static final String SHARED_CLUSTER = "SHARED_CLUSTER";
+    public static final String EXISTING_CLUSTER_ID = "EXISTING_CLUSTER_ID";
+    public static final String JOB_CLUSTER_KEY_PREFIX = "cluster-";
     public static final String ZONES_FIELD = "zones";
     public static final String INSTANCE_PROFILES_FIELD = "instance_profiles";
+    public static final String INSTANCE_POOLS_FIELD = "instance_pools";
+    public static final String CLUSTERS_FIELD = "clusters";
     public static final int JAR_FILE_CACHE_EXPIRE_MINUTES = 30;
     public static final int TOKEN_CACHE_EXPIRE_MINUTES = 57;
+    public static final int HISTORY_LOG_CHUNK_SIZE = 1000;
+    public static final int COMPLETED_RUN_CACHE_EXPIRE_HOURS = 24;
+    public static final int COMPLETED_RUN_CACHE_MAX_SIZE = 10_000;
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final int PARAMETER_CACHE_EXPIRE_MINUTES = 30;
+    public static final int PARAMETER_TEMPLATE_CACHE_MAX_SIZE = 10_000;
+    public static final int SECRET_SYNC_CONCURRENCY = 4;
+    public static final int SECRET_SYNC_MAX_ATTEMPTS = 5;
+    public static final long SECRET_SYNC_BACKOFF_MILLIS = 1000L;
+    public static final long SECRET_SYNC_MAX_BACKOFF_MILLIS = 60_000L;
+    public static final double RATE_LIMIT_INITIAL_RATE = 10.0;
+    public static final double RATE_LIMIT_MIN_RATE = 1.0;
+    public static final double RATE_LIMIT_MAX_RATE = 50.0;
+    public static final double RATE_LIMIT_INCREASE = 1.0;
+    public static final double RATE_LIMIT_DECREASE_FACTOR = 0.5;
+    public static final long RATE_LIMIT_MAX_RETRY_AFTER_MILLIS = 60_000L;
+    public static final long RATE_LIMIT_MAX_INTERACTIVE_WAIT_MILLIS = 5_000L;
+    public static final long RATE_LIMIT_MAX_BACKGROUND_WAIT_MILLIS = 60_000L;
+    public static final int CIRCUIT_BREAKER_FAILURE_THRESHOLD = 5;
+    public static final long CIRCUIT_BREAKER_OPEN_MILLIS = 30_000L;
+    public static final String PARAMETER_CACHE_CHANNEL = "vf-databricks:parameter-cache";
+    public static final int CRON_CACHE_EXPIRE_MINUTES = 30;
+    public static final int DEPENDENCY_INDEX_EXPIRE_SECONDS = 60;
+    public static final String CRON_CACHE_CHANNEL = "vf-databricks:cron-cache";
+    public static final String CRON_OVERLAP_POLICY = "overlapPolicy";
+    public static final String CRON_JITTER_SECONDS = "jitterSeconds";
+    public static final String CRON_DEFERRED = "deferred";
+    public static final int CRON_QUEUE_INTERVAL_SECONDS = 60;
+    public static final int CRON_DISPATCH_CONCURRENCY = 8;
+    public static final int CRON_DISPATCH_QUEUE_CAPACITY = 500;
+    public static final int DEPENDENCY_RUN_CONCURRENCY = 5;
+    public static final int DEPENDENCY_TRIGGER_CONCURRENCY = 4;
+    public static final int CLUSTER_CONFIG_CACHE_REFRESH_MINUTES = 10;
+    public static final int CLUSTER_CONFIG_CACHE_EXPIRE_MINUTES = 60;
+    public static final int CLUSTER_CONFIG_CONCURRENCY = 8;
+    public static final int CLUSTER_CONFIG_TIMEOUT_SECONDS = 60;
+    public static final int JOB_CONFIG_ARTIFACT_CACHE_EXPIRE_HOURS = 24;
+    public static final int JOB_CONFIG_ARTIFACT_CACHE_MAX_SIZE = 10_000;
     public static final Pattern LOG_PATTERN =
             Pattern.compile("^(\\d{2}/\\d{2}/\\d{2}\\s\\d{2}:\\d{2}:\\d{2})\\s(\\w+)\\s+(.+)$");
     public static final String DATABRICKS_OAUTH_REQUEST_URL = "oidc/v1/token";
     public static final String DATABRICKS_OAUTH_REQUEST_BODY = "grant_type=client_credentials&scope=all-apis";
+    public static final String UPSTREAM_REQUESTS_METRIC = "vf.upstream.requests";
+    public static final String UPSTREAM_TAG = "upstream";
+    public static final String ENDPOINT_TAG = "endpoint";
+    public static final String PROJECT_TAG = "project";
+    public static final String STATUS_TAG = "status";
+    public static final String RETRIES_TAG = "retries";
+    public static final String DATABRICKS_UPSTREAM = "databricks";
+    public static final String JOB_STORAGE_UPSTREAM = "job-storage";
+    public static final String HISTORY_SERVICE_UPSTREAM = "history-service";
+    public static final String DB_SERVICE_UPSTREAM = "db-service";
+    public static final String OAUTH_UPSTREAM = "oauth";
+    public static final String KUBERNETES_UPSTREAM = "kubernetes";
+    public static final String OTHER_UPSTREAM = "other";
+    public static final String NONE_TAG_VALUE = "none";
+    public static final String IO_ERROR_STATUS = "IO_ERROR";
+    public static final String RETRY_PROJECT_ATTRIBUTE = "projectId";
+    public static final String RETRY_PRIORITY_ATTRIBUTE = "priority";
+    public static final String RETRY_ATTEMPT_ATTRIBUTE = "attempt";
+    public static final String RETRY_PERMIT_ATTRIBUTE = "permit";
+    public static final String OPERATIONS_OBSERVATION = "vf.operations";
+    public static final String OPERATION_TAG = "operation";
+    public static final String RETRY_EVENT = "retry";
 }
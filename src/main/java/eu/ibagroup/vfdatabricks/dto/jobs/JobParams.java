@@ -79,6 +79,10 @@ public class JobParams extends BaseJobParams {
     private String nodeType;
     @JsonProperty(CLUSTER_SCRIPTS)
     private String clusterScripts;
+    @JsonProperty(EXISTING_CLUSTER_ID)
+    private String existingClusterId;
+    @JsonProperty(SHARED_CLUSTER)
+    private Boolean sharedCluster;
     @JsonProperty(CLUSTER_DATABRICKS_SCHEMA)
     private transient Map<String, Object> clusterDatabricksSchema;
 }
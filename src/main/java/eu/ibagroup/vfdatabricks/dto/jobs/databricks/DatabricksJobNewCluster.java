@@ -25,6 +25,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
@@ -88,6 +89,7 @@ public class DatabricksJobNewCluster {
     private Boolean applyPolicyDefaultValues;
 
 
+    @EqualsAndHashCode
     @AllArgsConstructor
     @NoArgsConstructor
     @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -99,6 +101,7 @@ public class DatabricksJobNewCluster {
         private Integer maxWorkers;
     }
 
+    @EqualsAndHashCode
     @AllArgsConstructor
     @NoArgsConstructor
     @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -148,6 +151,7 @@ public class DatabricksJobNewCluster {
             private String destination;
         }
 
+        @EqualsAndHashCode
         @AllArgsConstructor
         @NoArgsConstructor
         @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -169,6 +173,7 @@ public class DatabricksJobNewCluster {
         }
     }
 
+    @EqualsAndHashCode
     @AllArgsConstructor
     @NoArgsConstructor
     @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -176,6 +181,7 @@ public class DatabricksJobNewCluster {
         @JsonProperty("clients")
         private Clients clients;
 
+        @EqualsAndHashCode
         @AllArgsConstructor
         @NoArgsConstructor
         @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -187,6 +193,7 @@ public class DatabricksJobNewCluster {
         }
     }
 
+    @EqualsAndHashCode
     @AllArgsConstructor
     @NoArgsConstructor
     @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -196,6 +203,7 @@ public class DatabricksJobNewCluster {
         @JsonProperty("basic_auth")
         private BasicAuth basic_auth;
 
+        @EqualsAndHashCode
         @AllArgsConstructor
         @NoArgsConstructor
         @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -19,6 +19,7 @@
 
 package eu.ibagroup.vfdatabricks.dto.jobs.databricks;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -26,12 +27,17 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
+import java.util.List;
+
 @Data
 @Builder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
 @ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class DatabricksJobSparkJarTask {
     @JsonProperty("main_class_name")
     private String mainClassName;
+    @JsonProperty("parameters")
+    private List<String> parameters;
 }
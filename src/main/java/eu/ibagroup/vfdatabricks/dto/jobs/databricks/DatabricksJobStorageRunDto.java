@@ -19,6 +19,7 @@
 
 package eu.ibagroup.vfdatabricks.dto.jobs.databricks;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -41,7 +42,13 @@ public class DatabricksJobStorageRunDto {
     @JsonProperty("run_name")
     private String runName;
     private List<DatabricksJobTask> tasks;
+    @JsonProperty("job_clusters")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<DatabricksJobCluster> jobClusters;
     @JsonProperty("email_notifications")
     private DatabricksEmailNotifications emailNotifications;
+    @JsonProperty("idempotency_token")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String idempotencyToken;
 
 }
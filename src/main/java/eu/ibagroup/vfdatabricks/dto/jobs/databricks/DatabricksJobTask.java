@@ -19,6 +19,7 @@
 
 package eu.ibagroup.vfdatabricks.dto.jobs.databricks;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
@@ -40,6 +41,10 @@ public class DatabricksJobTask {
     private String taskKey;
     @JsonProperty("new_cluster")
     private DatabricksJobNewCluster newCluster;
+    @JsonProperty("existing_cluster_id")
+    private String existingClusterId;
+    @JsonProperty("job_cluster_key")
+    private String jobClusterKey;
     @JsonProperty("spark_jar_task")
     private DatabricksJobSparkJarTask sparkJarTask;
     @JsonProperty("run_if")
@@ -50,6 +55,8 @@ public class DatabricksJobTask {
     private DatabricksJobState state;
     @JsonProperty("libraries")
     private List<Library> libraries;
+    @JsonIgnore
+    private boolean dedicatedCluster;
 
 
     @Data
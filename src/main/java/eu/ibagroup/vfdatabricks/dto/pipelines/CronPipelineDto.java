@@ -20,6 +20,7 @@
 package eu.ibagroup.vfdatabricks.dto.pipelines;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -41,6 +42,12 @@ public class CronPipelineDto {
     private String schedule;
     @Schema(description = "If true Workflow scheduling will not occur")
     private boolean suspend;
+    @Schema(description = "What to do if the previous run is still active, SKIP if not set")
+    private CronOverlapPolicy overlapPolicy;
+    @Min(0)
+    @Schema(description = "Max delay in seconds of a scheduled run. The actual delay is constant for each Workflow, "
+            + "so Workflows with the same schedule do not start at the same instant", example = "300")
+    private Integer jitterSeconds;
 
     public CronPipelineDto(String schedule) {
         this.schedule = schedule;
@@ -31,6 +31,7 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
+import java.util.HashMap;
 import java.util.Map;
 
 import static eu.ibagroup.vfdatabricks.dto.Constants.*;
@@ -57,6 +58,7 @@ public class ProjectRequestDto {
     private String cloud;
     private String isUpdating;
     private String jarHash;
+    private String instancePoolId;
 
     public Secret toSecret() {
         if (pathToFile == null) {
@@ -73,14 +75,19 @@ public class ProjectRequestDto {
             case OAUTH -> getAuthentication().getClientId() + ":" + authentication.getSecret();
         };
 
+        Map<String, String> data = new HashMap<>(Map.of(HOST, host,
+                TOKEN, token,
+                AUTHENTICATION_TYPE, authentication.getAuthenticationType().name(),
+                PATH_TO_FILE, pathToFile,
+                CLOUD, cloud,
+                UPDATING, isUpdating,
+                HASH, jarHash));
+        if (instancePoolId != null && !instancePoolId.isBlank()) {
+            data.put(INSTANCE_POOL_ID, instancePoolId);
+        }
+
         return new SecretBuilder()
-                .addToStringData(Map.of(HOST, host,
-                        TOKEN, token,
-                        AUTHENTICATION_TYPE, authentication.getAuthenticationType().name(),
-                        PATH_TO_FILE, pathToFile,
-                        CLOUD, cloud,
-                        UPDATING, isUpdating,
-                        HASH, jarHash))
+                .addToStringData(data)
                 .withNewMetadata()
                 .withAnnotations(Map.of(NAME, name, DESCRIPTION, description))
                 .endMetadata()
@@ -50,6 +50,7 @@ public class ProjectResponseDto {
     private String host;
     private String pathToFile;
     private String cloud;
+    private String instancePoolId;
     private boolean editable;
     private boolean demo;
     private boolean locked;
@@ -65,6 +66,10 @@ public class ProjectResponseDto {
         if (project.getData().get(CLOUD) != null) {
             cloud = decodeFromBase64(project.getData().get(CLOUD));
         }
+        String instancePoolId = null;
+        if (project.getData().get(INSTANCE_POOL_ID) != null) {
+            instancePoolId = decodeFromBase64(project.getData().get(INSTANCE_POOL_ID));
+        }
         DatabricksAuthentication authentication = DatabricksAuthentication.builder()
                 .authenticationType(DatabricksAuthentication.AuthenticationType
                         .valueOf(decodeFromBase64(project.getData().get(AUTHENTICATION_TYPE))))
@@ -84,6 +89,7 @@ public class ProjectResponseDto {
                 .authentication(authentication)
                 .pathToFile(pathToFile)
                 .cloud(cloud)
+                .instancePoolId(instancePoolId)
                 .editable(true)
                 .locked(false)
                 .demo(false)
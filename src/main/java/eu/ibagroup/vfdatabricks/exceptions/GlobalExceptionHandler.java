@@ -52,6 +52,18 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ex.getMessage());
     }
 
+    @ExceptionHandler(WorkspaceUnavailableException.class)
+    public ResponseEntity<String> handleException(WorkspaceUnavailableException ex) {
+        LOGGER.warn(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<String> handleException(RateLimitExceededException ex) {
+        LOGGER.warn(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(ex.getMessage());
+    }
+
     @ExceptionHandler(HttpClientErrorException.class)
     public ResponseEntity<String> handleException(HttpClientErrorException ex) {
         LOGGER.error("Internal error occurred: {}", ex.getLocalizedMessage());
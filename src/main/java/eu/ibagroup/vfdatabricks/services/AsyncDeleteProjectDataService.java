@@ -75,8 +75,8 @@ public class AsyncDeleteProjectDataService {
         // TODO delete pipelines
         String folderKey = PROJECT_KEY_PREFIX + projectId;
         // deleting parameters
-        redisTemplate.opsForHash().entries(folderKey).keySet()
-                .forEach(key -> redisTemplate.opsForHash().delete(folderKey, key));
+        redisTemplate.delete(folderKey);
+        redisTemplate.convertAndSend(PARAMETER_CACHE_CHANNEL, projectId);
         // deleting connections
         restTemplate.delete(
                 String.format("%s/%s/%s/%s/connections",
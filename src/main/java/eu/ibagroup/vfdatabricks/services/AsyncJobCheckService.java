@@ -22,7 +22,10 @@ package eu.ibagroup.vfdatabricks.services;
 import eu.ibagroup.vfdatabricks.dto.jobs.CommonDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobRunDto;
 import eu.ibagroup.vfdatabricks.dto.pipelines.PipelineOverviewDto;
+import eu.ibagroup.vfdatabricks.exceptions.WorkspaceUnavailableException;
+import eu.ibagroup.vfdatabricks.services.jfr.JobStatusCheckEvent;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -33,6 +36,7 @@ import static eu.ibagroup.vfdatabricks.dto.Constants.PENDING_VF_STATUS;
 import static eu.ibagroup.vfdatabricks.dto.Constants.RUNNING_VF_STATUS;
 import static eu.ibagroup.vfdatabricks.services.UtilsService.toFormattedString;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AsyncJobCheckService {
@@ -44,15 +48,32 @@ public class AsyncJobCheckService {
         if (StringUtils.equalsAnyIgnoreCase(job.getStatus(), PENDING_VF_STATUS, RUNNING_VF_STATUS)
                 && job.getRunId() > 0) {
 
-            DatabricksJobRunDto result = databricksApiService.checkJobStatus(projectId, job.getRunId());
+            JobStatusCheckEvent event = new JobStatusCheckEvent();
+            event.begin();
+            DatabricksJobRunDto result;
+            try {
+                result = databricksApiService.checkJobStatus(projectId, job.getRunId());
+            } catch (WorkspaceUnavailableException e) {
+                // the job keeps its last known status until the workspace is available
+                LOGGER.debug("Status of run {} is not checked: {}", job.getRunId(), e.getMessage());
+                return CompletableFuture.completedFuture(null);
+            }
+            event.end();
 
+            String status = null;
             if (result != null && result.getState() != null) {
-                String status = mapperService.mapStatus(result.getState());
-                if (!status.equals(job.getStatus())) {
-                    populate(job, status, result);
-                    return CompletableFuture.completedFuture(result);
-
-                }
+                status = mapperService.mapStatus(result.getState());
+            }
+            if (event.shouldCommit()) {
+                event.setProjectId(projectId);
+                event.setRunId(job.getRunId());
+                event.setPreviousStatus(job.getStatus());
+                event.setStatus(status);
+                event.commit();
+            }
+            if (status != null && !status.equals(job.getStatus())) {
+                populate(job, status, result);
+                return CompletableFuture.completedFuture(result);
             }
         }
         return CompletableFuture.completedFuture(null);
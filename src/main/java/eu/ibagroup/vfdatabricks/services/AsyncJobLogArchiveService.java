@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2021 IBA Group, a.s. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.ibagroup.vfdatabricks.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
+import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobClusterDto;
+import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobLogDto;
+import eu.ibagroup.vfdatabricks.dto.jobs.databricks.JobLogDto;
+import eu.ibagroup.vfdatabricks.exceptions.InternalProcessingException;
+import eu.ibagroup.vfdatabricks.services.DatabricksRateLimiter.Priority;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static eu.ibagroup.vfdatabricks.dto.Constants.CONTEXT_PATH_HISTORY;
+import static eu.ibagroup.vfdatabricks.dto.Constants.HISTORY_SERVICE_API;
+import static eu.ibagroup.vfdatabricks.dto.Constants.IDEMPOTENCY_KEY_HEADER;
+import static eu.ibagroup.vfdatabricks.services.UtilsService.decodeFromBase64;
+import static eu.ibagroup.vfdatabricks.services.UtilsService.getIdempotencyKey;
+import static eu.ibagroup.vfdatabricks.services.UtilsService.getParsedDBLogs;
+import static eu.ibagroup.vfdatabricks.services.UtilsService.parseLogsInChunks;
+
+/**
+ * Service for archiving job logs in the history service.
+ * Logs are sent in one request, or, if chunked logs are enabled, in bounded gzip-compressed chunks:
+ * the first chunk creates the log record, the following ones are appended to it.
+ */
+@Slf4j
+@Service
+public class AsyncJobLogArchiveService {
+    private static final String GZIP_ENCODING = "gzip";
+    private final DatabricksAPIService databricksApiService;
+    private final RestTemplate restTemplate;
+    private final ApplicationConfigurationProperties appProperties;
+    private final ObjectMapper objectMapper;
+
+    public AsyncJobLogArchiveService(DatabricksAPIService databricksApiService,
+                                     @Qualifier("authRestTemplate") RestTemplate restTemplate,
+                                     ApplicationConfigurationProperties appProperties,
+                                     ObjectMapper objectMapper) {
+        this.databricksApiService = databricksApiService;
+        this.restTemplate = restTemplate;
+        this.appProperties = appProperties;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Fetches driver logs of the run from Databricks and archives them in the history service.
+     *
+     * @param projectId project id
+     * @param jobId     job id
+     * @param runId     Databricks run id
+     * @return id of the created log record
+     */
+    @Async
+    public CompletableFuture<String> archiveJobLogs(String projectId, String jobId, long runId) {
+        String logs;
+        try {
+            DatabricksJobClusterDto databricksJobClusterDto =
+                    databricksApiService.getClusterInfo(projectId, runId, Priority.BACKGROUND);
+            String clusterId = databricksJobClusterDto.getTasks().get(0).getClusterInstance().getClusterId();
+            DatabricksJobLogDto databricksJobLogDto =
+                    databricksApiService.getJobLogs(projectId, clusterId, Priority.BACKGROUND);
+            logs = decodeFromBase64(databricksJobLogDto.getData());
+        } catch (RuntimeException e) {
+            LOGGER.info("Error:", e);
+            LOGGER.info("No provided logs from Databricks");
+            logs = "";
+        }
+        return CompletableFuture.completedFuture(archiveLogs(jobId, runId, logs));
+    }
+
+    /**
+     * Parses raw logs and sends them to the history service.
+     *
+     * @param jobId job id
+     * @param runId Databricks run id
+     * @param logs  raw log text
+     * @return id of the created log record
+     */
+    String archiveLogs(String jobId, long runId, String logs) {
+        if (appProperties.getHistoryService().isChunkedLogs()) {
+            return archiveLogsInChunks(jobId, runId, logs);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(IDEMPOTENCY_KEY_HEADER, getIdempotencyKey(jobId, runId));
+        return restTemplate.postForEntity(
+                getLogUrl(jobId),
+                new HttpEntity<>(getParsedDBLogs(logs), headers),
+                String.class
+        ).getBody();
+    }
+
+    /**
+     * Parses raw logs and sends them to the history service chunk by chunk.
+     * The archiving fails, if the first chunk, which creates the log record, fails.
+     * A failed appended chunk is reported and skipped, the remaining chunks are still sent.
+     * The log record is created with an idempotency key of the run, so a repeated archiving of the same run
+     * does not produce a second record.
+     *
+     * @param jobId job id
+     * @param runId Databricks run id
+     * @param logs  raw log text
+     * @return id of the created log record
+     */
+    String archiveLogsInChunks(String jobId, long runId, String logs) {
+        int chunkSize = Math.max(1, appProperties.getHistoryService().getLogChunkSize());
+        AtomicInteger chunkIndex = new AtomicInteger();
+        AtomicInteger failedChunks = new AtomicInteger();
+        String[] logId = new String[1];
+        int entries = parseLogsInChunks(logs, chunkSize, (List<JobLogDto> chunk) -> {
+            int index = chunkIndex.getAndIncrement();
+            try {
+                logId[0] = sendChunk(jobId, runId, logId[0], chunk);
+            } catch (RestClientException | InternalProcessingException e) {
+                if (logId[0] == null) {
+                    throw e;
+                }
+                failedChunks.incrementAndGet();
+                LOGGER.warn("Failed to archive log chunk {} ({} entries) of job '{}': {}",
+                        index, chunk.size(), jobId, e.getMessage());
+            }
+        });
+        if (failedChunks.get() > 0) {
+            LOGGER.error("{} of {} log chunks of job '{}' were not archived",
+                    failedChunks.get(), chunkIndex.get(), jobId);
+        } else {
+            LOGGER.debug("{} log entries of job '{}' archived in {} chunks", entries, jobId, chunkIndex.get());
+        }
+        return logId[0];
+    }
+
+    private String sendChunk(String jobId, long runId, String logId, List<JobLogDto> chunk) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(HttpHeaders.CONTENT_ENCODING, GZIP_ENCODING);
+        if (logId == null) {
+            headers.set(IDEMPOTENCY_KEY_HEADER, getIdempotencyKey(jobId, runId));
+            HttpEntity<byte[]> entity = new HttpEntity<>(compress(chunk), headers);
+            return restTemplate.postForEntity(getLogUrl(jobId), entity, String.class).getBody();
+        }
+        HttpEntity<byte[]> entity = new HttpEntity<>(compress(chunk), headers);
+        restTemplate.postForEntity(getLogUrl(jobId) + "/" + logId, entity, String.class);
+        return logId;
+    }
+
+    private String getLogUrl(String jobId) {
+        return String.format("%s/%s/%s/history/job/%s/log",
+                appProperties.getHistoryService().getHost(),
+                CONTEXT_PATH_HISTORY,
+                HISTORY_SERVICE_API,
+                jobId);
+    }
+
+    private byte[] compress(List<JobLogDto> chunk) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, chunk);
+        } catch (IOException e) {
+            throw new InternalProcessingException("Unable to compress log chunk", e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -26,7 +26,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.Collection;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -35,23 +35,15 @@ public class CronCheckService {
     private final SchedulerService schedulerService;
 
 
-    private void updateCronDetails(String projectId, PipelineOverviewDto pipelineOverviewDto, Boolean exists) {
-        if (exists) {
-            CronPipelineDto cron = schedulerService.getCron(projectId, pipelineOverviewDto.getId());
-            pipelineOverviewDto.setCron(true);
-            pipelineOverviewDto.setCronExpression(cron.getSchedule());
-            pipelineOverviewDto.setCronSuspend(cron.isSuspend());
-        }
-    }
-
     public void checkAndUpdateCron(String projectId, Collection<? extends PipelineOverviewDto> pipelines) {
-        CompletableFuture<?>[] futures = pipelines.stream()
-                .map(pipelineOverviewDto -> schedulerService.exists(projectId, pipelineOverviewDto.getId())
-                        .thenAccept(exists -> updateCronDetails(projectId, pipelineOverviewDto, exists)))
-                .toArray(CompletableFuture[]::new);
-
-        CompletableFuture.allOf(futures).join();
+        Map<String, CronPipelineDto> crons = schedulerService.getCrons(projectId);
+        pipelines.forEach((PipelineOverviewDto pipelineOverviewDto) -> {
+            CronPipelineDto cron = crons.get(pipelineOverviewDto.getId());
+            if (cron != null) {
+                pipelineOverviewDto.setCron(true);
+                pipelineOverviewDto.setCronExpression(cron.getSchedule());
+                pipelineOverviewDto.setCronSuspend(cron.isSuspend());
+            }
+        });
     }
-
-
 }
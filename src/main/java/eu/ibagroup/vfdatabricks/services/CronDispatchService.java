@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2021 IBA Group, a.s. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.ibagroup.vfdatabricks.services;
+
+import eu.ibagroup.vfdatabricks.dto.pipelines.CronOverlapPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.TriggerKey;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static eu.ibagroup.vfdatabricks.dto.Constants.CRON_QUEUE_INTERVAL_SECONDS;
+
+/**
+ * Service for starting scheduled pipeline runs outside of Quartz threads.
+ * A fired trigger only enqueues the run, compilation and submission happen on the dispatch executor,
+ * so long compilations do not hold Quartz threads and do not cause misfires of other triggers.
+ */
+@Slf4j
+@Service
+public class CronDispatchService {
+    static final String FIRE_LAG_METRIC = "vf.cron.fire.lag";
+    static final String SUBMIT_METRIC = "vf.cron.submit";
+    static final String QUEUE_DEPTH_METRIC = "vf.cron.queue.depth";
+    static final String REJECTED_METRIC = "vf.cron.rejected";
+    static final String PROJECT_TAG = "project";
+    static final String RESULT_TAG = "result";
+
+    private final PipelineService pipelineService;
+    private final SchedulerService schedulerService;
+    private final ThreadPoolTaskExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> queueDepths = new ConcurrentHashMap<>();
+
+    public CronDispatchService(PipelineService pipelineService,
+                               SchedulerService schedulerService,
+                               @Qualifier("cronDispatchExecutor") ThreadPoolTaskExecutor executor,
+                               MeterRegistry meterRegistry) {
+        this.pipelineService = pipelineService;
+        this.schedulerService = schedulerService;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Recording the delay between the scheduled and the actual fire time of a trigger.
+     *
+     * @param projectId         project id
+     * @param scheduledFireTime time, at which the trigger was scheduled to fire
+     * @param fireTime          time, at which the trigger fired
+     */
+    public void recordFireLag(String projectId, Date scheduledFireTime, Date fireTime) {
+        if (scheduledFireTime != null && fireTime != null) {
+            meterRegistry.timer(FIRE_LAG_METRIC, PROJECT_TAG, projectId)
+                    .record(Math.max(0, fireTime.getTime() - scheduledFireTime.getTime()), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Enqueueing a scheduled run of the pipeline.
+     * If the dispatch queue is full, the run is deferred instead of blocking the Quartz thread.
+     *
+     * @param projectId     project id
+     * @param pipelineId    pipeline id
+     * @param overlapPolicy what to do if the previous run is still active
+     * @param firingTrigger trigger, which is being fired now
+     */
+    public void dispatch(String projectId, String pipelineId, CronOverlapPolicy overlapPolicy,
+                         TriggerKey firingTrigger) {
+        AtomicInteger queueDepth = getQueueDepth(projectId);
+        queueDepth.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                queueDepth.decrementAndGet();
+                run(projectId, pipelineId, overlapPolicy, firingTrigger);
+            });
+        } catch (TaskRejectedException e) {
+            queueDepth.decrementAndGet();
+            meterRegistry.counter(REJECTED_METRIC, PROJECT_TAG, projectId).increment();
+            LOGGER.warn("Dispatch queue is full, run of pipeline '{}' in project '{}' is deferred",
+                    pipelineId, projectId);
+            deferRun(projectId, pipelineId, firingTrigger);
+        }
+    }
+
+    private void run(String projectId, String pipelineId, CronOverlapPolicy overlapPolicy,
+                     TriggerKey firingTrigger) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "error";
+        try {
+            if (pipelineService.runScheduled(projectId, pipelineId, overlapPolicy)) {
+                result = "started";
+            } else if (overlapPolicy == CronOverlapPolicy.QUEUE) {
+                result = "queued";
+                deferRun(projectId, pipelineId, firingTrigger);
+            } else {
+                result = "skipped";
+                LOGGER.info("Run of pipeline '{}' in project '{}' skipped, the previous run is still active",
+                        pipelineId, projectId);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Scheduled run of pipeline '{}' in project '{}' failed: {}",
+                    pipelineId, projectId, e.getMessage(), e);
+        } finally {
+            sample.stop(meterRegistry.timer(SUBMIT_METRIC, Tags.of(PROJECT_TAG, projectId, RESULT_TAG, result)));
+        }
+    }
+
+    private void deferRun(String projectId, String pipelineId, TriggerKey firingTrigger) {
+        schedulerService.deferRun(projectId, pipelineId, TimeUnit.SECONDS.toMillis(CRON_QUEUE_INTERVAL_SECONDS),
+                firingTrigger);
+    }
+
+    private AtomicInteger getQueueDepth(String projectId) {
+        return queueDepths.computeIfAbsent(projectId, (String key) ->
+                meterRegistry.gauge(QUEUE_DEPTH_METRIC, Tags.of(PROJECT_TAG, key), new AtomicInteger()));
+    }
+}
@@ -19,21 +19,15 @@
 package eu.ibagroup.vfdatabricks.services;
 
 import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
-import eu.ibagroup.vfdatabricks.dto.Constants;
 import eu.ibagroup.vfdatabricks.dto.connections.ConnectionDto;
 import eu.ibagroup.vfdatabricks.dto.databases.PingStatusDto;
-import eu.ibagroup.vfdatabricks.dto.parameters.ParameterDto;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.stream.Collectors;
 
 /**
  * Service class for manipulations with data, will be sent to DB-Service.
@@ -44,7 +38,7 @@ import java.util.stream.Collectors;
 public class DatabasesService {
 
     private final ConnectionService connectionService;
-    private final ParameterService parameterService;
+    private final ParameterTemplateService parameterTemplateService;
     private final RestTemplate restTemplate;
     private final ApplicationConfigurationProperties appProperties;
 
@@ -99,19 +93,9 @@ public class DatabasesService {
      * @return parsed connection object with filled params.
      */
     public ConnectionDto replaceParams(String projectId, ConnectionDto connection) {
-        List<ParameterDto> params = parameterService.getAll(projectId).getParams();
-        Map<String, String> paramsMap = params.stream().collect(Collectors.toMap(ParameterDto::getKey,
-                param -> param.getValue().getText()));
-        connection.getValue().forEach((String key, String value) -> {
-            Matcher matcher = Constants.PARAM_MATCH_PATTERN.matcher(value);
-            while (matcher.find()) {
-                String found = matcher.group(1);
-                if (paramsMap.containsKey(found)) {
-                    value = value.replace(matcher.group(), paramsMap.get(found));
-                    matcher = Constants.PARAM_MATCH_PATTERN.matcher(value);
-                }
-            }
-        });
+        if (connection.getValue() != null) {
+            connection.setValue(parameterTemplateService.substituteAll(projectId, connection.getValue()));
+        }
         return connection;
     }
 }
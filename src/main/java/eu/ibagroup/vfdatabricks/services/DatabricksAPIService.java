@@ -19,11 +19,15 @@
 
 package eu.ibagroup.vfdatabricks.services;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
 import eu.ibagroup.vfdatabricks.dto.NodeTypeList;
 import eu.ibagroup.vfdatabricks.dto.Params;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DataBricksSecretDeleteDto;
+import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DataBricksSecretListDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DataBricksSecretPutDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DataBricksSecretScopeDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobClusterDto;
@@ -34,7 +38,10 @@ import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksRunIdDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksSecretScopeDeleteDto;
 import eu.ibagroup.vfdatabricks.dto.projects.DatabricksAuthentication;
 import eu.ibagroup.vfdatabricks.exceptions.ForRetryRestTemplateException;
+import eu.ibagroup.vfdatabricks.exceptions.WorkspaceUnavailableException;
 import eu.ibagroup.vfdatabricks.model.Parameter;
+import eu.ibagroup.vfdatabricks.services.DatabricksRateLimiter.Priority;
+import eu.ibagroup.vfdatabricks.services.jfr.FileUploadEvent;
 import io.fabric8.kubernetes.api.model.Secret;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.client5.http.classic.methods.HttpPut;
@@ -45,6 +52,7 @@ import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -55,17 +63,25 @@ import org.springframework.retry.RetryContext;
 import org.springframework.retry.backoff.FixedBackOffPolicy;
 import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import static eu.ibagroup.vfdatabricks.dto.Constants.*;
 import static eu.ibagroup.vfdatabricks.services.UtilsService.*;
@@ -75,43 +91,159 @@ import static org.springframework.http.HttpHeaders.USER_AGENT;
 @Service
 public class DatabricksAPIService {
     private static final long MILLISECONDS_MULTIPLIER = 1000L;
+    private static final int MAX_BACKOFF_DOUBLINGS = 16;
     private final KubernetesService kubernetesService;
     private final RestTemplate databricksRestTemplate;
     private final ApplicationConfigurationProperties appProperties;
     private final LoadingCache<String, String> tokenCache;
+    private final Executor clusterConfigExecutor;
+    private final Executor taskExecutor;
+    private final LoadingCache<String, Map<String, Object>> clusterConfigCache;
+    private final MetricsService metricsService;
+    private final TracingService tracingService;
+    private final DatabricksRateLimiter rateLimiter;
+    private final DatabricksCircuitBreaker circuitBreaker;
 
     public DatabricksAPIService(KubernetesService kubernetesService,
                                 @Qualifier("databricksRestTemplate") RestTemplate databricksRestTemplate,
                                 ApplicationConfigurationProperties appProperties,
-                                @Qualifier("tokenCache") LoadingCache<String, String> tokenCache) {
+                                @Qualifier("tokenCache") LoadingCache<String, String> tokenCache,
+                                @Qualifier("clusterConfigExecutor") Executor clusterConfigExecutor,
+                                @Qualifier("clusterConfigRefreshExecutor") Executor clusterConfigRefreshExecutor,
+                                @Qualifier("taskExecutor") Executor taskExecutor,
+                                MetricsService metricsService,
+                                TracingService tracingService,
+                                DatabricksRateLimiter rateLimiter,
+                                DatabricksCircuitBreaker circuitBreaker) {
         this.kubernetesService = kubernetesService;
+        this.metricsService = metricsService;
+        this.tracingService = tracingService;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
         this.databricksRestTemplate = databricksRestTemplate;
         this.appProperties = appProperties;
         this.tokenCache = tokenCache;
+        this.clusterConfigExecutor = clusterConfigExecutor;
+        this.taskExecutor = taskExecutor;
+        ApplicationConfigurationProperties.ClusterConfigCache settings = appProperties.getClusterConfigCache();
+        // reloads wait for the requests on clusterConfigExecutor, so they must not take its threads
+        this.clusterConfigCache = CacheBuilder.newBuilder()
+                .refreshAfterWrite(settings.getRefreshMinutes(), TimeUnit.MINUTES)
+                .expireAfterWrite(settings.getExpireMinutes(), TimeUnit.MINUTES)
+                .build(CacheLoader.asyncReloading(CacheLoader.from(this::loadDatabricksClusterConfigFields),
+                        clusterConfigRefreshExecutor));
     }
 
-    @Async
+    /**
+     * Submitting a run. A failed submission is retried with exponential backoff and jitter, starting from
+     * {@code intervals} seconds, until the backoff takes {@code upTo} seconds. The backoff leaves time for
+     * at least {@code upTo / intervals} retries, like the fixed interval retries of the other requests.
+     * Retries wait on a timer, so no thread is held between the attempts, and so do the attempts, which
+     * have no permit of the workspace rate limiter or no free thread yet. Such waits aren't backoff, so they
+     * don't count against {@code upTo}.
+     *
+     * @param projectId project id
+     * @param body      run
+     * @param params    retry params
+     * @return id of the submitted run
+     */
     public CompletableFuture<DatabricksRunIdDto> runJob(String projectId,
                                                         DatabricksJobStorageRunDto body,
                                                         Params params) {
-        RetryTemplate retryTemplate = getRetryTemplate(params);
-        DatabricksRunIdDto response;
+        long intervals = Long.parseLong(params.getIntervals());
+        long upTo = Long.parseLong(params.getUpTo());
+        String host = decodeFromBase64(kubernetesService.getSecret(projectId).getData().get(HOST));
+        return tracingService.traceAsync(DATABRICKS_UPSTREAM + " runs/submit", projectId, () -> {
+            RunSubmission submission = new RunSubmission(projectId,
+                    Objects.requireNonNullElse(URI.create(host).getAuthority(), host),
+                    body,
+                    intervals * MILLISECONDS_MULTIPLIER,
+                    intervals > 0 ? (int) (upTo / intervals) : 0,
+                    upTo * MILLISECONDS_MULTIPLIER,
+                    new CompletableFuture<>());
+            schedule(submission, 0, 0);
+            return submission.result();
+        });
+    }
+
+    private void submitRun(RunSubmission submission, int attempt) {
+        long wait = rateLimiter.tryAcquire(submission.workspace(), Priority.INTERACTIVE);
+        if (wait > 0) {
+            schedule(submission, attempt, wait);
+            return;
+        }
+        LOGGER.info("Submitting run of project {}, attempt {}", submission.projectId(), attempt + 1);
+        if (attempt > 0) {
+            tracingService.event(RETRY_EVENT);
+        }
         try {
-            response = retryTemplate.execute((RetryCallback<DatabricksRunIdDto,
-                    ForRetryRestTemplateException>) (RetryContext context)-> {
-                LOGGER.info("STARTED RETRY");
-                return sendRequest(projectId,
-                        String.format("/%s/runs/submit", DATABRICKS_JOBS_API),
-                        HttpMethod.POST,
-                        body,
-                        DatabricksRunIdDto.class,
-                        false);
-            });
-        } catch (ForRetryRestTemplateException e) {
+            submission.result().complete(sendRequest(submission.projectId(),
+                    String.format("/%s/runs/submit", DATABRICKS_JOBS_API),
+                    HttpMethod.POST,
+                    submission.body(),
+                    DatabricksRunIdDto.class,
+                    false,
+                    Priority.INTERACTIVE,
+                    attempt,
+                    true));
+        } catch (WorkspaceUnavailableException e) {
+            submission.result().completeExceptionally(e);
+        } catch (RuntimeException e) {
+            retry(submission, attempt, e);
+        }
+    }
+
+    private void retry(RunSubmission submission, int attempt, RuntimeException e) {
+        long remainingMillis = submission.backoffMillis();
+        if (remainingMillis <= 0) {
             LOGGER.info("Retry error", e);
-            throw e;
+            submission.result().completeExceptionally(e);
+            return;
+        }
+        long delay = Math.max(1,
+                getRetryDelayMillis(attempt, submission.intervalMillis(), submission.retries(), remainingMillis));
+        LOGGER.info("Run submission of project {} failed, retrying in {} ms: {}",
+                submission.projectId(), delay, e.getMessage());
+        schedule(submission.afterBackoff(delay), attempt + 1, delay);
+    }
+
+    private void schedule(RunSubmission submission, int attempt, long delayMillis) {
+        Runnable task = tracingService.wrap(() -> submitRun(submission, attempt));
+        Executor executor = delayMillis > 0
+                ? CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS)
+                : Runnable::run;
+        executor.execute(tracingService.wrap(() -> {
+            try {
+                taskExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // the pool is busy with other requests, which isn't a failure of the submission
+                long delay = Math.max(1, getRetryDelayMillis(0, submission.intervalMillis(), 0, Long.MAX_VALUE));
+                LOGGER.info("Run submission of project {} is postponed by {} ms: {}",
+                        submission.projectId(), delay, e.getMessage());
+                schedule(submission, attempt, delay);
+            }
+        }));
+    }
+
+    /**
+     * Getting the delay before the retry: the interval doubled for every previous retry,
+     * of which a random half is waited, so the retries of concurrent submissions are spread.
+     * Until the promised number of retries is made, the backoff is capped by an equal share
+     * of the remaining backoff time, and the last retry takes no more than the remaining time.
+     *
+     * @param attempt         number of the failed attempt, starting from 0
+     * @param intervalMillis  delay before the first retry
+     * @param retries         number of retries, which must fit into the backoff time
+     * @param remainingMillis backoff time left
+     * @return delay in millis
+     */
+    static long getRetryDelayMillis(int attempt, long intervalMillis, int retries, long remainingMillis) {
+        long backoff = intervalMillis << Math.min(attempt, MAX_BACKOFF_DOUBLINGS);
+        if (attempt < retries) {
+            backoff = Math.min(backoff, remainingMillis / (retries - attempt));
         }
-        return CompletableFuture.completedFuture(response);
+        long delay = backoff - ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        return Math.min(delay, remainingMillis);
     }
 
     private static RetryTemplate getRetryTemplate(Params params) {
@@ -127,7 +259,9 @@ public class DatabricksAPIService {
         fixedBackOffPolicy.setBackOffPeriod(intervals * MILLISECONDS_MULTIPLIER);
 
         retryTemplate.setBackOffPolicy(fixedBackOffPolicy);
-        retryTemplate.setRetryPolicy(new SimpleRetryPolicy(attempts));
+        // an open circuit of the workspace fails fast instead of waiting for the retries
+        retryTemplate.setRetryPolicy(new SimpleRetryPolicy(attempts,
+                Map.of(WorkspaceUnavailableException.class, false), true, true));
         return retryTemplate;
     }
 
@@ -146,29 +280,49 @@ public class DatabricksAPIService {
                 HttpMethod.GET,
                 null,
                 DatabricksJobRunDto.class,
-                true);
+                true,
+                Priority.BACKGROUND);
     }
 
     public DatabricksJobClusterDto getClusterInfo(String projectId, long runId) {
+        return getClusterInfo(projectId, runId, Priority.INTERACTIVE);
+    }
+
+    public DatabricksJobClusterDto getClusterInfo(String projectId, long runId, Priority priority) {
         return sendRequest(projectId,
                 String.format("/%s/runs/get?run_id=%s", DATABRICKS_JOBS_API, runId),
                 HttpMethod.GET,
                 null,
                 DatabricksJobClusterDto.class,
-                true);
+                true,
+                priority);
     }
 
     public DatabricksJobLogDto getJobLogs(String projectId, String clusterId) {
+        return getJobLogs(projectId, clusterId, Priority.INTERACTIVE);
+    }
+
+    public DatabricksJobLogDto getJobLogs(String projectId, String clusterId, Priority priority) {
         String path = "/logStore/log/" + clusterId + "/driver/log4j-active.log";
         return sendRequest(projectId,
                 String.format("/%s/dbfs/read?path=%s", DATABRICKS_JOBS_API_20, path),
                 HttpMethod.GET,
                 null,
                 DatabricksJobLogDto.class,
-                true);
+                true,
+                priority);
     }
 
-    public void uploadFile(String projectId, String path, byte[] fileBytes, String fileName) {
+    /**
+     * Uploading a file to the project folder. An already existing file is not overwritten.
+     *
+     * @param projectId project id
+     * @param path      folder path
+     * @param fileBytes file content
+     * @param fileName  file name
+     * @return true if the file is uploaded or already exists
+     */
+    public boolean uploadFile(String projectId, String path, byte[] fileBytes, String fileName) {
         createDirectory(projectId, path);
         Secret project = kubernetesService.getSecret(projectId);
 
@@ -186,9 +340,34 @@ public class DatabricksAPIService {
 
             httpPut.setEntity(new ByteArrayEntity(fileBytes, ContentType.APPLICATION_OCTET_STREAM));
             LOGGER.info("File upload for {} started", projectId);
-            try (CloseableHttpResponse response = httpClient.execute(httpPut)) {
+            String workspace = httpPut.getUri().getAuthority();
+            circuitBreaker.acquire(workspace);
+            rateLimiter.acquire(workspace, Priority.BACKGROUND);
+            FileUploadEvent event = new FileUploadEvent();
+            event.begin();
+            long start = System.nanoTime();
+            try (CloseableHttpResponse response = execute(httpClient, httpPut, workspace)) {
+                metricsService.recordUpstreamCall(DATABRICKS_UPSTREAM, "fs/files", projectId, 0,
+                        String.valueOf(response.getCode()), System.nanoTime() - start);
+                circuitBreaker.onResponse(workspace, response.getCode());
+                HttpHeaders headers = new HttpHeaders();
+                Optional.ofNullable(response.getFirstHeader(HttpHeaders.RETRY_AFTER))
+                        .ifPresent(header -> headers.set(HttpHeaders.RETRY_AFTER, header.getValue()));
+                rateLimiter.onResponse(workspace, response.getCode(),
+                        DatabricksRateLimiter.getRetryAfterMillis(headers));
+                if (event.shouldCommit()) {
+                    event.setProjectId(projectId);
+                    event.setFileName(fileName);
+                    event.setBytes(fileBytes.length);
+                    event.setStatusCode(response.getCode());
+                    event.commit();
+                }
                 if (response.getCode() == HttpStatus.NO_CONTENT.value()) {
                     LOGGER.info("File for project '{}' uploaded successfully", projectId);
+                    return true;
+                } else if (response.getCode() == HttpStatus.CONFLICT.value()) {
+                    LOGGER.info("File '{}' for project '{}' already exists", fileName, projectId);
+                    return true;
                 } else {
                     LOGGER.info("Error while uploading file for project '{}': " + response.getCode(), projectId);
                 }
@@ -197,6 +376,17 @@ public class DatabricksAPIService {
         } catch (Exception e) {
             LOGGER.error("Error while uploading file", e);
         }
+        return false;
+    }
+
+    private CloseableHttpResponse execute(CloseableHttpClient httpClient, HttpPut httpPut, String workspace)
+            throws IOException {
+        try {
+            return httpClient.execute(httpPut);
+        } catch (IOException e) {
+            circuitBreaker.onFailure(workspace);
+            throw e;
+        }
     }
 
     public void createDirectory(String projectId, String path) {
@@ -205,7 +395,8 @@ public class DatabricksAPIService {
                 HttpMethod.PUT,
                 null,
                 Object.class,
-                true);
+                true,
+                Priority.BACKGROUND);
     }
 
     public void createSecretScope(String projectId) {
@@ -239,7 +430,8 @@ public class DatabricksAPIService {
                 HttpMethod.POST,
                 body,
                 Object.class,
-                true);
+                true,
+                Priority.BACKGROUND);
     }
 
     public void deleteSecret(String projectId, String parameterId) {
@@ -252,74 +444,171 @@ public class DatabricksAPIService {
                 HttpMethod.POST,
                 body,
                 Object.class,
-                true);
+                true,
+                Priority.BACKGROUND);
+    }
+
+    /**
+     * Getting keys of all secrets in the project scope.
+     *
+     * @param projectId project id, used as the scope name
+     * @return secret keys
+     */
+    public List<String> listSecrets(String projectId) {
+        DataBricksSecretListDto response = sendRequest(projectId,
+                String.format("/%s/list?scope=%s", DATABRICKS_SECRET_API, projectId),
+                HttpMethod.GET,
+                null,
+                DataBricksSecretListDto.class,
+                true,
+                Priority.BACKGROUND);
+        if (response == null || response.getSecrets() == null) {
+            return Collections.emptyList();
+        }
+        return response.getSecrets().stream().map(DataBricksSecretListDto.SecretMetadata::getKey).toList();
     }
 
     /**
-     * Getting cluster config.
+     * Getting cluster config. The fields are cached per project and reloaded in the background,
+     * once they are older than the configured refresh interval. Running clusters are always requested,
+     * since they may be terminated at any time.
      *
      * @param projectId for getting connection settings for databricks
      * @return Map of params
      */
     public Map<String, Object> getDatabricksClusterConfigFields(String projectId) {
-        Map<String, Object> result = new HashMap<>();
-
-        Secret project = kubernetesService.getSecret(projectId);
-        String cloud = decodeFromBase64(project.getData().get(CLOUD));
+        Map<String, Object> result;
+        try {
+            result = new HashMap<>(clusterConfigCache.getUnchecked(projectId));
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        result.put(CLUSTERS_FIELD, getRunningClusters(projectId));
+        return result;
+    }
 
+    private List<Map<String, Object>> getRunningClusters(String projectId) {
         Map<?, ?> response = sendRequest(projectId,
-                String.format("%s/policies/clusters/list", DATABRICKS_JOBS_API_20),
+                String.format("%s/clusters/list", DATABRICKS_JOBS_API_20),
                 HttpMethod.GET,
                 null,
                 Map.class,
                 true);
-        List<LinkedHashMap<String, String>> policies = (List<LinkedHashMap<String, String>>) response.get("policies");
-        result.put("policies", policies
+        // only running all-purpose clusters can take jobs without a cold start
+        return getList(response, CLUSTERS_FIELD)
                 .stream()
-                .filter(policy -> !policy.containsKey("policy_family_id")
-                        || "job-cluster".equals(policy.get("policy_family_id"))).toList());
+                .filter(cluster -> RUNNING_DB_STATUS.equals(cluster.get("state"))
+                        && !"JOB".equals(cluster.get("cluster_source")))
+                .toList();
+    }
 
-        response = sendRequest(projectId, String.format("%s/clusters/spark-versions", DATABRICKS_JOBS_API_20),
-                HttpMethod.GET,
-                null,
-                Map.class,
-                true);
-        result.put("versions", response.get("versions"));
+    /**
+     * Getting cluster config bypassing the cache. The loaded fields replace the cached ones.
+     *
+     * @param projectId for getting connection settings for databricks
+     * @return Map of params
+     */
+    public Map<String, Object> refreshDatabricksClusterConfigFields(String projectId) {
+        clusterConfigCache.invalidate(projectId);
+        return getDatabricksClusterConfigFields(projectId);
+    }
+
+    /**
+     * Reloading cached cluster config in the background, as it happens after the refresh interval.
+     *
+     * @param projectId project id
+     */
+    void reloadDatabricksClusterConfigFields(String projectId) {
+        clusterConfigCache.refresh(projectId);
+    }
+
+    /**
+     * Evicting cached cluster config, e.g. when the project is connected to another workspace.
+     *
+     * @param projectId project id
+     */
+    public void evictDatabricksClusterConfigFields(String projectId) {
+        clusterConfigCache.invalidate(projectId);
+    }
+
+    /**
+     * Loading cluster config from Databricks. The requests are independent, so they are issued in parallel.
+     * A load, which takes longer than the configured timeout, fails, so its caller is not blocked for good.
+     *
+     * @param projectId for getting connection settings for databricks
+     * @return Map of params
+     */
+    Map<String, Object> loadDatabricksClusterConfigFields(String projectId) {
+        Secret project = kubernetesService.getSecret(projectId);
+        boolean aws = "AWS".equals(decodeFromBase64(project.getData().get(CLOUD)));
 
-        NodeTypeList responseNodeType = sendRequest(projectId,
+        CompletableFuture<Map<?, ?>> policiesFuture = getAsync(projectId, "policies/clusters/list");
+        CompletableFuture<Map<?, ?>> versionsFuture = getAsync(projectId, "clusters/spark-versions");
+        CompletableFuture<NodeTypeList> nodeTypesFuture = CompletableFuture.supplyAsync(() -> sendRequest(projectId,
                 String.format("%s/clusters/list-node-types", DATABRICKS_JOBS_API_20),
                 HttpMethod.GET,
                 null,
                 NodeTypeList.class,
-                true);
-        result.put("node_types", responseNodeType.getNodeTypes());
-
-        if ("AWS".equals(cloud)) {
-            response = sendRequest(projectId,
-                    String.format("%s/clusters/list-zones", DATABRICKS_JOBS_API_20),
-                    HttpMethod.GET,
-                    null,
-                    Map.class,
-                    true);
-            result.put(ZONES_FIELD, response.get(ZONES_FIELD));
-        } else {
-            result.put(ZONES_FIELD, new String[]{"auto"});
+                true), clusterConfigExecutor);
+        CompletableFuture<Map<?, ?>> zonesFuture = aws
+                ? getAsync(projectId, "clusters/list-zones")
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<Map<?, ?>> instanceProfilesFuture = aws
+                ? getAsync(projectId, "instance-profiles/list")
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<Map<?, ?>> instancePoolsFuture = getAsync(projectId, "instance-pools/list");
+        try {
+            CompletableFuture.allOf(policiesFuture, versionsFuture, nodeTypesFuture, zonesFuture,
+                    instanceProfilesFuture, instancePoolsFuture)
+                    .orTimeout(appProperties.getClusterConfigCache().getTimeoutSeconds(), TimeUnit.SECONDS)
+                    .join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
 
-        if ("AWS".equals(cloud)) {
-            response = sendRequest(projectId, String.format("%s/instance-profiles/list", DATABRICKS_JOBS_API_20),
-                    HttpMethod.GET,
-                    null,
-                    Map.class,
-                    true);
-            result.put(INSTANCE_PROFILES_FIELD, response.get(INSTANCE_PROFILES_FIELD));
+        Map<String, Object> result = new HashMap<>();
+        List<LinkedHashMap<String, String>> policies =
+                (List<LinkedHashMap<String, String>>) policiesFuture.join().get("policies");
+        result.put("policies", policies
+                .stream()
+                .filter(policy -> !policy.containsKey("policy_family_id")
+                        || "job-cluster".equals(policy.get("policy_family_id"))).toList());
+        result.put("versions", versionsFuture.join().get("versions"));
+        result.put("node_types", nodeTypesFuture.join().getNodeTypes());
+        if (aws) {
+            result.put(ZONES_FIELD, zonesFuture.join().get(ZONES_FIELD));
+            result.put(INSTANCE_PROFILES_FIELD, instanceProfilesFuture.join().get(INSTANCE_PROFILES_FIELD));
         } else {
+            result.put(ZONES_FIELD, new String[]{"auto"});
             result.put(INSTANCE_PROFILES_FIELD, Collections.emptyMap());
         }
+        result.put(INSTANCE_POOLS_FIELD, getList(instancePoolsFuture.join(), INSTANCE_POOLS_FIELD));
 
         return result;
     }
 
+    private CompletableFuture<Map<?, ?>> getAsync(String projectId, String path) {
+        return CompletableFuture.supplyAsync(() -> sendRequest(projectId,
+                String.format("%s/%s", DATABRICKS_JOBS_API_20, path),
+                HttpMethod.GET,
+                null,
+                Map.class,
+                true), clusterConfigExecutor);
+    }
+
+    private static List<Map<String, Object>> getList(@Nullable Map<?, ?> response, String field) {
+        if (response == null || response.get(field) == null) {
+            return Collections.emptyList();
+        }
+        return (List<Map<String, Object>>) response.get(field);
+    }
+
     private String wrapValue(String value) {
         return String.format("{\"text\":\"%s\"}", value);
     }
@@ -328,13 +617,13 @@ public class DatabricksAPIService {
         return switch (DatabricksAuthentication.AuthenticationType.valueOf(
                 decodeFromBase64(project.getData().get(AUTHENTICATION_TYPE)))) {
             case PAT -> decodeFromBase64(project.getData().get(TOKEN));
-            case OAUTH -> {
+            case OAUTH -> tracingService.trace(OAUTH_UPSTREAM + " token", project.getMetadata().getName(), () -> {
                 try {
-                    yield tokenCache.get(project.getMetadata().getName());
+                    return tokenCache.get(project.getMetadata().getName());
                 } catch (ExecutionException e) {
                     throw new RuntimeException("Error while getting token from cache", e);
                 }
-            }
+            });
         };
     }
 
@@ -354,6 +643,41 @@ public class DatabricksAPIService {
                               @Nullable Object body,
                               Class<T> responseType,
                               boolean enableRetry) {
+        return sendRequest(projectId, apiUrlWithoutHost, httpMethod, body, responseType, enableRetry,
+                Priority.INTERACTIVE);
+    }
+
+    /**
+     * Sends an HTTP request to the Databricks server through the rate limiter of the workspace.
+     *
+     * @param projectId - the project ID
+     * @param apiUrlWithoutHost - the API path without the host
+     * @param httpMethod - the HTTP method for the request
+     * @param body - the body of the request
+     * @param responseType - the response type from HttpResponse
+     * @param priority - the priority of the request in the rate limiter
+     * @return the object from the response
+     */
+    private <T> T sendRequest(String projectId,
+                              String apiUrlWithoutHost,
+                              HttpMethod httpMethod,
+                              @Nullable Object body,
+                              Class<T> responseType,
+                              boolean enableRetry,
+                              Priority priority) {
+        return sendRequest(projectId, apiUrlWithoutHost, httpMethod, body, responseType, enableRetry, priority, 0,
+                false);
+    }
+
+    private <T> T sendRequest(String projectId,
+                              String apiUrlWithoutHost,
+                              HttpMethod httpMethod,
+                              @Nullable Object body,
+                              Class<T> responseType,
+                              boolean enableRetry,
+                              Priority priority,
+                              int attempt,
+                              boolean permitAcquired) {
         Secret project = kubernetesService.getSecret(projectId);
         StringBuilder url = new StringBuilder();
         url.append(decodeFromBase64(project.getData().get(HOST)));
@@ -378,13 +702,19 @@ public class DatabricksAPIService {
         ResponseEntity<T> response;
         try {
             response = retryTemplate.execute((RetryCallback<ResponseEntity<T>,
-                    ForRetryRestTemplateException>) (RetryContext context)->
-                    databricksRestTemplate.exchange(
-                            url.toString(),
-                            httpMethod,
-                            httpEntity,
-                            responseType)
-            );
+                    ForRetryRestTemplateException>) (RetryContext context)-> {
+                // read by the metrics and rate limiter interceptors of the rest template
+                context.setAttribute(RETRY_PROJECT_ATTRIBUTE, projectId);
+                context.setAttribute(RETRY_PRIORITY_ATTRIBUTE, priority);
+                context.setAttribute(RETRY_ATTEMPT_ATTRIBUTE, attempt);
+                // only the first try may use the permit, which is taken by the caller
+                context.setAttribute(RETRY_PERMIT_ATTRIBUTE, permitAcquired && context.getRetryCount() == 0);
+                return databricksRestTemplate.exchange(
+                        url.toString(),
+                        httpMethod,
+                        httpEntity,
+                        responseType);
+            });
         } catch (ForRetryRestTemplateException e) {
             LOGGER.info("Retry error", e);
             throw e;
@@ -392,10 +722,28 @@ public class DatabricksAPIService {
         if (response.getStatusCode().isSameCodeAs(HttpStatusCode.valueOf(403))) {
             tokenCache.invalidate(projectId);
             tokenCache.refresh(projectId);
-            return sendRequest(projectId, apiUrlWithoutHost, httpMethod, body, responseType, enableRetry);
+            return sendRequest(projectId, apiUrlWithoutHost, httpMethod, body, responseType, enableRetry, priority,
+                    attempt, false);
         } else {
             return response.getBody();
         }
     }
 
+
+    /**
+     * State of a run submission, shared by its attempts.
+     */
+    private record RunSubmission(String projectId,
+                                 String workspace,
+                                 DatabricksJobStorageRunDto body,
+                                 long intervalMillis,
+                                 int retries,
+                                 long backoffMillis,
+                                 CompletableFuture<DatabricksRunIdDto> result) {
+        private RunSubmission afterBackoff(long millis) {
+            return new RunSubmission(projectId, workspace, body, intervalMillis, retries, backoffMillis - millis,
+                    result);
+        }
+    }
+
 }
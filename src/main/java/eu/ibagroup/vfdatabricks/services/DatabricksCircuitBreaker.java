@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2021 IBA Group, a.s. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.ibagroup.vfdatabricks.services;
+
+import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
+import eu.ibagroup.vfdatabricks.exceptions.RateLimitExceededException;
+import eu.ibagroup.vfdatabricks.exceptions.WorkspaceUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker of the requests to Databricks workspaces, shared by all projects of a workspace.
+ * The circuit of a workspace host opens after {@code failureThreshold} consecutive failed requests
+ * (5xx responses other than 429, or I/O errors), and requests to the workspace fail fast with
+ * {@link WorkspaceUnavailableException} while it is open. After {@code openMillis} a single probe
+ * request is let through: the circuit closes if it succeeds and opens again if it fails. A probe, which
+ * ends without a result (e.g. its wait in the rate limiter is interrupted), is replaced by a new one after
+ * another {@code openMillis}.
+ */
+@Slf4j
+@Service
+public class DatabricksCircuitBreaker {
+    private final ApplicationConfigurationProperties.DatabricksCircuitBreakerSettings settings;
+    private final LongSupplier nanoClock;
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    /**
+     * State of a workspace circuit.
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    @Autowired
+    public DatabricksCircuitBreaker(ApplicationConfigurationProperties appProperties) {
+        this(appProperties.getDatabricks().getCircuitBreaker(), System::nanoTime);
+    }
+
+    DatabricksCircuitBreaker(ApplicationConfigurationProperties.DatabricksCircuitBreakerSettings settings,
+                             LongSupplier nanoClock) {
+        this.settings = settings;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Creating an interceptor, which passes every request of a rest template through the circuit breaker.
+     *
+     * @return interceptor
+     */
+    public ClientHttpRequestInterceptor interceptor() {
+        return (HttpRequest request, byte[] body, ClientHttpRequestExecution execution) -> {
+            String workspace = request.getURI().getAuthority();
+            acquire(workspace);
+            ClientHttpResponse response;
+            try {
+                response = execution.execute(request, body);
+            } catch (IOException | RuntimeException e) {
+                // the request wasn't sent, when the rate limiter gave no permit or its wait is interrupted
+                if (!(e instanceof RateLimitExceededException) && !Thread.currentThread().isInterrupted()) {
+                    onFailure(workspace);
+                }
+                throw e;
+            }
+            onResponse(workspace, response.getStatusCode().value());
+            return response;
+        };
+    }
+
+    /**
+     * Checking that a request may be sent to the workspace.
+     *
+     * @param workspace workspace host
+     * @throws WorkspaceUnavailableException if the circuit of the workspace is open
+     */
+    public void acquire(String workspace) {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        Circuit circuit = circuits.computeIfAbsent(workspace, key -> new Circuit());
+        synchronized (circuit) {
+            if (circuit.state == State.CLOSED) {
+                return;
+            }
+            long now = nanoClock.getAsLong();
+            if (now - circuit.changedAt >= TimeUnit.MILLISECONDS.toNanos(settings.getOpenMillis())) {
+                circuit.state = State.HALF_OPEN;
+                circuit.changedAt = now;
+                LOGGER.info("Probing workspace {}", workspace);
+                return;
+            }
+        }
+        throw new WorkspaceUnavailableException(String.format(
+                "Databricks workspace %s is unavailable, requests are suspended after %d consecutive failures",
+                workspace, settings.getFailureThreshold()));
+    }
+
+    /**
+     * Recording the response of the workspace.
+     *
+     * @param workspace  workspace host
+     * @param statusCode response status code
+     */
+    public void onResponse(String workspace, int statusCode) {
+        if (statusCode >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+            onFailure(workspace);
+            return;
+        }
+        Circuit circuit = circuits.get(workspace);
+        if (circuit == null) {
+            return;
+        }
+        synchronized (circuit) {
+            // 429 means that the workspace is up, throttling is handled by the rate limiter
+            circuit.failures = 0;
+            if (circuit.state != State.CLOSED) {
+                circuit.state = State.CLOSED;
+                LOGGER.info("Workspace {} is available again", workspace);
+            }
+        }
+    }
+
+    /**
+     * Recording a failed request to the workspace.
+     *
+     * @param workspace workspace host
+     */
+    public void onFailure(String workspace) {
+        Circuit circuit = circuits.get(workspace);
+        if (circuit == null) {
+            return;
+        }
+        synchronized (circuit) {
+            circuit.failures++;
+            if (circuit.state == State.HALF_OPEN
+                    || circuit.state == State.CLOSED && circuit.failures >= settings.getFailureThreshold()) {
+                circuit.state = State.OPEN;
+                circuit.changedAt = nanoClock.getAsLong();
+                LOGGER.warn("Workspace {} failed {} consecutive requests, requests are suspended for {} ms",
+                        workspace, circuit.failures, settings.getOpenMillis());
+            }
+        }
+    }
+
+    /**
+     * Getting the state of the workspace circuit.
+     *
+     * @param workspace workspace host
+     * @return state
+     */
+    public State getState(String workspace) {
+        Circuit circuit = circuits.get(workspace);
+        if (circuit == null) {
+            return State.CLOSED;
+        }
+        synchronized (circuit) {
+            return circuit.state;
+        }
+    }
+
+    private static final class Circuit {
+        private State state = State.CLOSED;
+        private int failures;
+        // time, when the circuit opened or the last probe started
+        private long changedAt;
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2021 IBA Group, a.s. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.ibagroup.vfdatabricks.services;
+
+import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
+import eu.ibagroup.vfdatabricks.exceptions.RateLimitExceededException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.support.RetrySynchronizationManager;
+import org.springframework.stereotype.Service;
+
+import java.io.InterruptedIOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static eu.ibagroup.vfdatabricks.dto.Constants.RETRY_PERMIT_ATTRIBUTE;
+import static eu.ibagroup.vfdatabricks.dto.Constants.RETRY_PRIORITY_ATTRIBUTE;
+
+/**
+ * Rate limiter of the requests to Databricks workspaces, shared by all projects of a workspace.
+ * Each workspace host has a token bucket with an AIMD rate: the rate grows by
+ * {@code increase} requests per second for every second of successful requests, and is multiplied by
+ * {@code decreaseFactor} when the workspace responds with 429. Requests are paused for the time
+ * given in Retry-After. Background requests wait while there are interactive requests waiting
+ * for the same workspace. A request, which would wait longer than the max wait of its priority,
+ * fails fast with {@link RateLimitExceededException}.
+ */
+@Slf4j
+@Service
+public class DatabricksRateLimiter {
+    private static final long DECREASE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private final ApplicationConfigurationProperties.DatabricksRateLimitSettings settings;
+    private final LongSupplier nanoClock;
+    private final Sleeper sleeper;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Priority of a request.
+     */
+    public enum Priority {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    /**
+     * Sleeping of a waiting request.
+     */
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(long nanos) throws InterruptedException;
+    }
+
+    @Autowired
+    public DatabricksRateLimiter(ApplicationConfigurationProperties appProperties) {
+        this(appProperties.getDatabricks().getRateLimit(), System::nanoTime, TimeUnit.NANOSECONDS::sleep);
+    }
+
+    DatabricksRateLimiter(ApplicationConfigurationProperties.DatabricksRateLimitSettings settings,
+                          LongSupplier nanoClock,
+                          Sleeper sleeper) {
+        this.settings = settings;
+        this.nanoClock = nanoClock;
+        this.sleeper = sleeper;
+    }
+
+    /**
+     * Creating an interceptor, which passes every request of a rest template through the limiter.
+     * The priority is taken from the retry context of the request, requests without it are interactive.
+     * Requests, whose permit is already taken by {@link #tryAcquire}, are sent at once.
+     *
+     * @return interceptor
+     */
+    public ClientHttpRequestInterceptor interceptor() {
+        return (HttpRequest request, byte[] body, ClientHttpRequestExecution execution) -> {
+            String workspace = request.getURI().getAuthority();
+            if (!isPermitAcquired()) {
+                acquire(workspace, getPriority());
+            }
+            ClientHttpResponse response = execution.execute(request, body);
+            onResponse(workspace, response.getStatusCode().value(), getRetryAfterMillis(response.getHeaders()));
+            return response;
+        };
+    }
+
+    /**
+     * Waiting for a permit to send a request to the workspace.
+     *
+     * @param workspace workspace host
+     * @param priority  request priority
+     * @throws InterruptedIOException      if the thread is interrupted while waiting
+     * @throws RateLimitExceededException if there is no permit within the max wait of the priority
+     */
+    public void acquire(String workspace, Priority priority) throws InterruptedIOException {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        long maxWaitMillis = priority == Priority.INTERACTIVE
+                ? settings.getMaxInteractiveWaitMillis()
+                : settings.getMaxBackgroundWaitMillis();
+        long start = nanoClock.getAsLong();
+        Bucket bucket = buckets.computeIfAbsent(workspace, key -> new Bucket(start));
+        boolean waiting = false;
+        try {
+            while (true) {
+                long waitNanos;
+                synchronized (bucket) {
+                    long now = nanoClock.getAsLong();
+                    bucket.refill(now);
+                    waitNanos = bucket.getWaitNanos(now, priority);
+                    if (waitNanos == 0) {
+                        bucket.tokens--;
+                        return;
+                    }
+                    if (now - start + waitNanos > TimeUnit.MILLISECONDS.toNanos(maxWaitMillis)) {
+                        throw new RateLimitExceededException(String.format(
+                                "Databricks workspace %s is throttled, no %s request permit within %d ms",
+                                workspace, priority.name().toLowerCase(Locale.ROOT), maxWaitMillis));
+                    }
+                    if (priority == Priority.INTERACTIVE && !waiting) {
+                        waiting = true;
+                        bucket.interactiveWaiting++;
+                    }
+                }
+                sleeper.sleep(waitNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a permit of workspace " + workspace);
+        } finally {
+            if (waiting) {
+                synchronized (bucket) {
+                    bucket.interactiveWaiting--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Taking a permit to send a request to the workspace, if it is available, without waiting for it.
+     * It lets the callers, which must not block, schedule the request instead.
+     *
+     * @param workspace workspace host
+     * @param priority  request priority
+     * @return 0 if the permit is taken, otherwise the wait in millis before the next try
+     */
+    public long tryAcquire(String workspace, Priority priority) {
+        if (!settings.isEnabled()) {
+            return 0;
+        }
+        Bucket bucket = buckets.computeIfAbsent(workspace, key -> new Bucket(nanoClock.getAsLong()));
+        synchronized (bucket) {
+            long now = nanoClock.getAsLong();
+            bucket.refill(now);
+            long waitNanos = bucket.getWaitNanos(now, priority);
+            if (waitNanos == 0) {
+                bucket.tokens--;
+                return 0;
+            }
+            return Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+    }
+
+    /**
+     * Adjusting the rate of the workspace by the response.
+     *
+     * @param workspace        workspace host
+     * @param statusCode       response status code
+     * @param retryAfterMillis delay requested by the workspace, or 0
+     */
+    public void onResponse(String workspace, int statusCode, long retryAfterMillis) {
+        Bucket bucket = buckets.get(workspace);
+        if (bucket == null) {
+            return;
+        }
+        synchronized (bucket) {
+            long now = nanoClock.getAsLong();
+            if (statusCode == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                if (now - bucket.decreasedAt >= DECREASE_INTERVAL_NANOS) {
+                    // requests in flight get 429 together, so the rate is decreased once for all of them
+                    bucket.rate = Math.max(settings.getMinRate(), bucket.rate * settings.getDecreaseFactor());
+                    bucket.decreasedAt = now;
+                    LOGGER.info("Workspace {} is throttling requests, rate is decreased to {}/s",
+                            workspace, String.format("%.2f", bucket.rate));
+                }
+            } else if (statusCode < HttpStatus.BAD_REQUEST.value()) {
+                bucket.rate = Math.min(settings.getMaxRate(), bucket.rate + settings.getIncrease() / bucket.rate);
+            }
+            if (retryAfterMillis > 0) {
+                long pausedUntil = now + TimeUnit.MILLISECONDS.toNanos(
+                        Math.min(retryAfterMillis, settings.getMaxRetryAfterMillis()));
+                bucket.pausedUntil = Math.max(bucket.pausedUntil, pausedUntil);
+                bucket.refilledAt = bucket.pausedUntil;
+                bucket.tokens = 0;
+            }
+        }
+    }
+
+    /**
+     * Getting the current rate of the workspace.
+     *
+     * @param workspace workspace host
+     * @return requests per second
+     */
+    public double getRate(String workspace) {
+        Bucket bucket = buckets.get(workspace);
+        if (bucket == null) {
+            return settings.getInitialRate();
+        }
+        synchronized (bucket) {
+            return bucket.rate;
+        }
+    }
+
+    /**
+     * Parsing Retry-After, given either in seconds or as a date.
+     *
+     * @param headers response headers
+     * @return delay in millis, or 0 if there is no valid header
+     */
+    static long getRetryAfterMillis(HttpHeaders headers) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                return Math.max(0, headers.getFirstDate(HttpHeaders.RETRY_AFTER) - System.currentTimeMillis());
+            } catch (IllegalArgumentException ex) {
+                LOGGER.warn("Invalid Retry-After header: {}", value);
+                return 0;
+            }
+        }
+    }
+
+    private static boolean isPermitAcquired() {
+        RetryContext context = RetrySynchronizationManager.getContext();
+        return context != null && Boolean.TRUE.equals(context.getAttribute(RETRY_PERMIT_ATTRIBUTE));
+    }
+
+    private static Priority getPriority() {
+        RetryContext context = RetrySynchronizationManager.getContext();
+        while (context != null) {
+            if (context.getAttribute(RETRY_PRIORITY_ATTRIBUTE) instanceof Priority priority) {
+                return priority;
+            }
+            context = context.getParent();
+        }
+        return Priority.INTERACTIVE;
+    }
+
+    private final class Bucket {
+        private double rate = settings.getInitialRate();
+        private double tokens;
+        private long refilledAt;
+        private long pausedUntil;
+        private long decreasedAt;
+        private int interactiveWaiting;
+
+        private Bucket(long now) {
+            this.tokens = getCapacity();
+            this.refilledAt = now;
+            this.pausedUntil = now;
+            this.decreasedAt = now - DECREASE_INTERVAL_NANOS;
+        }
+
+        private double getCapacity() {
+            // a second of requests may be sent at once
+            return Math.max(1, rate);
+        }
+
+        private long getIntervalNanos() {
+            return (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        }
+
+        private long getWaitNanos(long now, Priority priority) {
+            if (now < pausedUntil) {
+                return pausedUntil - now;
+            }
+            if (priority == Priority.BACKGROUND && interactiveWaiting > 0) {
+                return getIntervalNanos();
+            }
+            if (tokens >= 1) {
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) * getIntervalNanos());
+        }
+
+        private void refill(long now) {
+            if (now > refilledAt) {
+                tokens = Math.min(getCapacity(), tokens + (now - refilledAt) * rate / TimeUnit.SECONDS.toNanos(1));
+                refilledAt = now;
+            }
+        }
+    }
+}
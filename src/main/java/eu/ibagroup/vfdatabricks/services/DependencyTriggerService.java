@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2021 IBA Group, a.s. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.ibagroup.vfdatabricks.services;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
+import eu.ibagroup.vfdatabricks.dto.pipelines.CronOverlapPolicy;
+import eu.ibagroup.vfdatabricks.dto.pipelines.PipelineDto;
+import eu.ibagroup.vfdatabricks.dto.pipelines.PipelineOverviewDto;
+import eu.ibagroup.vfdatabricks.services.events.PipelineFinishedEvent;
+import eu.ibagroup.vfdatabricks.services.events.PipelineStartedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static eu.ibagroup.vfdatabricks.dto.Constants.DEPENDENCY_INDEX_EXPIRE_SECONDS;
+import static eu.ibagroup.vfdatabricks.dto.Constants.PENDING_VF_STATUS;
+import static eu.ibagroup.vfdatabricks.dto.Constants.RUNNING_VF_STATUS;
+import static eu.ibagroup.vfdatabricks.dto.Constants.SUCCEEDED_VF_STATUS;
+
+/**
+ * Service starting pipelines as soon as all pipelines they depend on have succeeded.
+ * Dependencies are taken from {@link PipelineOverviewDto#getDependentPipelineIds()}.
+ * Pipelines on a dependency cycle are never triggered, and the number of concurrently running
+ * dependency-triggered pipelines is capped per project, the rest wait in a per-project queue.
+ * Started pipelines with dependents are watched, so their completion is noticed even if nobody lists pipelines.
+ * Pipelines with dependents are looked up in a per-project index, which is rebuilt from the pipeline list
+ * at most every {@value eu.ibagroup.vfdatabricks.dto.Constants#DEPENDENCY_INDEX_EXPIRE_SECONDS} seconds.
+ * Pipelines are always started on the own executor, never on the threads publishing the events.
+ */
+@Slf4j
+@Service
+public class DependencyTriggerService {
+    private final PipelineService pipelineService;
+    private final ThreadPoolTaskExecutor executor;
+    private final ApplicationConfigurationProperties appProperties;
+    private final Cache<Long, Boolean> finishedRunCache;
+    private final Cache<String, Set<String>> dependencyIndex = CacheBuilder.newBuilder()
+            .expireAfterWrite(DEPENDENCY_INDEX_EXPIRE_SECONDS, TimeUnit.SECONDS)
+            .build();
+    private final Map<String, Set<String>> watched = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> running = new HashMap<>();
+    private final Map<String, Set<String>> waiting = new HashMap<>();
+
+    public DependencyTriggerService(PipelineService pipelineService,
+                                    @Qualifier("dependencyTriggerExecutor") ThreadPoolTaskExecutor executor,
+                                    ApplicationConfigurationProperties appProperties,
+                                    @Qualifier("finishedPipelineRunCache") Cache<Long, Boolean> finishedRunCache) {
+        this.pipelineService = pipelineService;
+        this.executor = executor;
+        this.appProperties = appProperties;
+        this.finishedRunCache = finishedRunCache;
+    }
+
+    /**
+     * Finding pipelines on a dependency cycle.
+     *
+     * @param dependencies dependencies by pipeline id
+     * @return ids of pipelines, which depend on themselves directly or transitively
+     */
+    static Set<String> findCyclic(Map<String, Set<String>> dependencies) {
+        Set<String> cyclic = new HashSet<>();
+        for (String pipelineId : dependencies.keySet()) {
+            Set<String> visited = new HashSet<>();
+            Deque<String> stack = new ArrayDeque<>(dependencies.getOrDefault(pipelineId, Set.of()));
+            while (!stack.isEmpty()) {
+                String current = stack.pop();
+                if (current.equals(pipelineId)) {
+                    cyclic.add(pipelineId);
+                    break;
+                }
+                if (visited.add(current)) {
+                    stack.addAll(dependencies.getOrDefault(current, Set.of()));
+                }
+            }
+        }
+        return cyclic;
+    }
+
+    /**
+     * Watching a started pipeline, if other pipelines depend on it.
+     *
+     * @param event started event
+     */
+    @EventListener
+    public void onPipelineStarted(PipelineStartedEvent event) {
+        try {
+            Set<String> dependencies = dependencyIndex.get(event.getProjectId(), () ->
+                    index(event.getProjectId(), pipelineService.getOverviews(event.getProjectId(), null)
+                            .getPipelines()));
+            if (dependencies.contains(event.getPipelineId())) {
+                watch(event.getProjectId(), event.getPipelineId());
+            }
+        } catch (ExecutionException | RuntimeException e) {
+            LOGGER.warn("Unable to check dependents of pipeline '{}' in project '{}': {}",
+                    event.getPipelineId(), event.getProjectId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Releasing the concurrency slot of a finished pipeline and triggering its dependents, if it has succeeded.
+     * Each run is handled only once, even if several reconciliations observe its completion.
+     * A run, which can't be handed to the executor, is left to the next reconciliation.
+     *
+     * @param event finished event
+     */
+    @EventListener
+    public void onPipelineFinished(PipelineFinishedEvent event) {
+        if (event.getRunId() > 0 && finishedRunCache.asMap().putIfAbsent(event.getRunId(), true) != null) {
+            return;
+        }
+        String projectId = event.getProjectId();
+        String pipelineId = event.getPipelineId();
+        boolean succeeded = SUCCEEDED_VF_STATUS.equalsIgnoreCase(event.getStatus());
+        try {
+            executor.execute(() -> {
+                if (succeeded) {
+                    release(projectId, pipelineId);
+                    triggerDependents(projectId, pipelineId);
+                } else {
+                    finish(projectId, pipelineId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // the pipeline stays watched, so its run is handled again
+            finishedRunCache.invalidate(event.getRunId());
+            LOGGER.error("Unable to handle finished run of pipeline '{}' in project '{}': {}",
+                    pipelineId, projectId, e.getMessage());
+        }
+    }
+
+    /**
+     * Reconciling statuses of watched pipelines, which publishes finished events for completed runs.
+     * A pipeline, which can't be handed to the executor, stays watched, so it is reconciled again.
+     */
+    @Scheduled(fixedDelayString = "${scheduler.interval:5000}")
+    public void reconcileWatched() {
+        watched.forEach((String projectId, Set<String> pipelineIds) -> pipelineIds.forEach((String pipelineId) -> {
+            try {
+                PipelineDto pipelineDto = pipelineService.getByIdAndFetchStatus(projectId, pipelineId);
+                if (!StringUtils.equalsAnyIgnoreCase(pipelineDto.getStatus(), PENDING_VF_STATUS, RUNNING_VF_STATUS)) {
+                    executor.execute(() -> finish(projectId, pipelineId));
+                }
+            } catch (RuntimeException e) {
+                LOGGER.warn("Unable to check status of pipeline '{}' in project '{}': {}",
+                        pipelineId, projectId, e.getMessage());
+            }
+        }));
+    }
+
+    void triggerDependents(String projectId, String succeededId) {
+        List<PipelineOverviewDto> pipelines = pipelineService.getOverviews(projectId, null).getPipelines();
+        index(projectId, pipelines);
+        Map<String, Set<String>> dependencies = pipelines.stream()
+                .collect(Collectors.toMap(PipelineOverviewDto::getId,
+                        pipeline -> new HashSet<>(CollectionUtils.emptyIfNull(pipeline.getDependentPipelineIds())),
+                        (first, second) -> first));
+        Map<String, String> statuses = new HashMap<>();
+        pipelines.forEach(pipeline -> statuses.put(pipeline.getId(), pipeline.getStatus()));
+        // the stored status of the succeeded pipeline might not be updated yet
+        statuses.put(succeededId, SUCCEEDED_VF_STATUS);
+        Set<String> cyclic = findCyclic(dependencies);
+        Set<String> ready = new LinkedHashSet<>();
+        dependencies.forEach((String pipelineId, Set<String> pipelineDependencies) -> {
+            if (!pipelineDependencies.contains(succeededId)) {
+                return;
+            }
+            if (cyclic.contains(pipelineId)) {
+                LOGGER.warn("Pipeline '{}' in project '{}' is not triggered, its dependencies form a cycle",
+                        pipelineId, projectId);
+            } else if (pipelineDependencies.stream()
+                    .allMatch(dependency -> SUCCEEDED_VF_STATUS.equalsIgnoreCase(statuses.get(dependency)))) {
+                ready.add(pipelineId);
+            }
+        });
+        if (!ready.isEmpty()) {
+            LOGGER.info("Pipelines {} in project '{}' are triggered by pipeline '{}'", ready, projectId, succeededId);
+            synchronized (this) {
+                waiting.computeIfAbsent(projectId, key -> new LinkedHashSet<>()).addAll(ready);
+            }
+        }
+        drain(projectId);
+    }
+
+    private void drain(String projectId) {
+        int maxRunning = Math.max(1, appProperties.getScheduler().getDependencyConcurrency());
+        Set<String> toStart = new LinkedHashSet<>();
+        synchronized (this) {
+            Set<String> queue = waiting.getOrDefault(projectId, new LinkedHashSet<>());
+            Set<String> projectRunning = running.computeIfAbsent(projectId, key -> new HashSet<>());
+            Iterator<String> iterator = queue.iterator();
+            while (iterator.hasNext() && projectRunning.size() < maxRunning) {
+                String pipelineId = iterator.next();
+                iterator.remove();
+                if (projectRunning.add(pipelineId)) {
+                    toStart.add(pipelineId);
+                }
+            }
+        }
+        toStart.forEach(pipelineId -> start(projectId, pipelineId));
+    }
+
+    private void start(String projectId, String pipelineId) {
+        boolean started = false;
+        try {
+            started = pipelineService.runScheduled(projectId, pipelineId, CronOverlapPolicy.SKIP);
+        } catch (RuntimeException e) {
+            LOGGER.error("Triggered run of pipeline '{}' in project '{}' failed: {}",
+                    pipelineId, projectId, e.getMessage(), e);
+        }
+        if (started) {
+            // the slot is released, when the run is observed to be finished
+            watch(projectId, pipelineId);
+        } else {
+            finish(projectId, pipelineId);
+        }
+    }
+
+    private Set<String> index(String projectId, List<PipelineOverviewDto> pipelines) {
+        Set<String> dependencies = pipelines.stream()
+                .flatMap(pipeline -> CollectionUtils.emptyIfNull(pipeline.getDependentPipelineIds()).stream())
+                .collect(Collectors.toSet());
+        dependencyIndex.put(projectId, dependencies);
+        return dependencies;
+    }
+
+    private void watch(String projectId, String pipelineId) {
+        watched.computeIfAbsent(projectId, key -> ConcurrentHashMap.newKeySet()).add(pipelineId);
+    }
+
+    private void finish(String projectId, String pipelineId) {
+        release(projectId, pipelineId);
+        drain(projectId);
+    }
+
+    private void release(String projectId, String pipelineId) {
+        Set<String> pipelineIds = watched.get(projectId);
+        if (pipelineIds != null) {
+            pipelineIds.remove(pipelineId);
+        }
+        synchronized (this) {
+            Set<String> projectRunning = running.get(projectId);
+            if (projectRunning != null) {
+                projectRunning.remove(pipelineId);
+            }
+        }
+    }
+}
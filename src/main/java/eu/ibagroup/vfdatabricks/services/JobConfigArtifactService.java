@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2021 IBA Group, a.s. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.ibagroup.vfdatabricks.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
+import eu.ibagroup.vfdatabricks.exceptions.InternalProcessingException;
+import io.fabric8.kubernetes.api.model.Secret;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static eu.ibagroup.vfdatabricks.dto.Constants.JOB_CONFIG_ARTIFACT_DIRECTORY;
+import static eu.ibagroup.vfdatabricks.dto.Constants.JOB_CONFIG_FIELD;
+import static eu.ibagroup.vfdatabricks.dto.Constants.JOB_DEFINITION_FIELD;
+import static eu.ibagroup.vfdatabricks.dto.Constants.PATH_TO_FILE;
+import static eu.ibagroup.vfdatabricks.services.UtilsService.decodeFromBase64;
+
+/**
+ * Service storing compiled job configs as gzip-compressed artifacts in the project folder in Databricks.
+ * An artifact is named by the hash of its content, so it is uploaded only once and a submitted run
+ * carries just its path instead of the whole config.
+ */
+@Slf4j
+@Service
+public class JobConfigArtifactService {
+    private static final String ARTIFACT_EXTENSION = ".json.gz";
+    private final DatabricksAPIService databricksApiService;
+    private final KubernetesService kubernetesService;
+    private final ApplicationConfigurationProperties appProperties;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Boolean> uploadedArtifactCache;
+
+    public JobConfigArtifactService(DatabricksAPIService databricksApiService,
+                                    KubernetesService kubernetesService,
+                                    ApplicationConfigurationProperties appProperties,
+                                    ObjectMapper objectMapper,
+                                    @Qualifier("jobConfigArtifactCache") Cache<String, Boolean> uploadedArtifactCache) {
+        this.databricksApiService = databricksApiService;
+        this.kubernetesService = kubernetesService;
+        this.appProperties = appProperties;
+        this.objectMapper = objectMapper;
+        this.uploadedArtifactCache = uploadedArtifactCache;
+    }
+
+    /**
+     * Storing job config as an artifact, unless it has already been stored.
+     *
+     * @param projectId     project id
+     * @param jobConfig     compiled job graph
+     * @param jobDefinition job definition
+     * @return path to the artifact, or null if artifacts are disabled or the upload failed
+     */
+    public String store(String projectId, String jobConfig, String jobDefinition) {
+        if (appProperties.getDatabricks() == null || !appProperties.getDatabricks().isJobConfigArtifacts()) {
+            return null;
+        }
+        Map<String, String> payload = new LinkedHashMap<>();
+        payload.put(JOB_CONFIG_FIELD, jobConfig);
+        payload.put(JOB_DEFINITION_FIELD, jobDefinition);
+        byte[] content;
+        try {
+            content = objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            LOGGER.error("Unable to serialize job config of project '{}': {}", projectId, e.getMessage());
+            return null;
+        }
+        Secret project = kubernetesService.getSecret(projectId);
+        String directory = decodeFromBase64(project.getData().get(PATH_TO_FILE)) + "/" + JOB_CONFIG_ARTIFACT_DIRECTORY;
+        String fileName = hash(content) + ARTIFACT_EXTENSION;
+        String path = directory + "/" + fileName;
+        String cacheKey = projectId + ":" + path;
+        if (uploadedArtifactCache.getIfPresent(cacheKey) == null) {
+            if (!databricksApiService.uploadFile(projectId, directory, compress(content), fileName)) {
+                LOGGER.warn("Job config artifact '{}' of project '{}' is not uploaded, the config is passed inline",
+                        path, projectId);
+                return null;
+            }
+            uploadedArtifactCache.put(cacheKey, true);
+        }
+        return path;
+    }
+
+    static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new InternalProcessingException("SHA-256 is not supported", e);
+        }
+    }
+
+    static byte[] compress(byte[] content) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new InternalProcessingException("Unable to compress job config", e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -19,6 +19,7 @@
 
 package eu.ibagroup.vfdatabricks.services;
 
+import com.google.common.cache.Cache;
 import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
 import eu.ibagroup.vfdatabricks.dto.jobs.CommonDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.JobDto;
@@ -30,12 +31,15 @@ import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobRunDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobStorageRunDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksRunIdDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.JobLogDto;
+import eu.ibagroup.vfdatabricks.exceptions.InternalProcessingException;
 import jakarta.validation.Valid;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
@@ -46,6 +50,7 @@ import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -68,18 +73,24 @@ public class JobService {
     private final ApplicationConfigurationProperties appProperties;
     private final RestTemplate restTemplate;
     private final AsyncJobCheckService asyncJobCheckService;
+    private final AsyncJobLogArchiveService asyncJobLogArchiveService;
+    private final Cache<Long, Boolean> completedRunCache;
 
     public JobService(
             MapperService mapperService,
             DatabricksAPIService databricksApiService,
             ApplicationConfigurationProperties appProperties,
             @Qualifier("authRestTemplate") RestTemplate restTemplate,
-            AsyncJobCheckService asyncJobCheckService) {
+            AsyncJobCheckService asyncJobCheckService,
+            AsyncJobLogArchiveService asyncJobLogArchiveService,
+            @Qualifier("completedRunCache") Cache<Long, Boolean> completedRunCache) {
         this.mapperService = mapperService;
         this.databricksApiService = databricksApiService;
         this.appProperties = appProperties;
         this.restTemplate = restTemplate;
         this.asyncJobCheckService = asyncJobCheckService;
+        this.asyncJobLogArchiveService = asyncJobLogArchiveService;
+        this.completedRunCache = completedRunCache;
     }
 
     public JobOverviewListDto getAll(final String projectId) throws InterruptedException {
@@ -220,6 +231,8 @@ public class JobService {
         }
 
         DatabricksJobStorageRunDto databricksJobStorageRunDto = mapperService.mapRequestToJobRun(jobDto, projectId);
+        // shared by the retries of the submission, so they don't start more than one run
+        databricksJobStorageRunDto.setIdempotencyToken(UUID.randomUUID().toString());
 
         jobDto.setStatus(PENDING_VF_STATUS);
         jobDto.setRunId(-1L);
@@ -323,39 +336,55 @@ public class JobService {
     }
 
 
-    public void saveHistory(DatabricksJobRunDto runDto, CommonDto job, String projectId) {
-        String logId = saveJobLogs(projectId, job.getId());
-        JobHistoryDto jobHistoryDto = JobHistoryDto.builder()
-                .jobId(job.getId())
-                .jobName(job.getName())
-                .startedAt(toFormattedString(runDto.getStartTime()))
-                .finishedAt(toFormattedString(runDto.getEndTime()))
-                .startedBy(runDto.getCreatorUserName())
-                .type(JOB_TYPE)
-                .status(mapperService.mapStatus(runDto.getState()))
-                .logId(logId)
-                .build();
-        restTemplate.postForEntity(
-                String.format("%s/%s/%s/history/job",
-                        appProperties.getHistoryService().getHost(),
-                        CONTEXT_PATH_HISTORY,
-                        HISTORY_SERVICE_API),
-                jobHistoryDto,
-                String.class
-        );
-    }
-
-    public String saveJobLogs(String projectId, String jobId) {
-        List<JobLogDto> logs = getLogsFromDatabricks(projectId, jobId);
-        return restTemplate.postForEntity(
-                String.format("%s/%s/%s/history/job/%s/log",
-                        appProperties.getHistoryService().getHost(),
-                        CONTEXT_PATH_HISTORY,
-                        HISTORY_SERVICE_API,
-                        jobId),
-                logs,
-                String.class
-        ).getBody();
+    /**
+     * Archives logs of the finished run and saves the history record.
+     * Both steps are done on the async executor, so the status poll that noticed completion is not blocked.
+     * Only the first caller for a run does the work, concurrent and repeated calls for the same run are skipped.
+     * Requests to the history service carry an idempotency key, so a retried run is not recorded twice.
+     *
+     * @param runDto    finished Databricks run
+     * @param job       job
+     * @param projectId project id
+     * @return future, completed when the history record is saved
+     */
+    public CompletableFuture<Void> saveHistory(DatabricksJobRunDto runDto, CommonDto job, String projectId) {
+        long runId = job.getRunId();
+        if (completedRunCache.asMap().putIfAbsent(runId, Boolean.TRUE) != null) {
+            LOGGER.debug("History of run {} of job '{}' is already recorded", runId, job.getId());
+            return CompletableFuture.completedFuture(null);
+        }
+        return asyncJobLogArchiveService.archiveJobLogs(projectId, job.getId(), runId)
+                .thenAccept((String logId) -> {
+                    if (logId == null) {
+                        throw new InternalProcessingException("No log record is created for run " + runId);
+                    }
+                    JobHistoryDto jobHistoryDto = JobHistoryDto.builder()
+                            .jobId(job.getId())
+                            .jobName(job.getName())
+                            .startedAt(toFormattedString(runDto.getStartTime()))
+                            .finishedAt(toFormattedString(runDto.getEndTime()))
+                            .startedBy(runDto.getCreatorUserName())
+                            .type(JOB_TYPE)
+                            .status(mapperService.mapStatus(runDto.getState()))
+                            .logId(logId)
+                            .build();
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.set(IDEMPOTENCY_KEY_HEADER, getIdempotencyKey(job.getId(), runId));
+                    restTemplate.postForEntity(
+                            String.format("%s/%s/%s/history/job",
+                                    appProperties.getHistoryService().getHost(),
+                                    CONTEXT_PATH_HISTORY,
+                                    HISTORY_SERVICE_API),
+                            new HttpEntity<>(jobHistoryDto, headers),
+                            String.class
+                    );
+                })
+                .exceptionally((Throwable exception) -> {
+                    LOGGER.error("Unable to save history of job '{}': {}",
+                            job.getId(), exception.getMessage(), exception);
+                    completedRunCache.invalidate(runId);
+                    return null;
+                });
     }
 
     public void saveCustomJobLog(String jobId, List<JobLogDto> logs) {
@@ -25,10 +25,12 @@ import io.fabric8.kubernetes.api.model.SecretBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import static eu.ibagroup.vfdatabricks.dto.Constants.*;
 
@@ -38,14 +40,20 @@ public class KubernetesService {
     protected final String appName;
     protected final String appNameLabel;
     protected final KubernetesClient client;
+    private final MetricsService metricsService;
+    private final TracingService tracingService;
 
     @Autowired
     public KubernetesService(
             ApplicationConfigurationProperties appProperties,
-            final KubernetesClient client) {
+            final KubernetesClient client,
+            MetricsService metricsService,
+            TracingService tracingService) {
         this.appName = appProperties.getNamespace().getApp();
         this.appNameLabel = appProperties.getNamespace().getLabel();
         this.client = client;
+        this.metricsService = metricsService;
+        this.tracingService = tracingService;
     }
 
 
@@ -56,14 +64,15 @@ public class KubernetesService {
      * @param secret    secret.
      */
     public void createSecret(final String secretName, final Secret secret) {
-        client.secrets().inNamespace(appName).resource(new SecretBuilder(secret)
-                        .editMetadata()
-                        .withName(secretName)
-                        .addToLabels(APP, appNameLabel)
-                        .addToLabels(TYPE, PROJECT)
-                        .endMetadata()
-                        .build())
-                .create();
+        call("secrets/create", secretName, () ->
+                client.secrets().inNamespace(appName).resource(new SecretBuilder(secret)
+                                .editMetadata()
+                                .withName(secretName)
+                                .addToLabels(APP, appNameLabel)
+                                .addToLabels(TYPE, PROJECT)
+                                .endMetadata()
+                                .build())
+                        .create());
     }
 
     /**
@@ -73,15 +82,16 @@ public class KubernetesService {
      * @param secret    secret.
      */
     public void updateSecret(final String secretName, final Secret secret) {
-        client.secrets().inNamespace(appName).withName(secretName).edit(
-                s -> new SecretBuilder(secret)
-                        .editMetadata()
-                        .withName(secretName)
-                        .addToLabels(APP, appNameLabel)
-                        .addToLabels(TYPE, PROJECT)
-                        .endMetadata()
-                        .build()
-        );
+        call("secrets/update", secretName, () ->
+                client.secrets().inNamespace(appName).withName(secretName).edit(
+                        s -> new SecretBuilder(secret)
+                                .editMetadata()
+                                .withName(secretName)
+                                .addToLabels(APP, appNameLabel)
+                                .addToLabels(TYPE, PROJECT)
+                                .endMetadata()
+                                .build()
+                ));
     }
 
     /**
@@ -91,7 +101,8 @@ public class KubernetesService {
      * @return secret.
      */
     public Secret getSecret(final String secretName) {
-        return client.secrets().inNamespace(appName).withName(secretName).get();
+        return call("secrets/get", secretName, () ->
+                client.secrets().inNamespace(appName).withName(secretName).get());
     }
 
     /**
@@ -101,7 +112,8 @@ public class KubernetesService {
      * @return list of secrets
      */
     public List<Secret> getSecretsByLabels(final Map<String, String> labels) {
-        return client.secrets().inNamespace(appName).withLabels(labels).list().getItems();
+        return call("secrets/list", null, () ->
+                client.secrets().inNamespace(appName).withLabels(labels).list().getItems());
     }
 
     /**
@@ -110,7 +122,13 @@ public class KubernetesService {
      * @param secretName name of the secret.
      */
     public void deleteSecret(final String secretName) {
-        client.secrets().inNamespace(appName).withName(secretName).delete();
+        call("secrets/delete", secretName, () ->
+                client.secrets().inNamespace(appName).withName(secretName).delete());
+    }
+
+    private <T> T call(String endpoint, @Nullable String secretName, Supplier<T> request) {
+        return tracingService.trace(KUBERNETES_UPSTREAM + " " + endpoint, secretName, () ->
+                metricsService.recordKubernetesCall(endpoint, secretName, request));
     }
 
 }
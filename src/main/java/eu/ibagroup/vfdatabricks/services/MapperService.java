@@ -20,6 +20,7 @@
 package eu.ibagroup.vfdatabricks.services;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
 import eu.ibagroup.vfdatabricks.dto.GraphDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.HistoryResponseDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.JobDto;
@@ -38,6 +39,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.RegExUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
@@ -48,6 +50,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 import java.util.regex.Pattern;
 
 import static eu.ibagroup.vfdatabricks.dto.Constants.*;
@@ -63,8 +66,11 @@ import static eu.ibagroup.vfdatabricks.services.UtilsService.encodeToBase64;
 @Service
 public class MapperService {
     private static final Pattern PROHIBITED_CHARS = Pattern.compile("\\W+");
+    private static final String TRANSFORMATION_JOB_CLASS = "by.iba.vf.spark.transformation.TransformationJob";
     private final KubernetesService kubernetesService;
     private final ObjectMapper objectMapper;
+    private final JobConfigArtifactService jobConfigArtifactService;
+    private final ApplicationConfigurationProperties appProperties;
 
     public static String toAlphaNumeric(String name) {
         return RegExUtils.replaceAll(name, PROHIBITED_CHARS, "_");
@@ -92,6 +98,10 @@ public class MapperService {
         return result;
     }
 
+    private boolean isExistingClustersEnabled() {
+        return appProperties.getDatabricks() != null && appProperties.getDatabricks().isExistingClusters();
+    }
+
     public DatabricksJobStorageRunDto mapRequestToJobRun(@Valid JobDto jobDto, String projectId) {
         return DatabricksJobStorageRunDto.builder()
                 .runName(jobDto.getName())
@@ -101,8 +111,41 @@ public class MapperService {
                 .build();
     }
 
+    /**
+     * Converting environment variables of a job to spark jar task parameters in the "name=value" form.
+     * They are used, when the job runs on a cluster, which environment can't be set for the job.
+     *
+     * @param envVars environment variables
+     * @return task parameters, sorted by name
+     */
+    public static List<String> toTaskParameters(Map<String, String> envVars) {
+        return new TreeMap<>(envVars).entrySet().stream()
+                .map(envVar -> envVar.getKey() + "=" + envVar.getValue())
+                .toList();
+    }
+
     public DatabricksJobTask mapJobDtoToDatabricksJobTask(JobDto jobDto, String projectId) {
         Secret project = kubernetesService.getSecret(projectId);
+        List<DatabricksJobTask.Library> libraries = List.of(DatabricksJobTask
+                .Library
+                .builder()
+                .jar(decodeFromBase64(project.getData().get(PATH_TO_FILE)) + "/" + JAR_FILE_NAME)
+                .build());
+        String existingClusterId = jobDto.getParams().getExistingClusterId();
+        if (StringUtils.isNotBlank(existingClusterId) && isExistingClustersEnabled()) {
+            return DatabricksJobTask.builder()
+                    .taskKey(jobDto.getName())
+                    .existingClusterId(existingClusterId)
+                    .sparkJarTask(
+                            DatabricksJobSparkJarTask.builder()
+                                    .mainClassName(TRANSFORMATION_JOB_CLASS)
+                                    .parameters(toTaskParameters(prepareSparkEnv(jobDto, projectId, null)))
+                                    .build()
+                    )
+                    .libraries(libraries)
+                    .dedicatedCluster(true)
+                    .build();
+        }
         DatabricksJobNewCluster newCluster =
                 objectMapper.convertValue(jobDto.getParams().getClusterDatabricksSchema(),
                         DatabricksJobNewCluster.class);
@@ -114,20 +157,23 @@ public class MapperService {
                         .destination("dbfs:/logStore/log")
                         .build())
                 .build());
+        if (StringUtils.isBlank(newCluster.getInstancePoolId()) && project.getData().get(INSTANCE_POOL_ID) != null) {
+            // the node types are defined by the pool
+            newCluster.setInstancePoolId(decodeFromBase64(project.getData().get(INSTANCE_POOL_ID)));
+            newCluster.setNodeTypeId(null);
+            newCluster.setDriverNodeTypeId(null);
+        }
 
         return DatabricksJobTask.builder()
                 .taskKey(jobDto.getName())
                 .newCluster(newCluster)
+                .dedicatedCluster(Boolean.FALSE.equals(jobDto.getParams().getSharedCluster()))
                 .sparkJarTask(
                         DatabricksJobSparkJarTask.builder()
-                                .mainClassName("by.iba.vf.spark.transformation.TransformationJob")
+                                .mainClassName(TRANSFORMATION_JOB_CLASS)
                                 .build()
                 )
-                .libraries(List.of(DatabricksJobTask
-                        .Library
-                        .builder()
-                        .jar(decodeFromBase64(project.getData().get(PATH_TO_FILE)) + "/" + JAR_FILE_NAME)
-                        .build()))
+                .libraries(libraries)
                 .build();
     }
 
@@ -136,8 +182,15 @@ public class MapperService {
 
         Map<String, String> result = new HashMap<>();
 
-        result.put(JOB_CONFIG_FIELD, encodeToBase64(graphDto.toString()));
-        result.put(JOB_DEFINITION_FIELD, encodeToBase64(jobDto.getDefinition().toString()));
+        String jobConfig = graphDto.toString();
+        String jobDefinition = jobDto.getDefinition().toString();
+        String artifact = jobConfigArtifactService.store(projectId, jobConfig, jobDefinition);
+        if (artifact != null) {
+            result.put(JOB_CONFIG_ARTIFACT_FIELD, artifact);
+        } else {
+            result.put(JOB_CONFIG_FIELD, encodeToBase64(jobConfig));
+            result.put(JOB_DEFINITION_FIELD, encodeToBase64(jobDefinition));
+        }
         result.put(UP_TO, jobDto.getParams().getUpTo());
         result.put(INTERVALS, jobDto.getParams().getIntervals());
         result.put(VISUAL_FLOW_CONFIGURATION_TYPE, "Databricks");
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2021 IBA Group, a.s. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.ibagroup.vfdatabricks.services;
+
+import com.google.common.cache.Cache;
+import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.support.RetrySynchronizationManager;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import static eu.ibagroup.vfdatabricks.dto.Constants.*;
+
+/**
+ * Service for recording metrics of the calls to upstream services.
+ * Every call is timed in {@value eu.ibagroup.vfdatabricks.dto.Constants#UPSTREAM_REQUESTS_METRIC},
+ * tagged by upstream, logical endpoint, project, status code and the number of retries before the call.
+ * Ids in the request paths are replaced by placeholders, so endpoints have a bounded cardinality.
+ */
+@Service
+public class MetricsService {
+    private static final Pattern LITERAL_SEGMENT = Pattern.compile("[A-Za-z][A-Za-z_-]*");
+    private static final String ID_PLACEHOLDER = "{id}";
+    private static final String API_SEGMENT = "api";
+    private static final String PROJECT_SEGMENT = "project";
+    private static final String JOBS_SEGMENT = "jobs";
+    private static final List<String> FILE_APIS = List.of("fs", "dbfs");
+    private final MeterRegistry meterRegistry;
+    private final ApplicationConfigurationProperties appProperties;
+
+    public MetricsService(MeterRegistry meterRegistry, ApplicationConfigurationProperties appProperties) {
+        this.meterRegistry = meterRegistry;
+        this.appProperties = appProperties;
+    }
+
+    /**
+     * Creating an interceptor, which records every request of a rest template.
+     * For Databricks requests the project is taken from the retry context of the request.
+     *
+     * @param upstream upstream name, or null to resolve the upstream by the host of the request
+     * @return interceptor
+     */
+    public ClientHttpRequestInterceptor upstreamInterceptor(@Nullable String upstream) {
+        return (HttpRequest request, byte[] body, ClientHttpRequestExecution execution) -> {
+            long start = System.nanoTime();
+            String status = IO_ERROR_STATUS;
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                status = String.valueOf(response.getStatusCode().value());
+                return response;
+            } finally {
+                recordRequest(upstream, request.getURI(), status, System.nanoTime() - start);
+            }
+        };
+    }
+
+    /**
+     * Recording a call to an upstream service.
+     *
+     * @param upstream  upstream name
+     * @param endpoint  logical endpoint
+     * @param projectId project id, if the call is made on behalf of a project
+     * @param retries   number of retries before the call
+     * @param status    status code of the response
+     * @param nanos     duration of the call
+     */
+    public void recordUpstreamCall(String upstream,
+                                   String endpoint,
+                                   @Nullable String projectId,
+                                   int retries,
+                                   String status,
+                                   long nanos) {
+        Timer.builder(UPSTREAM_REQUESTS_METRIC)
+                .description("Requests to upstream services")
+                .tags(Tags.of(UPSTREAM_TAG, upstream,
+                        ENDPOINT_TAG, endpoint,
+                        PROJECT_TAG, StringUtils.defaultIfEmpty(projectId, NONE_TAG_VALUE),
+                        STATUS_TAG, status,
+                        RETRIES_TAG, String.valueOf(retries)))
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Recording a call to the Kubernetes API.
+     *
+     * @param endpoint  logical endpoint
+     * @param projectId project id, if the call is made on behalf of a project
+     * @param call      the call
+     * @return result of the call
+     */
+    public <T> T recordKubernetesCall(String endpoint, @Nullable String projectId, Supplier<T> call) {
+        long start = System.nanoTime();
+        String status = IO_ERROR_STATUS;
+        try {
+            T result = call.get();
+            status = result == null ? "404" : "200";
+            return result;
+        } catch (KubernetesClientException e) {
+            if (e.getCode() > 0) {
+                status = String.valueOf(e.getCode());
+            }
+            throw e;
+        } finally {
+            recordUpstreamCall(KUBERNETES_UPSTREAM, endpoint, projectId, 0, status, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Exposing hit ratio and other statistics of the cache. The cache should record its stats.
+     *
+     * @param cache cache
+     * @param name  cache name
+     * @return the cache
+     */
+    public <K, V, C extends Cache<K, V>> C monitorCache(C cache, String name) {
+        return GuavaCacheMetrics.monitor(meterRegistry, cache, name, Tags.empty());
+    }
+
+    private void recordRequest(@Nullable String upstream, URI uri, String status, long nanos) {
+        List<String> segments = new ArrayList<>(Arrays.stream(StringUtils.split(uri.getPath(), '/')).toList());
+        String projectId = null;
+        int retries = 0;
+        String resolved = upstream != null ? upstream : resolveUpstream(uri);
+        if (DATABRICKS_UPSTREAM.equals(resolved)) {
+            RetryContext context = RetrySynchronizationManager.getContext();
+            if (context != null) {
+                projectId = (String) context.getAttribute(RETRY_PROJECT_ATTRIBUTE);
+            }
+            for (; context != null; context = context.getParent()) {
+                retries += context.getRetryCount();
+                if (context.getAttribute(RETRY_ATTEMPT_ATTRIBUTE) instanceof Integer attempt) {
+                    retries += attempt;
+                }
+            }
+            segments = getDatabricksEndpoint(segments);
+        } else {
+            int api = segments.indexOf(API_SEGMENT);
+            if (api >= 0 && api + 1 < segments.size()) {
+                boolean project = PROJECT_SEGMENT.equals(segments.get(api + 1)) && api + 2 < segments.size();
+                if (project) {
+                    projectId = segments.get(api + 2);
+                }
+                segments = segments.subList(api + (project ? 3 : 2), segments.size());
+            }
+        }
+        recordUpstreamCall(resolved, toEndpoint(segments), projectId, retries, status, nanos);
+    }
+
+    /**
+     * Getting the logical endpoint of a Databricks API path, e.g. runs/get for /api/2.1/jobs/runs/get.
+     */
+    private static List<String> getDatabricksEndpoint(List<String> segments) {
+        List<String> endpoint = segments;
+        if (endpoint.size() > 2 && API_SEGMENT.equals(endpoint.get(0))) {
+            endpoint = endpoint.subList(2, endpoint.size());
+        }
+        if (endpoint.size() > 2 && JOBS_SEGMENT.equals(endpoint.get(0))) {
+            endpoint = endpoint.subList(1, endpoint.size());
+        }
+        if (endpoint.size() > 2 && FILE_APIS.contains(endpoint.get(0))) {
+            // the rest is a file path
+            endpoint = endpoint.subList(0, 2);
+        }
+        return endpoint;
+    }
+
+    private static String toEndpoint(List<String> segments) {
+        if (segments.isEmpty()) {
+            return "/";
+        }
+        return String.join("/", segments.stream()
+                .map(segment -> LITERAL_SEGMENT.matcher(segment).matches() ? segment : ID_PLACEHOLDER)
+                .toList());
+    }
+
+    private String resolveUpstream(URI uri) {
+        String url = uri.toString();
+        if (appProperties.getJobStorage() != null && startsWith(url, appProperties.getJobStorage().getHost())) {
+            return JOB_STORAGE_UPSTREAM;
+        }
+        if (appProperties.getHistoryService() != null
+                && startsWith(url, appProperties.getHistoryService().getHost())) {
+            return HISTORY_SERVICE_UPSTREAM;
+        }
+        if (appProperties.getDbService() != null && startsWith(url, appProperties.getDbService().getHost())) {
+            return DB_SERVICE_UPSTREAM;
+        }
+        if (appProperties.getOauth() != null && appProperties.getOauth().getUrl() != null
+                && startsWith(url, appProperties.getOauth().getUrl().getUserInfo())) {
+            return OAUTH_UPSTREAM;
+        }
+        return OTHER_UPSTREAM;
+    }
+
+    private static boolean startsWith(String url, @Nullable String host) {
+        return StringUtils.isNotEmpty(host) && url.startsWith(host);
+    }
+}
@@ -21,53 +21,135 @@ package eu.ibagroup.vfdatabricks.services;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.cache.Cache;
 import eu.ibagroup.vfdatabricks.dto.parameters.ParameterDto;
 import eu.ibagroup.vfdatabricks.dto.parameters.ParameterOverviewDto;
 import eu.ibagroup.vfdatabricks.model.Parameter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static eu.ibagroup.vfdatabricks.dto.Constants.PARAMETER_CACHE_CHANNEL;
 import static eu.ibagroup.vfdatabricks.dto.Constants.PARAMETER_KEY_PREFIX;
 import static eu.ibagroup.vfdatabricks.dto.Constants.PROJECT_KEY_PREFIX;
 
+/**
+ * Service for project parameters.
+ * Parameters of a project are kept in a local near-cache. Every write publishes the project id
+ * to the {@link eu.ibagroup.vfdatabricks.dto.Constants#PARAMETER_CACHE_CHANNEL} channel,
+ * so all replicas drop their cached copy and read Redis again only after a change.
+ */
 @Slf4j
 @Service
-public class ParameterService {
+public class ParameterService implements MessageListener {
 
     private final RedisTemplate<String, String> redisTemplate;
     private final ObjectMapper objectMapper;
+    private final ObjectReader parameterReader;
     private final DatabricksAPIService databricksAPIService;
+    private final SecretSyncService secretSyncService;
+    private final Cache<String, Map<String, Parameter>> parameterCache;
+    private final AtomicLong cacheGeneration = new AtomicLong();
     public ParameterService(@Qualifier("redisTemplate") RedisTemplate<String, String> redisTemplate,
                             ObjectMapper objectMapper,
-                            DatabricksAPIService databricksAPIService) {
+                            DatabricksAPIService databricksAPIService,
+                            SecretSyncService secretSyncService,
+                            @Qualifier("parameterCache") Cache<String, Map<String, Parameter>> parameterCache) {
         this.redisTemplate = redisTemplate;
         this.objectMapper = objectMapper;
+        this.parameterReader = objectMapper.readerFor(Parameter.class);
         this.databricksAPIService = databricksAPIService;
+        this.secretSyncService = secretSyncService;
+        this.parameterCache = parameterCache;
     }
 
     public void create(String projectId, String paramId, ParameterDto parameterDto)
             throws JsonProcessingException {
         String folderKey = PROJECT_KEY_PREFIX + projectId;
-        Parameter parameter = Parameter.builder()
-                .secret(parameterDto.isSecret())
-                .key(paramId)
-                .value(parameterDto.getValue())
-                .build();
+        Parameter parameter = toParameter(paramId, parameterDto);
         String parameterKey = folderKey + PARAMETER_KEY_PREFIX + paramId;
         String parameterJson = objectMapper.writeValueAsString(parameter);
         redisTemplate.opsForHash().put(folderKey, parameterKey, parameterJson);
-        databricksAPIService.addSecret(projectId, parameter);
+        evict(projectId);
+        secretSyncService.put(projectId, parameter);
+    }
+
+    /**
+     * Creating or replacing several parameters at once.
+     * All parameters are written to the project hash with a single multi-field HSET.
+     *
+     * @param projectId     project id
+     * @param parameterDtos parameters
+     */
+    public void createAll(String projectId, List<ParameterDto> parameterDtos) throws JsonProcessingException {
+        if (parameterDtos.isEmpty()) {
+            return;
+        }
+        String folderKey = PROJECT_KEY_PREFIX + projectId;
+        List<Parameter> parameters = new ArrayList<>(parameterDtos.size());
+        Map<String, String> parameterJsons = new LinkedHashMap<>();
+        for (ParameterDto parameterDto : parameterDtos) {
+            Parameter parameter = toParameter(parameterDto.getKey(), parameterDto);
+            parameters.add(parameter);
+            parameterJsons.put(folderKey + PARAMETER_KEY_PREFIX + parameter.getKey(),
+                    objectMapper.writeValueAsString(parameter));
+        }
+        redisTemplate.opsForHash().putAll(folderKey, parameterJsons);
+        evict(projectId);
+        parameters.forEach(parameter -> secretSyncService.put(projectId, parameter));
     }
 
+    /**
+     * Updating parameter.
+     * If the key is not changed, the parameter and its secret are simply overwritten,
+     * otherwise the old field is removed and the new one is written in a single pipelined round-trip.
+     *
+     * @param projectId    project id
+     * @param paramId      current parameter id
+     * @param parameterDto new parameter
+     */
     public void update(String projectId, String paramId, ParameterDto parameterDto)
             throws JsonProcessingException {
-        delete(projectId, paramId);
-        create(projectId, parameterDto.getKey(), parameterDto);
+        if (paramId.equals(parameterDto.getKey())) {
+            create(projectId, paramId, parameterDto);
+            return;
+        }
+        String folderKey = PROJECT_KEY_PREFIX + projectId;
+        Parameter parameter = toParameter(parameterDto.getKey(), parameterDto);
+        String oldParameterKey = folderKey + PARAMETER_KEY_PREFIX + paramId;
+        String parameterKey = folderKey + PARAMETER_KEY_PREFIX + parameter.getKey();
+        String parameterJson = objectMapper.writeValueAsString(parameter);
+        redisTemplate.executePipelined(new SessionCallback<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                HashOperations<String, Object, Object> hashOperations =
+                        ((RedisOperations<String, String>) operations).opsForHash();
+                hashOperations.delete(folderKey, oldParameterKey);
+                hashOperations.put(folderKey, parameterKey, parameterJson);
+                return null;
+            }
+        });
+        evict(projectId);
+        secretSyncService.delete(projectId, paramId);
+        secretSyncService.put(projectId, parameter);
     }
 
     public ParameterDto get(String projectId, String parameterId) throws JsonProcessingException {
@@ -83,38 +165,138 @@ public class ParameterService {
     }
 
     public ParameterOverviewDto getAll(String projectId) {
-        List<Parameter> parameters = new ArrayList<>();
-        String folderKey = PROJECT_KEY_PREFIX + projectId;
-        redisTemplate.opsForHash().entries(folderKey).forEach((Object key, Object value) -> {
+        List<ParameterDto> parameterDtos = getParameters(projectId).values()
+                .stream()
+                .map(parameter -> ParameterDto.builder()
+                        .key(parameter.getKey())
+                        .secret(parameter.isSecret())
+                        .value(parameter.getValue())
+                        .build())
+                .toList();
+
+        return ParameterOverviewDto.builder()
+                .params(parameterDtos)
+                .editable(true)
+                .build();
+    }
+
+    /**
+     * Getting all parameters of the project by their keys.
+     * The result is served from the near-cache, Redis is read only if the project has changed since the last read.
+     *
+     * @param projectId project id
+     * @return unmodifiable map of parameters by key
+     */
+    public Map<String, Parameter> getParameters(String projectId) {
+        Map<String, Parameter> cached = parameterCache.getIfPresent(projectId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = cacheGeneration.get();
+        Map<String, Parameter> parameters = new LinkedHashMap<>();
+        redisTemplate.opsForHash().entries(PROJECT_KEY_PREFIX + projectId).values().forEach((Object value) -> {
             try {
-                parameters.add(jsonToParameter((String) value));
+                Parameter parameter = jsonToParameter((String) value);
+                parameters.put(parameter.getKey(), parameter);
             } catch (JsonProcessingException e) {
                 LOGGER.error("Error while executing getAll method: " + e.getMessage());
             }
         });
-        List<ParameterDto> parameterDtos = new ArrayList<>();
-        parameters.forEach(parameter -> parameterDtos.add(ParameterDto.builder()
-                .key(parameter.getKey())
-                .secret(parameter.isSecret())
-                .value(parameter.getValue())
-                .build()));
+        Map<String, Parameter> loaded = Collections.unmodifiableMap(parameters);
+        // a value read concurrently with an invalidation might be stale, so it is not cached
+        if (generation == cacheGeneration.get()) {
+            parameterCache.put(projectId, loaded);
+        }
+        return loaded;
+    }
 
-        return ParameterOverviewDto.builder()
-                .params(parameterDtos)
-                .editable(true)
-                .build();
+    /**
+     * Dropping cached parameters of the project on receiving an invalidation message from any replica.
+     *
+     * @param message message with project id
+     * @param pattern channel pattern
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
     }
 
     public void delete(String projectId, String parameterId) {
         String folderKey = PROJECT_KEY_PREFIX + projectId;
         String jobKey = folderKey + PARAMETER_KEY_PREFIX + parameterId;
         redisTemplate.opsForHash().delete(folderKey, jobKey);
-        databricksAPIService.deleteSecret(projectId, parameterId);
+        evict(projectId);
+        secretSyncService.delete(projectId, parameterId);
+    }
+
+    /**
+     * Deleting several parameters at once.
+     * All fields are removed from the project hash with a single multi-field HDEL.
+     *
+     * @param projectId    project id
+     * @param parameterIds parameter ids
+     */
+    public void deleteAll(String projectId, List<String> parameterIds) {
+        if (parameterIds.isEmpty()) {
+            return;
+        }
+        String folderKey = PROJECT_KEY_PREFIX + projectId;
+        Object[] parameterKeys = parameterIds.stream()
+                .map(parameterId -> folderKey + PARAMETER_KEY_PREFIX + parameterId)
+                .toArray();
+        redisTemplate.opsForHash().delete(folderKey, parameterKeys);
+        evict(projectId);
+        parameterIds.forEach(parameterId -> secretSyncService.delete(projectId, parameterId));
+    }
+
+    /**
+     * Reconciling the Databricks secret scope of the project with parameters stored in Redis.
+     * Only the differences are applied: missing secrets are put, secrets without a parameter are deleted.
+     * Databricks does not return secret values, so existing secrets are not compared by value.
+     *
+     * @param projectId project id
+     * @return number of queued secret operations
+     */
+    public int reconcileSecrets(String projectId) {
+        Map<String, Parameter> parameters = getParameters(projectId);
+        Set<String> secretKeys = new HashSet<>(databricksAPIService.listSecrets(projectId));
+        int operations = 0;
+        for (Parameter parameter : parameters.values()) {
+            if (!secretKeys.contains(parameter.getKey())) {
+                secretSyncService.put(projectId, parameter);
+                operations++;
+            }
+        }
+        for (String secretKey : secretKeys) {
+            if (!parameters.containsKey(secretKey)) {
+                secretSyncService.delete(projectId, secretKey);
+                operations++;
+            }
+        }
+        LOGGER.info("{} secret operations queued to reconcile project '{}'", operations, projectId);
+        return operations;
+    }
+
+    private void evict(String projectId) {
+        invalidate(projectId);
+        redisTemplate.convertAndSend(PARAMETER_CACHE_CHANNEL, projectId);
+    }
+
+    private void invalidate(String projectId) {
+        cacheGeneration.incrementAndGet();
+        parameterCache.invalidate(projectId);
+    }
+
+    private static Parameter toParameter(String paramId, ParameterDto parameterDto) {
+        return Parameter.builder()
+                .secret(parameterDto.isSecret())
+                .key(paramId)
+                .value(parameterDto.getValue())
+                .build();
     }
 
     private Parameter jsonToParameter(String jobJson) throws JsonProcessingException {
-        Parameter parameter = objectMapper.readValue(jobJson, Parameter.class);
-        return parameter;
+        return parameterReader.readValue(jobJson);
     }
 
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2021 IBA Group, a.s. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.ibagroup.vfdatabricks.services;
+
+import com.google.common.cache.LoadingCache;
+import eu.ibagroup.vfdatabricks.model.Parameter;
+import eu.ibagroup.vfdatabricks.util.ParameterTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Service for substituting #key# placeholders with values of project parameters.
+ * Compiled templates are cached, so repeated substitution of the same text (connection pings,
+ * job definitions) does not parse it again.
+ */
+@Service
+public class ParameterTemplateService {
+    private final ParameterService parameterService;
+    private final LoadingCache<String, ParameterTemplate> parameterTemplateCache;
+
+    public ParameterTemplateService(ParameterService parameterService,
+                                    @Qualifier("parameterTemplateCache")
+                                    LoadingCache<String, ParameterTemplate> parameterTemplateCache) {
+        this.parameterService = parameterService;
+        this.parameterTemplateCache = parameterTemplateCache;
+    }
+
+    /**
+     * Getting values of all project parameters by key.
+     *
+     * @param projectId project id
+     * @return parameter values
+     */
+    public Map<String, String> getValues(String projectId) {
+        Map<String, Parameter> parameters = parameterService.getParameters(projectId);
+        Map<String, String> values = new HashMap<>(parameters.size() * 2);
+        parameters.forEach((String key, Parameter parameter) -> {
+            if (parameter.getValue() != null && parameter.getValue().getText() != null) {
+                values.put(key, parameter.getValue().getText());
+            }
+        });
+        return values;
+    }
+
+    /**
+     * Substituting placeholders in the text.
+     *
+     * @param text   text with placeholders
+     * @param values parameter values by key
+     * @return substituted text
+     */
+    public String substitute(String text, Map<String, String> values) {
+        if (text == null || text.indexOf('#') < 0) {
+            return text;
+        }
+        return parameterTemplateCache.getUnchecked(text).render(values);
+    }
+
+    /**
+     * Substituting placeholders in every value of the map with project parameters.
+     *
+     * @param projectId project id
+     * @param map       map with placeholders in values
+     * @return new map with substituted values, keeping the order of the original one
+     */
+    public Map<String, String> substituteAll(String projectId, Map<String, String> map) {
+        Map<String, String> values = getValues(projectId);
+        Map<String, String> result = new LinkedHashMap<>(map.size() * 2);
+        map.forEach((String key, String value) -> result.put(key, substitute(value, values)));
+        return result;
+    }
+}
@@ -26,18 +26,23 @@ import eu.ibagroup.vfdatabricks.dto.GraphDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.CommonDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.JobDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobRunDto;
+import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobCluster;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobStorageRunDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobTask;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksRunIdDto;
+import eu.ibagroup.vfdatabricks.dto.pipelines.CronOverlapPolicy;
 import eu.ibagroup.vfdatabricks.dto.pipelines.PipelineDto;
 import eu.ibagroup.vfdatabricks.dto.pipelines.PipelineOverviewDto;
 import eu.ibagroup.vfdatabricks.dto.pipelines.PipelineOverviewListDto;
+import eu.ibagroup.vfdatabricks.services.events.PipelineFinishedEvent;
+import eu.ibagroup.vfdatabricks.services.events.PipelineStartedEvent;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.util.Strings;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
@@ -51,6 +56,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -76,6 +82,8 @@ public class PipelineService {
     private final JobService jobService;
     private final CronCheckService cronCheckService;
     private final SchedulerService schedulerService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TracingService tracingService;
 
     public PipelineService(@Qualifier("authRestTemplate") RestTemplate restTemplate,
                            ApplicationConfigurationProperties appProperties,
@@ -84,7 +92,9 @@ public class PipelineService {
                            DatabricksAPIService databricksApiService,
                            AsyncJobCheckService asyncJobCheckService,
                            CronCheckService cronCheckService,
-                           SchedulerService schedulerService) {
+                           SchedulerService schedulerService,
+                           ApplicationEventPublisher eventPublisher,
+                           TracingService tracingService) {
         this.restTemplate = restTemplate;
         this.appProperties = appProperties;
         this.mapperService = mapperService;
@@ -93,6 +103,8 @@ public class PipelineService {
         this.asyncJobCheckService = asyncJobCheckService;
         this.cronCheckService = cronCheckService;
         this.schedulerService = schedulerService;
+        this.eventPublisher = eventPublisher;
+        this.tracingService = tracingService;
     }
 
     private static String getTaskKey(GraphDto.NodeDto node, String parentId) {
@@ -189,6 +201,20 @@ public class PipelineService {
     }
 
     public PipelineOverviewListDto getAll(String projectId, @Nullable Collection<String> names) {
+        PipelineOverviewListDto body = getOverviews(projectId, names);
+        checkAndUpdateStatus(projectId, body.getPipelines());
+        cronCheckService.checkAndUpdateCron(projectId, body.getPipelines());
+        return body;
+    }
+
+    /**
+     * Getting pipelines as they are stored, without reconciling their statuses and crons.
+     *
+     * @param projectId project id
+     * @param names     pipeline names, all pipelines if empty
+     * @return pipelines
+     */
+    public PipelineOverviewListDto getOverviews(String projectId, @Nullable Collection<String> names) {
         String url;
         if (CollectionUtils.isEmpty(names)) {
             url = BASE_URL;
@@ -204,10 +230,7 @@ public class PipelineService {
                         Strings.join(names, ',')),
                 PipelineOverviewListDto.class
         );
-        PipelineOverviewListDto body = Objects.requireNonNull(response.getBody());
-        checkAndUpdateStatus(projectId, body.getPipelines());
-        cronCheckService.checkAndUpdateCron(projectId, body.getPipelines());
-        return body;
+        return Objects.requireNonNull(response.getBody());
     }
 
     public void run(String projectId, String id) {
@@ -216,11 +239,54 @@ public class PipelineService {
         if (StringUtils.equalsAnyIgnoreCase(pipelineDto.getStatus(), PENDING_VF_STATUS, RUNNING_VF_STATUS)) {
             throw new IllegalStateException("Already started");
         }
+        start(projectId, id, pipelineDto);
+    }
 
-        DatabricksJobStorageRunDto databricksJobStorageRunDto = mapPipelineToDatabricksJobStorageRun(
-                projectId,
-                pipelineDto
-        );
+    /**
+     * Running the pipeline on schedule.
+     * Activity of the previous run is checked before the pipeline is compiled, so nothing is compiled
+     * for a run, which is not going to be started.
+     *
+     * @param projectId     project id
+     * @param id            pipeline id
+     * @param overlapPolicy what to do if the previous run is still active
+     * @return false if the run was not started because the previous run is still active
+     */
+    public boolean runScheduled(String projectId, String id, CronOverlapPolicy overlapPolicy) {
+        PipelineDto pipelineDto = getById(projectId, id);
+        if (isActive(projectId, pipelineDto)) {
+            if (overlapPolicy != CronOverlapPolicy.CANCEL_PREVIOUS) {
+                return false;
+            }
+            LOGGER.info("Cancelling previous run {} of pipeline '{}'", pipelineDto.getRunId(), id);
+            databricksApiService.cancelJob(projectId, pipelineDto.getRunId());
+        }
+        start(projectId, id, pipelineDto);
+        return true;
+    }
+
+    private boolean isActive(String projectId, PipelineDto pipelineDto) {
+        if (!StringUtils.equalsAnyIgnoreCase(pipelineDto.getStatus(), PENDING_VF_STATUS, RUNNING_VF_STATUS)) {
+            return false;
+        }
+        if (pipelineDto.getRunId() <= 0) {
+            // the run is being submitted
+            return true;
+        }
+        DatabricksJobRunDto run = databricksApiService.checkJobStatus(projectId, pipelineDto.getRunId());
+        return run == null || run.getState() == null || StringUtils.equalsAnyIgnoreCase(
+                mapperService.mapStatus(run.getState()), PENDING_VF_STATUS, RUNNING_VF_STATUS);
+    }
+
+    private void start(String projectId, String id, PipelineDto pipelineDto) {
+        tracingService.trace("pipeline run", projectId, () -> submit(projectId, id, pipelineDto));
+    }
+
+    private void submit(String projectId, String id, PipelineDto pipelineDto) {
+        DatabricksJobStorageRunDto databricksJobStorageRunDto = tracingService.trace("pipeline compile", projectId,
+                () -> mapPipelineToDatabricksJobStorageRun(projectId, id, pipelineDto));
+        // shared by the retries of the submission, so they don't start more than one run
+        databricksJobStorageRunDto.setIdempotencyToken(UUID.randomUUID().toString());
 
         pipelineDto.setStatus(PENDING_VF_STATUS);
         pipelineDto.setRunId(0);
@@ -239,11 +305,16 @@ public class PipelineService {
                         pipelineDto.setFinishedAt(null);
                     }
                     update(projectId, id, pipelineDto);
+                    if (exception == null) {
+                        eventPublisher.publishEvent(new PipelineStartedEvent(projectId, id, runIdDto.getRunId()));
+                    }
                 });
 
     }
 
-    private DatabricksJobStorageRunDto mapPipelineToDatabricksJobStorageRun(String projectId, PipelineDto pipelineDto) {
+    private DatabricksJobStorageRunDto mapPipelineToDatabricksJobStorageRun(String projectId,
+                                                                            String id,
+                                                                            PipelineDto pipelineDto) {
         PipelineTransformer transformer = new PipelineTransformer(
                 pipelineId -> getGraphDto(projectId, pipelineId),
                 (String jobId) -> {
@@ -252,10 +323,15 @@ public class PipelineService {
                 }
         );
         List<DatabricksJobTask> tasks = transformer.transform(GraphDto.parseGraph(pipelineDto.getDefinition()));
+        List<DatabricksJobCluster> jobClusters = null;
+        if (appProperties.getDatabricks() != null && appProperties.getDatabricks().isSharedJobClusters()) {
+            jobClusters = PipelineTransformer.shareJobClusters(tasks);
+        }
 
         return DatabricksJobStorageRunDto.builder()
                 .runName(pipelineDto.getName())
                 .tasks(tasks)
+                .jobClusters(jobClusters)
                 .emailNotifications(mapperService.mapEmailNotifications(pipelineDto.getParams().getEmail()))
                 .build();
     }
@@ -282,6 +358,11 @@ public class PipelineService {
                 .thenAccept((DatabricksJobRunDto result) -> {
                     if (result != null) {
                         updateJobStatuses(projectId, pipeline, result);
+                        if (!StringUtils.equalsAnyIgnoreCase(pipeline.getStatus(),
+                                PENDING_VF_STATUS, RUNNING_VF_STATUS)) {
+                            eventPublisher.publishEvent(new PipelineFinishedEvent(projectId, pipeline.getId(),
+                                    pipeline.getRunId(), pipeline.getStatus()));
+                        }
                     }
                 });
     }
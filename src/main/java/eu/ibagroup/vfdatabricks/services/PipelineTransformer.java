@@ -20,19 +20,24 @@
 package eu.ibagroup.vfdatabricks.services;
 
 import eu.ibagroup.vfdatabricks.dto.GraphDto;
+import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobCluster;
+import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobNewCluster;
+import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobSparkJarTask;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobTask;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DependentTask;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.RunIf;
 import eu.ibagroup.vfdatabricks.exceptions.BadRequestException;
+import eu.ibagroup.vfdatabricks.services.jfr.PipelineCompileEvent;
 import org.springframework.data.util.Pair;
 import org.springframework.util.CollectionUtils;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -40,20 +45,32 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 
+import static eu.ibagroup.vfdatabricks.dto.Constants.JOB_CLUSTER_KEY_PREFIX;
+import static eu.ibagroup.vfdatabricks.dto.Constants.JOB_CONFIG_ARTIFACT_FIELD;
+import static eu.ibagroup.vfdatabricks.dto.Constants.JOB_CONFIG_FIELD;
+import static eu.ibagroup.vfdatabricks.dto.Constants.JOB_DEFINITION_FIELD;
+
 public class PipelineTransformer {
 
-    public static final String ENTRY_NODES = "entryNodes";
-    public static final String EXIT_NODES = "exitNodes";
     public static final String OPERATION = "operation";
     public static final String SUCCESS_PATH = "successPath";
     public static final String PIPELINE = "PIPELINE";
+    public static final String JOB = "JOB";
+    public static final String JOB_ID = "jobId";
+    public static final String NAME = "name";
     public static final String PIPELINE_ID = "pipelineId";
     public static final String SEPARATOR_CHAR = "-";
+    private static final List<String> JOB_ENV_VARS =
+            List.of(JOB_CONFIG_FIELD, JOB_DEFINITION_FIELD, JOB_CONFIG_ARTIFACT_FIELD);
 
     private final Function<String, GraphDto> pipelineProvider;
     private final Function<String, DatabricksJobTask> databricksJobTaskProvider;
+    private final Map<String, GraphDto> pipelineGraphs = new HashMap<>();
+    private final Deque<String> expandedPipelineIds = new ArrayDeque<>();
+    private final Map<String, String> nodeNames = new HashMap<>();
     private final Map<String, Set<Pair<String, String>>> parentMap = new HashMap<>();
-    private final Map<String, GraphDto.NodeDto> nodeMap = new HashMap<>();
+    private final List<Pair<String, String>> jobNodes = new ArrayList<>();
+    private int nestingDepth;
 
     public PipelineTransformer(Function<String, GraphDto> pipelineProvider,
                                Function<String, DatabricksJobTask> databricksJobTaskProvider) {
@@ -61,6 +78,13 @@ public class PipelineTransformer {
         this.databricksJobTaskProvider = databricksJobTaskProvider;
     }
 
+    /**
+     * Entry and exit JOB nodes of an expanded pipeline, which replace the PIPELINE node
+     * in the edges around it.
+     */
+    private record Fragment(List<String> entryNodes, List<String> exitNodes) {
+    }
+
     static String getId(String parentId, String id) {
         if (parentId == null) {
             return id;
@@ -68,164 +92,185 @@ public class PipelineTransformer {
         return parentId + SEPARATOR_CHAR + id;
     }
 
-    private GraphDto getGraphDto(String pipelineId, String parentId) {
-        GraphDto graphDto = pipelineProvider.apply(pipelineId);
-        updateReferences(graphDto, parentId);
-        return graphDto;
+    /**
+     * Compiling the pipeline graph into Databricks tasks.
+     * Each node and edge of every (nested) graph is visited once, so the compilation takes linear time.
+     * The graph of each nested pipeline is requested once, however many times the pipeline is used.
+     * The compilation is recorded as {@link PipelineCompileEvent} in JFR recordings.
+     *
+     * @param graphDto pipeline graph
+     * @return tasks of JOB nodes in the order of the graph, with nested pipelines expanded in place
+     */
+    public List<DatabricksJobTask> transform(GraphDto graphDto) {
+        PipelineCompileEvent event = new PipelineCompileEvent();
+        event.begin();
+        expand(graphDto, null);
+        List<DatabricksJobTask> tasks = new ArrayList<>(jobNodes.size());
+        for (Pair<String, String> jobNode : jobNodes) {
+            tasks.add(createTask(jobNode.getFirst(), jobNode.getSecond()));
+        }
+        if (event.shouldCommit()) {
+            event.setNodes(nodeNames.size());
+            event.setTasks(tasks.size());
+            event.setNestedPipelines(pipelineGraphs.size());
+            event.setNestingDepth(nestingDepth);
+            event.commit();
+        }
+        return tasks;
     }
 
-    private void buildNodeMap(GraphDto graphDto) {
-        // Populate the nodeMap for easy lookup
+    private Fragment expand(GraphDto graphDto, String parentId) {
+        // nested pipelines are expanded first, so the edges around them can be resolved right away
+        Map<String, Fragment> fragments = new HashMap<>();
         for (GraphDto.NodeDto node : graphDto.getNodes()) {
-            nodeMap.put(node.getId(), node);
+            String nodeId = getId(parentId, node.getId());
+            nodeNames.put(nodeId, node.getValue().get(NAME));
+            String operation = node.getValue().get(OPERATION);
+            if (JOB.equalsIgnoreCase(operation)) {
+                jobNodes.add(Pair.of(nodeId, node.getValue().get(JOB_ID)));
+            } else if (PIPELINE.equalsIgnoreCase(operation)) {
+                fragments.put(node.getId(), expandPipeline(node.getValue().get(PIPELINE_ID), nodeId));
+            }
         }
-    }
 
-    public List<DatabricksJobTask> transform(GraphDto graphDto) {
-        populateDependsMap(graphDto);
-        ArrayList<DatabricksJobTask> tasks = new ArrayList<>();
+        List<String> entryNodes = new ArrayList<>();
+        List<String> exitNodes = new ArrayList<>();
         for (GraphDto.NodeDto node : graphDto.getNodes()) {
-            createTasksFromNode(node, tasks);
+            boolean isEntryNode = true;
+            boolean isExitNode = true;
+            for (GraphDto.EdgeDto edge : Optional.ofNullable(node.getEdges()).orElse(Collections.emptyList())) {
+                if (node.getId().equals(edge.getTarget())) {
+                    isEntryNode = false;
+                }
+                if (node.getId().equals(edge.getSource())) {
+                    isExitNode = false;
+                    addDependencies(edge, parentId, fragments);
+                }
+            }
+            String operation = node.getValue().get(OPERATION);
+            Fragment fragment = fragments.get(node.getId());
+            if (JOB.equalsIgnoreCase(operation)) {
+                String nodeId = getId(parentId, node.getId());
+                addIf(isEntryNode, entryNodes, List.of(nodeId));
+                addIf(isExitNode, exitNodes, List.of(nodeId));
+            } else if (fragment != null) {
+                addIf(isEntryNode, entryNodes, fragment.entryNodes());
+                addIf(isExitNode, exitNodes, fragment.exitNodes());
+            }
         }
-        return tasks;
+        return new Fragment(entryNodes, exitNodes);
     }
 
-    private void populateDependsMap(GraphDto graphDto) {
-        buildNodeMap(graphDto);
-        for (GraphDto.NodeDto node : graphDto.getNodes()) {
-            processEdges(node, null);
+    private static void addIf(boolean condition, List<String> nodeIds, List<String> toAdd) {
+        if (condition) {
+            nodeIds.addAll(toAdd);
         }
-        graphDto.getNodes().stream()
-                .filter(node -> PIPELINE.equals(node.getValue().get(OPERATION)))
-                .forEach(this::extractPipelines);
     }
 
-    private void extractPipelines(GraphDto.NodeDto node) {
-        String pipelineId = node.getValue().get(PIPELINE_ID);
-        String id = node.getId();
-        Set<Pair<String, String>> parent = parentMap.remove(node.getId());
-
-        GraphDto graphDto = getGraphDto(pipelineId, id);
-        populateDependsMap(graphDto);
-        Map<String, List<GraphDto.NodeDto>> entryAndExitNodes = getEntryAndExitNodes(graphDto);
-        if (!CollectionUtils.isEmpty(parent)) {
-            entryAndExitNodes.get(ENTRY_NODES).forEach(entryNode -> parentMap.put(entryNode.getId(), parent));
+    private Fragment expandPipeline(String pipelineId, String nodeId) {
+        if (expandedPipelineIds.contains(pipelineId)) {
+            throw new BadRequestException(String.format("Pipeline '%s' can't include itself", pipelineId));
+        }
+        GraphDto graphDto = pipelineGraphs.computeIfAbsent(pipelineId, pipelineProvider);
+        expandedPipelineIds.push(pipelineId);
+        nestingDepth = Math.max(nestingDepth, expandedPipelineIds.size());
+        try {
+            return expand(graphDto, nodeId);
+        } finally {
+            expandedPipelineIds.pop();
         }
-        // replace the pipeline node with the entry nodes in the parentMap
-        parentMap.forEach((k, v) -> v.forEach((Pair<String, String> pair) -> {
-            if (v.remove(Pair.of(node.getId(), pair.getSecond()))) {
-                List<Pair<String, String>> newDepends = entryAndExitNodes.get(EXIT_NODES).stream()
-                        .map(exitNode -> Pair.of(exitNode.getId(), pair.getSecond()))
-                        .toList();
-                v.addAll(newDepends);
-            }
-        }));
     }
 
-    private void processEdges(GraphDto.NodeDto node, Set<Pair<String, String>> parents) {
-        if (!CollectionUtils.isEmpty(parents)) {
-            Set<Pair<String, String>> depends = parentMap.computeIfAbsent(node.getId(), k -> new HashSet<>());
-            boolean pathMatches = depends.stream()
-                    .allMatch(v -> Objects.equals(
-                            v.getSecond(),
-                            Objects.requireNonNull(CollectionUtils.firstElement(parents)).getSecond())
-                    );
-            if (pathMatches) {
-                depends.addAll(parents);
-            } else {
+    private void addDependencies(GraphDto.EdgeDto edge, String parentId, Map<String, Fragment> fragments) {
+        String successPath = edge.getValue().get(SUCCESS_PATH);
+        List<String> sources = resolve(edge.getSource(), parentId, fragments.get(edge.getSource()), false);
+        for (String target : resolve(edge.getTarget(), parentId, fragments.get(edge.getTarget()), true)) {
+            Set<Pair<String, String>> depends = parentMap.computeIfAbsent(target, k -> new LinkedHashSet<>());
+            if (!depends.isEmpty() && !Objects.equals(depends.iterator().next().getSecond(), successPath)) {
                 throw new BadRequestException("Node can't have different type of income arrows");
             }
+            for (String source : sources) {
+                depends.add(Pair.of(source, successPath));
+            }
         }
+    }
 
-        if (node.getEdges() != null) {
-            for (GraphDto.EdgeDto edge : node.getEdges()) {
-                if (Objects.equals(node.getId(), edge.getSource())) {
-                    Pair<String, String> parent = Pair.of(edge.getSource(), edge.getValue().get(SUCCESS_PATH));
-                    processEdges(nodeMap.get(edge.getTarget()), Set.of(parent));
-                }
-            }
+    private static List<String> resolve(String id, String parentId, Fragment fragment, boolean asTarget) {
+        if (fragment == null) {
+            return List.of(getId(parentId, id));
+        }
+        if (asTarget) {
+            return fragment.entryNodes();
         }
+        return fragment.exitNodes();
     }
 
-    private MultiValueMap<String, GraphDto.NodeDto> getEntryAndExitNodes(GraphDto graphDto) {
-        MultiValueMap<String, GraphDto.NodeDto> entryAndExitNodes = new LinkedMultiValueMap<>();
-        for (GraphDto.NodeDto node : graphDto.getNodes()) {
-            List<GraphDto.EdgeDto> edges = Optional.ofNullable(node.getEdges()).orElse(Collections.emptyList());
-            boolean isEntryNode = edges.stream().noneMatch(edge -> node.getId().equals(edge.getTarget()));
-            boolean isExitNode = edges.stream().noneMatch(edge -> node.getId().equals(edge.getSource()));
-            if (isEntryNode || isExitNode) {
-                processNodeForEntryAndExitNodes(node, entryAndExitNodes, isEntryNode, isExitNode);
-            }
+    private DatabricksJobTask createTask(String nodeId, String jobId) {
+        DatabricksJobTask databricksJobTask = databricksJobTaskProvider.apply(jobId);
+        databricksJobTask.setTaskKey(createTaskKey(nodeId));
+        Set<Pair<String, String>> depends = parentMap.get(nodeId);
+        if (!CollectionUtils.isEmpty(depends)) {
+            Pair<String, String> first = depends.iterator().next();
+            databricksJobTask.setRunIf(getRunIf(first));
+            List<DependentTask> dependentTasks = depends.stream()
+                    .map(Pair::getFirst)
+                    .map(dependencyId -> DependentTask.builder().taskKey(createTaskKey(dependencyId)).build())
+                    .toList();
+            databricksJobTask.setDependsOn(dependentTasks);
         }
-        return entryAndExitNodes;
+        return databricksJobTask;
     }
 
-    private void processNodeForEntryAndExitNodes(GraphDto.NodeDto node,
-                                                 MultiValueMap<String, GraphDto.NodeDto> entryAndExitNodes,
-                                                 boolean isEntryNode,
-                                                 boolean isExitNode) {
-        if ("JOB".equals(node.getValue().get(OPERATION))) {
-            if (isEntryNode) {
-                entryAndExitNodes.add(ENTRY_NODES, node);
-            }
-            if (isExitNode) {
-                entryAndExitNodes.add(EXIT_NODES, node);
+    /**
+     * Moving identical cluster specs of the tasks into shared job clusters, so a single cluster is started
+     * for all of them. Job specific environment variables can't be set on a shared cluster, that's why
+     * they are passed to the tasks as parameters in the "name=value" form.
+     * Tasks with a dedicated cluster and tasks with a unique spec keep their own new cluster.
+     *
+     * @param tasks tasks of a run, updated in place
+     * @return shared job clusters referred by the tasks
+     */
+    public static List<DatabricksJobCluster> shareJobClusters(List<DatabricksJobTask> tasks) {
+        Map<DatabricksJobNewCluster, List<DatabricksJobTask>> groups = new LinkedHashMap<>();
+        for (DatabricksJobTask task : tasks) {
+            if (task.getNewCluster() != null && !task.isDedicatedCluster()) {
+                groups.computeIfAbsent(getSharedSpec(task.getNewCluster()), k -> new ArrayList<>()).add(task);
             }
         }
-        if (PIPELINE.equals(node.getValue().get(OPERATION))) {
-            GraphDto pipelineGraphDto = getGraphDto(node.getValue().get(PIPELINE_ID), node.getId());
-            MultiValueMap<String, GraphDto.NodeDto> childEntryExitNodes = getEntryAndExitNodes(pipelineGraphDto);
-            if (isEntryNode) {
-                entryAndExitNodes.addAll(ENTRY_NODES, childEntryExitNodes.get(ENTRY_NODES));
+        List<DatabricksJobCluster> jobClusters = new ArrayList<>();
+        groups.forEach((DatabricksJobNewCluster spec, List<DatabricksJobTask> groupTasks) -> {
+            if (groupTasks.size() < 2) {
+                return;
             }
-            if (isExitNode) {
-                entryAndExitNodes.addAll(EXIT_NODES, childEntryExitNodes.get(EXIT_NODES));
-            }
-        }
-    }
-
-
-    void updateReferences(GraphDto graphDto, String parentId) {
-        for (GraphDto.NodeDto node : graphDto.getNodes()) {
-            node.setId(getId(parentId, node.getId()));
-            if (node.getEdges() != null) {
-                for (GraphDto.EdgeDto edge : node.getEdges()) {
-                    edge.setSource(getId(parentId, edge.getSource()));
-                    edge.setTarget(getId(parentId, edge.getTarget()));
+            String jobClusterKey = JOB_CLUSTER_KEY_PREFIX + jobClusters.size();
+            jobClusters.add(DatabricksJobCluster.builder().jobClusterKey(jobClusterKey).newCluster(spec).build());
+            for (DatabricksJobTask task : groupTasks) {
+                Map<String, String> envVars = Optional.ofNullable(task.getNewCluster().getSparkEnvVars())
+                        .orElse(Collections.emptyMap());
+                Map<String, String> jobEnvVars = new HashMap<>();
+                for (String name : JOB_ENV_VARS) {
+                    if (envVars.containsKey(name)) {
+                        jobEnvVars.put(name, envVars.get(name));
+                    }
                 }
+                List<String> parameters = MapperService.toTaskParameters(jobEnvVars);
+                DatabricksJobSparkJarTask sparkJarTask = Optional.ofNullable(task.getSparkJarTask())
+                        .orElseGet(DatabricksJobSparkJarTask::new);
+                task.setSparkJarTask(sparkJarTask.toBuilder().parameters(parameters).build());
+                task.setNewCluster(null);
+                task.setJobClusterKey(jobClusterKey);
             }
-        }
+        });
+        return jobClusters;
     }
 
-    private void createTasksFromNode(GraphDto.NodeDto node, List<DatabricksJobTask> tasks) {
-
-        Map<String, String> value = node.getValue();
-
-        if ("JOB".equalsIgnoreCase(value.get(OPERATION))) {
-            String jobId = value.get("jobId");
-            DatabricksJobTask databricksJobTask = databricksJobTaskProvider.apply(jobId);
-            databricksJobTask.setTaskKey(createTaskKey(node.getId()));
-            Set<Pair<String, String>> depends = parentMap.get(node.getId());
-            if (!CollectionUtils.isEmpty(depends)) {
-                Pair<String, String> first = Objects.requireNonNull(CollectionUtils.firstElement(depends));
-                RunIf runIf = getRunIf(first);
-                databricksJobTask.setRunIf(runIf);
-                List<DependentTask> dependentTasks = depends.stream()
-                        .map(Pair::getFirst)
-                        .map(nodeId -> DependentTask.builder().taskKey(createTaskKey(nodeId)).build())
-                        .toList();
-                databricksJobTask.setDependsOn(dependentTasks);
-            }
-            tasks.add(databricksJobTask);
-        }
-
-        if (PIPELINE.equalsIgnoreCase(value.get(OPERATION))) {
-            String pipelineId = value.get(PIPELINE_ID);
-            GraphDto pipelineGraphDto = getGraphDto(pipelineId, node.getId());
-            for (GraphDto.NodeDto pipelineGraphDtoNode : pipelineGraphDto.getNodes()) {
-                createTasksFromNode(pipelineGraphDtoNode, tasks);
-            }
+    private static DatabricksJobNewCluster getSharedSpec(DatabricksJobNewCluster newCluster) {
+        if (newCluster.getSparkEnvVars() == null) {
+            return newCluster;
         }
+        Map<String, String> envVars = new HashMap<>(newCluster.getSparkEnvVars());
+        JOB_ENV_VARS.forEach(envVars::remove);
+        return newCluster.toBuilder().sparkEnvVars(envVars).build();
     }
 
     private static RunIf getRunIf(Pair<String, String> first) {
@@ -236,7 +281,7 @@ public class PipelineTransformer {
     }
 
     private String createTaskKey(String nodeId) {
-        String name = nodeMap.get(nodeId).getValue().get("name");
+        String name = nodeNames.get(nodeId);
         return MapperService.toAlphaNumeric(name) + SEPARATOR_CHAR + nodeId;
     }
 }
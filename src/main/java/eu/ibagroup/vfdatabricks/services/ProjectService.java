@@ -137,6 +137,7 @@ public class ProjectService {
         String jarHashFromFileSystem = Files.readString(path);
         secret.getStringData().put(HASH, jarHashFromFileSystem);
         kubernetesService.updateSecret(id, secret);
+        databricksAPIService.evictDatabricksClusterConfigFields(id);
     }
 
     /**
@@ -151,6 +152,7 @@ public class ProjectService {
             LOGGER.info("Can't delete secret scope for {}", id, e);
         }
         kubernetesService.deleteSecret(id);
+        databricksAPIService.evictDatabricksClusterConfigFields(id);
         asyncDeleteProjectDataService.deleteProjectData(id);
     }
 }
@@ -19,37 +19,94 @@
 
 package eu.ibagroup.vfdatabricks.services;
 
+import com.google.common.cache.Cache;
 import eu.ibagroup.vfdatabricks.util.CronExpressionUtils;
+import eu.ibagroup.vfdatabricks.dto.pipelines.CronOverlapPolicy;
 import eu.ibagroup.vfdatabricks.dto.pipelines.CronPipelineDto;
 import eu.ibagroup.vfdatabricks.services.quartz.CronJob;
-import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.quartz.CronScheduleBuilder;
 import org.quartz.CronTrigger;
 import org.quartz.JobBuilder;
+import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
 import org.quartz.JobKey;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
+import org.quartz.SimpleScheduleBuilder;
 import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
 import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.quartz.JobStoreType;
+import org.springframework.boot.autoconfigure.quartz.QuartzProperties;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.quartz.SchedulerFactoryBean;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.TimeZone;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
+import static eu.ibagroup.vfdatabricks.dto.Constants.CRON_CACHE_CHANNEL;
+import static eu.ibagroup.vfdatabricks.dto.Constants.CRON_DEFERRED;
+import static eu.ibagroup.vfdatabricks.dto.Constants.CRON_JITTER_SECONDS;
+import static eu.ibagroup.vfdatabricks.dto.Constants.CRON_OVERLAP_POLICY;
+
+/**
+ * Service for managing pipeline crons.
+ * Cron details of each project are kept in a local cache, which is updated by the mutations of this replica.
+ * Changes are also published to the {@link eu.ibagroup.vfdatabricks.dto.Constants#CRON_CACHE_CHANNEL} channel,
+ * so other replicas drop their cached copy, and the scheduler store is read only after a change.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class SchedulerService {
+    private static final String TRIGGER_NAME_PREFIX = "TriggerName-";
+    private static final String TRIGGER_GROUP_PREFIX = "TriggerGroup";
+    private static final String DEFERRED_TRIGGER_NAME_PREFIX = "DeferredTriggerName-";
+    private static final String DEFERRED_TRIGGER_GROUP_PREFIX = "DeferredTriggerGroup";
+    private static final String TABLE_PREFIX_PROPERTY = "org.quartz.jobStore.tablePrefix";
+    private static final String DEFAULT_TABLE_PREFIX = "QRTZ_";
+    private static final String SELECT_CRON_TRIGGERS = "SELECT t.TRIGGER_NAME, t.TRIGGER_STATE, c.CRON_EXPRESSION "
+            + "FROM %1$sTRIGGERS t JOIN %1$sCRON_TRIGGERS c ON c.SCHED_NAME = t.SCHED_NAME "
+            + "AND c.TRIGGER_NAME = t.TRIGGER_NAME AND c.TRIGGER_GROUP = t.TRIGGER_GROUP "
+            + "WHERE t.SCHED_NAME = ? AND t.TRIGGER_GROUP = ?";
+    private static final char MESSAGE_SEPARATOR = ':';
     private final SchedulerFactoryBean schedulerFactoryBean;
+    private final QuartzProperties quartzProperties;
+    private final ObjectProvider<JdbcTemplate> jdbcTemplateProvider;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final Cache<String, Map<String, CronPipelineDto>> cronCache;
+    private final AtomicLong cacheGeneration = new AtomicLong();
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public SchedulerService(SchedulerFactoryBean schedulerFactoryBean,
+                            QuartzProperties quartzProperties,
+                            ObjectProvider<JdbcTemplate> jdbcTemplateProvider,
+                            @Qualifier("redisTemplate") RedisTemplate<String, String> redisTemplate,
+                            @Qualifier("cronCache") Cache<String, Map<String, CronPipelineDto>> cronCache) {
+        this.schedulerFactoryBean = schedulerFactoryBean;
+        this.quartzProperties = quartzProperties;
+        this.jdbcTemplateProvider = jdbcTemplateProvider;
+        this.redisTemplate = redisTemplate;
+        this.cronCache = cronCache;
+    }
 
 
     private static JobKey getJobKey(String projectId, String id) {
@@ -57,7 +114,11 @@ public class SchedulerService {
     }
 
     private static TriggerKey getTriggerKey(String projectId, String id) {
-        return TriggerKey.triggerKey("TriggerName-" + id, "TriggerGroup" + projectId);
+        return TriggerKey.triggerKey(TRIGGER_NAME_PREFIX + id, TRIGGER_GROUP_PREFIX + projectId);
+    }
+
+    private static String getPipelineId(String triggerName) {
+        return triggerName.substring(TRIGGER_NAME_PREFIX.length());
     }
 
     private static Trigger createTrigger(CronPipelineDto cronPipelineDto, TriggerKey triggerKey) {
@@ -71,6 +132,15 @@ public class SchedulerService {
     }
 
 
+    private static void putSettings(JobBuilder jobBuilder, CronPipelineDto cronPipelineDto) {
+        if (cronPipelineDto.getOverlapPolicy() != null) {
+            jobBuilder.usingJobData(CRON_OVERLAP_POLICY, cronPipelineDto.getOverlapPolicy().name());
+        }
+        if (cronPipelineDto.getJitterSeconds() != null) {
+            jobBuilder.usingJobData(CRON_JITTER_SECONDS, cronPipelineDto.getJitterSeconds());
+        }
+    }
+
     private boolean isPaused(TriggerKey triggerKey) throws SchedulerException {
         return schedulerFactoryBean.getScheduler().getTriggerState(triggerKey) == Trigger.TriggerState.PAUSED;
     }
@@ -78,7 +148,9 @@ public class SchedulerService {
     @SneakyThrows
     public boolean deleteCron(String projectId, String id) {
         JobKey jobKey = getJobKey(projectId, id);
-        return schedulerFactoryBean.getScheduler().deleteJob(jobKey);
+        boolean deleted = schedulerFactoryBean.getScheduler().deleteJob(jobKey);
+        updateCache(projectId, crons -> crons.remove(id));
+        return deleted;
     }
 
     @SneakyThrows
@@ -92,18 +164,22 @@ public class SchedulerService {
 
     @SneakyThrows
     public void createCron(String projectId, String id, CronPipelineDto cronPipelineDto) {
-        JobDetail jobDetail = JobBuilder.newJob(CronJob.class)
+        JobBuilder jobBuilder = JobBuilder.newJob(CronJob.class)
                 .withIdentity(getJobKey(projectId, id))
                 .usingJobData("projectId", projectId)
                 .usingJobData("pipelineId", id)
                 .requestRecovery(true)
-                .storeDurably()
-                .build();
+                .storeDurably();
+        putSettings(jobBuilder, cronPipelineDto);
+        JobDetail jobDetail = jobBuilder.build();
 
         Trigger trigger = createTrigger(cronPipelineDto, getTriggerKey(projectId, id));
 
         Date date = schedulerFactoryBean.getScheduler().scheduleJob(jobDetail, trigger);
         LOGGER.info("Job scheduled successfully with id: {} and date: {}", jobDetail.getKey(), date);
+        updateCache(projectId, crons -> crons.put(id, CronPipelineDto.builder()
+                .schedule(cronPipelineDto.getSchedule())
+                .build()));
     }
 
     @SneakyThrows
@@ -130,23 +206,171 @@ public class SchedulerService {
                 LOGGER.info("Job resumed successfully with id: {}", triggerKey);
             }
         }
-
+        if (cronPipelineDto.getOverlapPolicy() != null || cronPipelineDto.getJitterSeconds() != null) {
+            JobBuilder jobBuilder = scheduler.getJobDetail(getJobKey(projectId, id)).getJobBuilder();
+            putSettings(jobBuilder, cronPipelineDto);
+            scheduler.addJob(jobBuilder.build(), true);
+        }
+        updateCache(projectId, crons -> crons.computeIfPresent(id, (String key, CronPipelineDto cron) ->
+                CronPipelineDto.builder()
+                        .schedule(StringUtils.defaultIfBlank(cronPipelineDto.getSchedule(), cron.getSchedule()))
+                        .suspend(cronPipelineDto.isSuspend())
+                        .build()));
     }
 
+    /**
+     * Getting cron of the pipeline together with its overlap settings.
+     *
+     * @param projectId project id
+     * @param id        pipeline id
+     * @return cron or null if the pipeline is not scheduled
+     */
     @SneakyThrows
     public CronPipelineDto getCron(String projectId, String id) {
-        TriggerKey triggerKey = getTriggerKey(projectId, id);
-
-        Scheduler scheduler = schedulerFactoryBean.getScheduler();
-        Trigger trigger = scheduler.getTrigger(triggerKey);
-        if (trigger == null) {
+        CronPipelineDto cron = getCrons(projectId).get(id);
+        if (cron == null) {
             return null;
         }
-        String expression = CronExpressionUtils.quartzToUnix(((CronTrigger) trigger).getCronExpression());
+        JobDetail jobDetail = schedulerFactoryBean.getScheduler().getJobDetail(getJobKey(projectId, id));
+        JobDataMap dataMap = jobDetail != null ? jobDetail.getJobDataMap() : new JobDataMap();
         return CronPipelineDto.builder()
-                .schedule(expression)
-                .suspend(isPaused(triggerKey))
+                .schedule(cron.getSchedule())
+                .suspend(cron.isSuspend())
+                .overlapPolicy(dataMap.containsKey(CRON_OVERLAP_POLICY)
+                        ? CronOverlapPolicy.valueOf(dataMap.getString(CRON_OVERLAP_POLICY)) : null)
+                .jitterSeconds(dataMap.containsKey(CRON_JITTER_SECONDS)
+                        ? dataMap.getIntValue(CRON_JITTER_SECONDS) : null)
+                .build();
+    }
+
+    /**
+     * Scheduling a single deferred run of the pipeline cron job.
+     * Nothing is scheduled if another deferred run of the pipeline is already waiting,
+     * so postponed runs of the same pipeline are coalesced.
+     *
+     * @param projectId     project id
+     * @param id            pipeline id
+     * @param delayMillis   delay of the run
+     * @param firingTrigger trigger, which is being fired now, it is not counted as a waiting run
+     * @return true if the run was scheduled
+     */
+    @SneakyThrows
+    public boolean deferRun(String projectId, String id, long delayMillis, TriggerKey firingTrigger) {
+        Scheduler scheduler = schedulerFactoryBean.getScheduler();
+        JobKey jobKey = getJobKey(projectId, id);
+        String deferredGroup = DEFERRED_TRIGGER_GROUP_PREFIX + projectId;
+        boolean waiting = scheduler.getTriggersOfJob(jobKey).stream()
+                .map(Trigger::getKey)
+                .anyMatch(key -> deferredGroup.equals(key.getGroup()) && !key.equals(firingTrigger));
+        if (waiting) {
+            return false;
+        }
+        Date startAt = new Date(System.currentTimeMillis() + delayMillis);
+        // the name is unique, since the trigger being fired is removed only after its execution
+        Trigger trigger = TriggerBuilder.newTrigger()
+                .withIdentity(DEFERRED_TRIGGER_NAME_PREFIX + id + "-" + startAt.getTime(), deferredGroup)
+                .forJob(jobKey)
+                .usingJobData(CRON_DEFERRED, true)
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule().withMisfireHandlingInstructionFireNow())
+                .startAt(startAt)
                 .build();
+        scheduler.scheduleJob(trigger);
+        LOGGER.info("Run of job {} deferred until {}", jobKey, startAt);
+        return true;
+    }
+
+    /**
+     * Getting crons of all pipelines in the project.
+     * The result is served from the cache, the scheduler store is read only if the project has changed
+     * on another replica since the last read.
+     *
+     * @param projectId project id
+     * @return unmodifiable map of crons by pipeline id
+     */
+    public Map<String, CronPipelineDto> getCrons(String projectId) {
+        Map<String, CronPipelineDto> cached = cronCache.getIfPresent(projectId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = cacheGeneration.get();
+        Map<String, CronPipelineDto> loaded = Collections.unmodifiableMap(loadCrons(projectId));
+        // a value read concurrently with a change might be stale, so it is not cached
+        if (generation == cacheGeneration.get()) {
+            cronCache.put(projectId, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Dropping cached crons of the project on receiving an invalidation message from another replica.
+     * Registered through a lambda listener, since the service itself is proxied for the async methods.
+     *
+     * @param message message with sender id and project id
+     */
+    public void onMessage(Message message) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String sender = StringUtils.substringBefore(body, MESSAGE_SEPARATOR);
+        if (!instanceId.equals(sender)) {
+            invalidate(StringUtils.substringAfter(body, MESSAGE_SEPARATOR));
+        }
+    }
+
+    private void updateCache(String projectId, Consumer<Map<String, CronPipelineDto>> change) {
+        cacheGeneration.incrementAndGet();
+        cronCache.asMap().computeIfPresent(projectId, (String key, Map<String, CronPipelineDto> crons) -> {
+            Map<String, CronPipelineDto> updated = new HashMap<>(crons);
+            change.accept(updated);
+            return Collections.unmodifiableMap(updated);
+        });
+        redisTemplate.convertAndSend(CRON_CACHE_CHANNEL, instanceId + MESSAGE_SEPARATOR + projectId);
+    }
+
+    private void invalidate(String projectId) {
+        cacheGeneration.incrementAndGet();
+        cronCache.invalidate(projectId);
+    }
+
+    /**
+     * Loading crons of all pipelines in the project.
+     * With the JDBC job store all triggers of the project are loaded together with their states in one query,
+     * otherwise the scheduler API is used.
+     *
+     * @param projectId project id
+     * @return crons by pipeline id
+     */
+    @SneakyThrows
+    private Map<String, CronPipelineDto> loadCrons(String projectId) {
+        String triggerGroup = TRIGGER_GROUP_PREFIX + projectId;
+        Scheduler scheduler = schedulerFactoryBean.getScheduler();
+        JdbcTemplate jdbcTemplate = jdbcTemplateProvider.getIfAvailable();
+        if (quartzProperties.getJobStoreType() == JobStoreType.JDBC && jdbcTemplate != null) {
+            return loadCrons(jdbcTemplate, scheduler.getSchedulerName(), triggerGroup);
+        }
+        Map<String, CronPipelineDto> crons = new HashMap<>();
+        for (TriggerKey triggerKey : scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals(triggerGroup))) {
+            if (scheduler.getTrigger(triggerKey) instanceof CronTrigger cronTrigger) {
+                crons.put(getPipelineId(triggerKey.getName()), CronPipelineDto.builder()
+                        .schedule(CronExpressionUtils.quartzToUnix(cronTrigger.getCronExpression()))
+                        .suspend(isPaused(triggerKey))
+                        .build());
+            }
+        }
+        return crons;
+    }
 
+    private Map<String, CronPipelineDto> loadCrons(JdbcTemplate jdbcTemplate, String schedulerName,
+                                                   String triggerGroup) {
+        String tablePrefix = quartzProperties.getProperties()
+                .getOrDefault(TABLE_PREFIX_PROPERTY, DEFAULT_TABLE_PREFIX);
+        Map<String, CronPipelineDto> crons = new HashMap<>();
+        jdbcTemplate.query(String.format(SELECT_CRON_TRIGGERS, tablePrefix), resultSet -> {
+            // PAUSED and PAUSED_BLOCKED are both reported as PAUSED by the scheduler API
+            boolean paused = StringUtils.startsWith(resultSet.getString(2), Trigger.TriggerState.PAUSED.name());
+            crons.put(getPipelineId(resultSet.getString(1)), CronPipelineDto.builder()
+                    .schedule(CronExpressionUtils.quartzToUnix(resultSet.getString(3)))
+                    .suspend(paused)
+                    .build());
+        }, schedulerName, triggerGroup);
+        return crons;
     }
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2021 IBA Group, a.s. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.ibagroup.vfdatabricks.services;
+
+import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
+import eu.ibagroup.vfdatabricks.exceptions.ForRetryRestTemplateException;
+import eu.ibagroup.vfdatabricks.model.Parameter;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service for pushing parameter secrets to Databricks secret scopes in the background.
+ * Operations are queued per scope and key: a newer operation on the same key replaces the queued one,
+ * so repeated writes are coalesced and only the latest state is sent. At most one request per key is in flight,
+ * the overall number of concurrent requests is bounded by the pool size of the scheduler.
+ * Rate-limited and unavailable responses are retried with exponential backoff.
+ */
+@Slf4j
+@Service
+public class SecretSyncService {
+    private static final int MAX_BACKOFF_SHIFT = 20;
+    private final DatabricksAPIService databricksAPIService;
+    private final ThreadPoolTaskScheduler secretSyncScheduler;
+    private final ApplicationConfigurationProperties.DatabricksSecretSyncSettings settings;
+    private final ConcurrentMap<SecretKey, SecretOperation> pending = new ConcurrentHashMap<>();
+    private final Set<SecretKey> running = ConcurrentHashMap.newKeySet();
+    // sequence number of the latest queued operation per key, used to drop outdated retries
+    private final ConcurrentMap<SecretKey, Long> latest = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SecretSyncService(DatabricksAPIService databricksAPIService,
+                             @Qualifier("secretSyncScheduler") ThreadPoolTaskScheduler secretSyncScheduler,
+                             ApplicationConfigurationProperties appProperties) {
+        this.databricksAPIService = databricksAPIService;
+        this.secretSyncScheduler = secretSyncScheduler;
+        this.settings = appProperties.getDatabricks().getSecretSync();
+    }
+
+    /**
+     * Queueing creation or update of the secret.
+     *
+     * @param projectId project id, used as the scope name
+     * @param parameter parameter
+     */
+    public void put(String projectId, Parameter parameter) {
+        enqueue(new SecretKey(projectId, parameter.getKey()), parameter);
+    }
+
+    /**
+     * Queueing deletion of the secret.
+     *
+     * @param projectId project id, used as the scope name
+     * @param key       secret key
+     */
+    public void delete(String projectId, String key) {
+        enqueue(new SecretKey(projectId, key), null);
+    }
+
+    /**
+     * Getting number of operations, which are queued and not yet started.
+     *
+     * @return number of queued operations
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private void enqueue(SecretKey key, Parameter parameter) {
+        long number = sequence.incrementAndGet();
+        latest.put(key, number);
+        pending.put(key, new SecretOperation(key, parameter, number, 0));
+        schedule(key);
+    }
+
+    private void schedule(SecretKey key) {
+        if (pending.containsKey(key) && running.add(key)) {
+            secretSyncScheduler.execute(() -> drain(key));
+        }
+    }
+
+    private void drain(SecretKey key) {
+        try {
+            SecretOperation operation = pending.remove(key);
+            while (operation != null) {
+                apply(operation);
+                operation = pending.remove(key);
+            }
+        } finally {
+            running.remove(key);
+            // an operation might have been queued after the last check
+            schedule(key);
+        }
+    }
+
+    private void apply(SecretOperation operation) {
+        SecretKey key = operation.getKey();
+        try {
+            if (operation.getParameter() != null) {
+                databricksAPIService.addSecret(key.getScope(), operation.getParameter());
+            } else {
+                databricksAPIService.deleteSecret(key.getScope(), key.getKey());
+            }
+            latest.remove(key, operation.getSequence());
+        } catch (ForRetryRestTemplateException e) {
+            retry(operation, e);
+        } catch (RuntimeException e) {
+            latest.remove(key, operation.getSequence());
+            LOGGER.error("Unable to {} secret '{}' in scope '{}': {}",
+                    operation.getParameter() != null ? "put" : "delete", key.getKey(), key.getScope(),
+                    e.getMessage());
+        }
+    }
+
+    private void retry(SecretOperation operation, RuntimeException cause) {
+        SecretKey key = operation.getKey();
+        int attempt = operation.getAttempt() + 1;
+        if (attempt >= settings.getMaxAttempts()) {
+            latest.remove(key, operation.getSequence());
+            LOGGER.error("Giving up syncing secret '{}' in scope '{}' after {} attempts: {}",
+                    key.getKey(), key.getScope(), attempt, cause.getMessage());
+            return;
+        }
+        long delay = Math.min(settings.getMaxBackoffMillis(), settings.getBackoffMillis() << Math.min(attempt - 1, MAX_BACKOFF_SHIFT));
+        LOGGER.warn("Syncing secret '{}' in scope '{}' is throttled, retrying in {} ms",
+                key.getKey(), key.getScope(), delay);
+        secretSyncScheduler.schedule(() -> {
+            // a newer operation on the same key wins over the retried one
+            if (Long.valueOf(operation.getSequence()).equals(latest.get(key))
+                    && pending.putIfAbsent(key, operation.nextAttempt()) == null) {
+                schedule(key);
+            }
+        }, Instant.now().plus(Duration.ofMillis(delay)));
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class SecretKey {
+        private final String scope;
+        private final String key;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class SecretOperation {
+        private final SecretKey key;
+        // null means deletion
+        private final Parameter parameter;
+        private final long sequence;
+        private final int attempt;
+
+        SecretOperation nextAttempt() {
+            return new SecretOperation(key, parameter, sequence, attempt + 1);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2021 IBA Group, a.s. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.ibagroup.vfdatabricks.services;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import static eu.ibagroup.vfdatabricks.dto.Constants.*;
+
+/**
+ * Service for tracing the steps of the application, which are exported as spans
+ * and timed in {@value eu.ibagroup.vfdatabricks.dto.Constants#OPERATIONS_OBSERVATION}.
+ * Steps are observations, so they are propagated to async executors along with the current request.
+ */
+@Service
+public class TracingService {
+    private final ObservationRegistry observationRegistry;
+
+    public TracingService(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    /**
+     * Running the step in a child span of the current one.
+     *
+     * @param operation step name, e.g. "pipeline compile" or "kubernetes secrets/get"
+     * @param projectId project id
+     * @param step      step
+     * @return step result
+     */
+    public <T> T trace(String operation, @Nullable String projectId, Supplier<T> step) {
+        return createObservation(operation, projectId).observe(step);
+    }
+
+    /**
+     * Running the asynchronous step in a child span of the current one, which ends when the step completes.
+     * Tasks of the step, which are executed on other threads, should be wrapped by {@link #wrap(Runnable)}.
+     *
+     * @param operation step name
+     * @param projectId project id
+     * @param step      step, returning its completion
+     * @return step completion
+     */
+    public <T> CompletableFuture<T> traceAsync(String operation,
+                                               @Nullable String projectId,
+                                               Supplier<CompletableFuture<T>> step) {
+        Observation observation = createObservation(operation, projectId).start();
+        CompletableFuture<T> future;
+        try (Observation.Scope scope = observation.openScope()) {
+            future = step.get();
+        } catch (RuntimeException e) {
+            observation.error(e);
+            observation.stop();
+            throw e;
+        }
+        return future.whenComplete((T result, Throwable error) -> {
+            if (error != null) {
+                observation.error(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            }
+            observation.stop();
+        });
+    }
+
+    /**
+     * Wrapping the task, so it runs in the current span on whatever thread it is executed.
+     *
+     * @param task task
+     * @return wrapped task
+     */
+    public Runnable wrap(Runnable task) {
+        Observation observation = observationRegistry.getCurrentObservation();
+        return observation != null ? observation.wrap(task) : task;
+    }
+
+    /**
+     * Running the step without result in a child span of the current one.
+     *
+     * @param operation step name
+     * @param projectId project id
+     * @param step      step
+     */
+    public void trace(String operation, @Nullable String projectId, Runnable step) {
+        trace(operation, projectId, () -> {
+            step.run();
+            return null;
+        });
+    }
+
+    /**
+     * Adding an event to the current span.
+     *
+     * @param name event name
+     */
+    public void event(String name) {
+        Observation observation = observationRegistry.getCurrentObservation();
+        if (observation != null) {
+            observation.event(Observation.Event.of(name));
+        }
+    }
+
+    private Observation createObservation(String operation, @Nullable String projectId) {
+        return Observation.createNotStarted(OPERATIONS_OBSERVATION, observationRegistry)
+                .contextualName(operation)
+                .lowCardinalityKeyValue(OPERATION_TAG, operation)
+                .lowCardinalityKeyValue(PROJECT_TAG, projectId != null ? projectId : NONE_TAG_VALUE);
+    }
+}
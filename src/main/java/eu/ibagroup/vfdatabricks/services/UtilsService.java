@@ -20,6 +20,7 @@
 package eu.ibagroup.vfdatabricks.services;
 
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.JobLogDto;
+import eu.ibagroup.vfdatabricks.services.jfr.LogParseEvent;
 import io.fabric8.kubernetes.client.ResourceNotFoundException;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
@@ -38,6 +39,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.regex.Matcher;
 
@@ -94,6 +96,17 @@ public class UtilsService {
         return new HttpEntity<>(body, headers);
     }
 
+    /**
+     * Creating idempotency key for the records of a single run.
+     *
+     * @param jobId job id
+     * @param runId Databricks run id
+     * @return idempotency key
+     */
+    static String getIdempotencyKey(String jobId, long runId) {
+        return String.format("%s-%d", jobId, runId);
+    }
+
     static String toFormattedString(long millis) {
         return DATE_TIME_FORMATTER.format(
                 ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault())
@@ -113,12 +126,20 @@ public class UtilsService {
     static List<JobLogDto> getParsedLogs(Supplier<String> logSupplier) {
         try {
             String logs = Objects.toString(logSupplier.get(), "");
+            LogParseEvent event = new LogParseEvent();
+            event.begin();
             String[] logItems = logs.split("\n");
             List<JobLogDto> logResults = checkLogItems(logItems);
 
             if (logResults.isEmpty()) {
                 logResults.add(JobLogDto.builder().message(logs).build());
             }
+            if (event.shouldCommit()) {
+                event.setCharacters(logs.length());
+                event.setLines(logItems.length);
+                event.setEntries(logResults.size());
+                event.commit();
+            }
 
             return logResults;
         } catch (ResourceNotFoundException e) {
@@ -126,6 +147,63 @@ public class UtilsService {
             return Collections.emptyList();
         }
     }
+
+    /**
+     * Parsing logs in bounded chunks. Each chunk is handed to the consumer as soon as it is full,
+     * so the whole parsed log never has to be kept in memory at once.
+     *
+     * @param logs          raw log text
+     * @param chunkSize     max number of entries per chunk
+     * @param chunkConsumer consumer of parsed chunks
+     * @return total number of parsed entries
+     */
+    static int parseLogsInChunks(String logs, int chunkSize, Consumer<List<JobLogDto>> chunkConsumer) {
+        String text = Objects.toString(logs, "");
+        List<JobLogDto> chunk = new ArrayList<>(chunkSize);
+        int total = 0;
+        Matcher current = null;
+        StringBuilder message = null;
+        int start = 0;
+        while (start < text.length()) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) {
+                end = text.length();
+            }
+            String logItem = text.substring(start, end);
+            Matcher matcher = LOG_PATTERN.matcher(logItem);
+            if (matcher.matches()) {
+                if (current != null) {
+                    chunk.add(toLogEntry(current, message));
+                    total++;
+                    if (chunk.size() >= chunkSize) {
+                        chunkConsumer.accept(chunk);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                current = matcher;
+                message = new StringBuilder(matcher.group(JobLogDto.MESSAGE_GROUP_INDEX));
+            } else if (current != null) {
+                message.append('\n').append(logItem);
+            }
+            start = end + 1;
+        }
+        if (current != null) {
+            chunk.add(toLogEntry(current, message));
+        } else {
+            chunk.add(JobLogDto.builder().message(text).build());
+        }
+        chunkConsumer.accept(chunk);
+        return total + 1;
+    }
+
+    private static JobLogDto toLogEntry(Matcher matcher, StringBuilder message) {
+        return JobLogDto.builder()
+                .timestamp(matcher.group(JobLogDto.TIMESTAMP_GROUP_INDEX))
+                .level(matcher.group(JobLogDto.LEVEL_GROUP_INDEX))
+                .message(message.toString())
+                .build();
+    }
+
     static List<JobLogDto> checkLogItems(String[] logItems) {
         List<JobLogDto> logResults = new ArrayList<>();
         int logIndex = 0;
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2021 IBA Group, a.s. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.ibagroup.vfdatabricks.services.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Upload of a file to the Databricks workspace.
+ */
+@Name("eu.ibagroup.vfdatabricks.FileUpload")
+@Label("File Upload")
+@Category("Visual Flow")
+@Description("Upload of a file to the Databricks workspace")
+@StackTrace(false)
+@Setter
+public class FileUploadEvent extends Event {
+    @Label("Project")
+    private String projectId;
+
+    @Label("File Name")
+    private String fileName;
+
+    @Label("Size")
+    @DataAmount
+    private long bytes;
+
+    @Label("Status Code")
+    private int statusCode;
+}
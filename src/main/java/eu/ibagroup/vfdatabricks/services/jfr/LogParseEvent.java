@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2021 IBA Group, a.s. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.ibagroup.vfdatabricks.services.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Parsing of raw Databricks logs into log entries.
+ */
+@Name("eu.ibagroup.vfdatabricks.LogParse")
+@Label("Log Parse")
+@Category("Visual Flow")
+@Description("Parsing of raw Databricks logs into log entries")
+@StackTrace(false)
+@Setter
+public class LogParseEvent extends Event {
+    @Label("Characters")
+    @Description("Length of the raw log text")
+    private long characters;
+
+    @Label("Lines")
+    private int lines;
+
+    @Label("Entries")
+    private int entries;
+}
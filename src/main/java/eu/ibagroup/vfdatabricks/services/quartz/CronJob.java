@@ -19,28 +19,72 @@
 
 package eu.ibagroup.vfdatabricks.services.quartz;
 
-import eu.ibagroup.vfdatabricks.services.PipelineService;
+import eu.ibagroup.vfdatabricks.dto.pipelines.CronOverlapPolicy;
+import eu.ibagroup.vfdatabricks.services.CronDispatchService;
+import eu.ibagroup.vfdatabricks.services.SchedulerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
 import org.quartz.JobKey;
 import org.quartz.PersistJobDataAfterExecution;
 import org.springframework.scheduling.quartz.QuartzJobBean;
 
+import java.util.concurrent.TimeUnit;
+
+import static eu.ibagroup.vfdatabricks.dto.Constants.CRON_DEFERRED;
+import static eu.ibagroup.vfdatabricks.dto.Constants.CRON_JITTER_SECONDS;
+import static eu.ibagroup.vfdatabricks.dto.Constants.CRON_OVERLAP_POLICY;
+
+/**
+ * Quartz job running a scheduled pipeline.
+ * A run fired by the cron trigger is first shifted by the jitter of the pipeline, if any.
+ * If the previous run is still active, the overlap policy of the pipeline decides whether the run is skipped,
+ * postponed or started after cancelling the previous one.
+ * Delayed runs are separate one-shot triggers, so no Quartz thread is blocked while waiting,
+ * and runs are started by {@link CronDispatchService}, so no Quartz thread is blocked while compiling.
+ */
 @Slf4j
 @RequiredArgsConstructor
 @PersistJobDataAfterExecution
 public class CronJob extends QuartzJobBean {
-    private final PipelineService pipelineService;
+    private final CronDispatchService cronDispatchService;
+    private final SchedulerService schedulerService;
+
+    /**
+     * Getting the delay of scheduled runs of the pipeline.
+     * The delay is derived from the pipeline identity, so it is the same on each run and on each replica.
+     *
+     * @param projectId     project id
+     * @param pipelineId    pipeline id
+     * @param jitterSeconds max delay in seconds
+     * @return delay in millis
+     */
+    static long getJitterMillis(String projectId, String pipelineId, int jitterSeconds) {
+        return Math.floorMod((projectId + "/" + pipelineId).hashCode(), TimeUnit.SECONDS.toMillis(jitterSeconds));
+    }
 
     @Override
-    protected void executeInternal(org.quartz.JobExecutionContext context) {
-        JobDataMap dataMap = context.getJobDetail().getJobDataMap();
+    protected void executeInternal(JobExecutionContext context) {
+        JobDataMap dataMap = context.getMergedJobDataMap();
         JobKey key = context.getJobDetail().getKey();
-        LOGGER.info("Executing job {}", key);
         String projectId = dataMap.getString("projectId");
         String pipelineId = dataMap.getString("pipelineId");
-        pipelineService.run(projectId, pipelineId);
+        cronDispatchService.recordFireLag(projectId, context.getScheduledFireTime(), context.getFireTime());
+        boolean deferred = dataMap.containsKey(CRON_DEFERRED);
+        int jitterSeconds = dataMap.containsKey(CRON_JITTER_SECONDS) ? dataMap.getIntValue(CRON_JITTER_SECONDS) : 0;
+        if (!deferred && jitterSeconds > 0) {
+            long jitterMillis = getJitterMillis(projectId, pipelineId, jitterSeconds);
+            if (jitterMillis > 0) {
+                schedulerService.deferRun(projectId, pipelineId, jitterMillis, context.getTrigger().getKey());
+                return;
+            }
+        }
+        LOGGER.info("Executing job {}", key);
+        CronOverlapPolicy overlapPolicy = dataMap.containsKey(CRON_OVERLAP_POLICY)
+                ? CronOverlapPolicy.valueOf(dataMap.getString(CRON_OVERLAP_POLICY))
+                : CronOverlapPolicy.SKIP;
+        cronDispatchService.dispatch(projectId, pipelineId, overlapPolicy, context.getTrigger().getKey());
     }
 
 }
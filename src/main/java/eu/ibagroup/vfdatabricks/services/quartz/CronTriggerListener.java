@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2021 IBA Group, a.s. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.ibagroup.vfdatabricks.services.quartz;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.quartz.Trigger;
+import org.quartz.listeners.TriggerListenerSupport;
+
+/**
+ * Listener counting misfired triggers of pipeline crons per project.
+ */
+@RequiredArgsConstructor
+public class CronTriggerListener extends TriggerListenerSupport {
+    static final String MISFIRE_METRIC = "vf.cron.misfires";
+    private static final String JOB_GROUP_PREFIX = "JobGroup";
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public String getName() {
+        return "cronMetrics";
+    }
+
+    @Override
+    public void triggerMisfired(Trigger trigger) {
+        String projectId = StringUtils.removeStart(trigger.getJobKey().getGroup(), JOB_GROUP_PREFIX);
+        meterRegistry.counter(MISFIRE_METRIC, "project", projectId).increment();
+    }
+}
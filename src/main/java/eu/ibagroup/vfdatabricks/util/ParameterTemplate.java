@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2021 IBA Group, a.s. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.ibagroup.vfdatabricks.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+import static eu.ibagroup.vfdatabricks.dto.Constants.PARAM_MATCH_PATTERN;
+
+/**
+ * Compiled template with #key# parameter placeholders.
+ * The text is scanned once on compilation and split into literal parts and parameter names,
+ * so rendering is a single pass over the parts with a StringBuilder.
+ * Placeholders of unknown parameters are left as is, substituted values are not scanned again.
+ */
+public final class ParameterTemplate {
+    private final String text;
+    // literal parts at even indexes, parameter names at odd indexes
+    private final String[] parts;
+
+    private ParameterTemplate(String text, String[] parts) {
+        this.text = text;
+        this.parts = parts;
+    }
+
+    /**
+     * Compiling template.
+     *
+     * @param text template text
+     * @return compiled template
+     */
+    public static ParameterTemplate compile(String text) {
+        Matcher matcher = PARAM_MATCH_PATTERN.matcher(text);
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        while (matcher.find()) {
+            parts.add(text.substring(start, matcher.start()));
+            parts.add(matcher.group(1));
+            start = matcher.end();
+        }
+        parts.add(text.substring(start));
+        return new ParameterTemplate(text, parts.toArray(String[]::new));
+    }
+
+    /**
+     * Checking if the template contains any placeholder.
+     *
+     * @return true if there is at least one placeholder
+     */
+    public boolean hasParams() {
+        return parts.length > 1;
+    }
+
+    /**
+     * Substituting placeholders with parameter values.
+     *
+     * @param values parameter values by key
+     * @return substituted text
+     */
+    public String render(Map<String, String> values) {
+        if (!hasParams()) {
+            return text;
+        }
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < parts.length; i++) {
+            if (i % 2 == 0) {
+                result.append(parts[i]);
+            } else {
+                String value = values.get(parts[i]);
+                if (value != null) {
+                    result.append(value);
+                } else {
+                    result.append('#').append(parts[i]).append('#');
+                }
+            }
+        }
+        return result.toString();
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
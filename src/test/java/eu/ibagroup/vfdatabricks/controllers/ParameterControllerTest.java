@@ -127,4 +127,38 @@ public class ParameterControllerTest {
 
         verify(parameterService).delete(anyString(), anyString());
     }
+
+    @Test
+    void testUpdateAll() throws JsonProcessingException {
+        List<ParameterDto> parameterDtos = List.of(ParameterDto
+                .builder()
+                .key("key")
+                .secret(false)
+                .value(ParameterValue.builder().build())
+                .build());
+        ResponseEntity<Void> response = parameterController.updateAll("projectId", parameterDtos);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Status must be OK");
+
+        verify(parameterService).createAll("projectId", parameterDtos);
+    }
+
+    @Test
+    void testDeleteAll() {
+        ResponseEntity<Void> response = parameterController.deleteAll("projectId", List.of("key1", "key2"));
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode(), "Status must be NO_CONTENT");
+
+        verify(parameterService).deleteAll("projectId", List.of("key1", "key2"));
+    }
+
+    @Test
+    void testReconcileSecrets() {
+        when(parameterService.reconcileSecrets("projectId")).thenReturn(2);
+
+        ResponseEntity<Integer> response = parameterController.reconcileSecrets("projectId");
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode(), "Status must be ACCEPTED");
+        assertEquals(2, response.getBody(), "Body must be equal to number of operations");
+    }
 }
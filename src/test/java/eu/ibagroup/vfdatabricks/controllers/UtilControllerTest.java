@@ -41,8 +41,17 @@ public class UtilControllerTest {
     void testGetClusterConfigFields() {
         when(databricksAPIService.getDatabricksClusterConfigFields("projectId")).thenReturn(Map.of());
 
-        assertEquals(Map.of(), utilController.getClusterConfigFields("projectId"));
+        assertEquals(Map.of(), utilController.getClusterConfigFields("projectId", false));
 
         verify(databricksAPIService).getDatabricksClusterConfigFields(anyString());
     }
+
+    @Test
+    void testRefreshClusterConfigFields() {
+        when(databricksAPIService.refreshDatabricksClusterConfigFields("projectId")).thenReturn(Map.of());
+
+        assertEquals(Map.of(), utilController.getClusterConfigFields("projectId", true));
+
+        verify(databricksAPIService).refreshDatabricksClusterConfigFields("projectId");
+    }
 }
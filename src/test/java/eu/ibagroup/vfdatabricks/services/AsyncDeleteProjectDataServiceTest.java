@@ -12,7 +12,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
-import org.springframework.data.redis.core.HashOperations;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ContextConfiguration;
@@ -20,12 +19,12 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.List;
-import java.util.Map;
 
 import static eu.ibagroup.vfdatabricks.dto.Constants.CONTEXT_PATH;
 import static eu.ibagroup.vfdatabricks.dto.Constants.JOB_STORAGE_API;
-import static org.mockito.ArgumentMatchers.any;
+import static eu.ibagroup.vfdatabricks.dto.Constants.PARAMETER_CACHE_CHANNEL;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -40,8 +39,6 @@ public class AsyncDeleteProjectDataServiceTest {
     @Autowired
     private ApplicationConfigurationProperties appProperties;
     private AsyncDeleteProjectDataService asyncDeleteProjectDataService;
-    @Mock
-    private HashOperations hashOperations;
 
     @BeforeEach
     void setUp() {
@@ -58,10 +55,10 @@ public class AsyncDeleteProjectDataServiceTest {
                                 "projectId")),
                         eq(JobOverviewListDto.class)))
                 .thenReturn(ResponseEntity.ok(JobOverviewListDto.builder().jobs(List.of(JobOverviewDto.builder().status("Pending").build())).build()));
-        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
-        when(hashOperations.entries(any())).thenReturn(Map.of("123", "json"));
-        when(hashOperations.delete(any(), any())).thenReturn(1L);
+        when(redisTemplate.delete("projectParams:projectId")).thenReturn(true);
         asyncDeleteProjectDataService.deleteProjectData("projectId");
-        verify(hashOperations).delete(any(), any());
+        verify(redisTemplate).delete("projectParams:projectId");
+        verify(redisTemplate).convertAndSend(PARAMETER_CACHE_CHANNEL, "projectId");
+        verify(redisTemplate, never()).opsForHash();
     }
 }
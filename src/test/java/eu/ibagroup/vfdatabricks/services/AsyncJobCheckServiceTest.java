@@ -3,6 +3,11 @@ package eu.ibagroup.vfdatabricks.services;
 import eu.ibagroup.vfdatabricks.dto.jobs.CommonDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobRunDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobState;
+import eu.ibagroup.vfdatabricks.exceptions.WorkspaceUnavailableException;
+import eu.ibagroup.vfdatabricks.services.jfr.JobStatusCheckEvent;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,7 +15,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
@@ -18,6 +27,7 @@ import static eu.ibagroup.vfdatabricks.services.UtilsService.toFormattedString;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 
@@ -60,4 +70,46 @@ public class AsyncJobCheckServiceTest {
 
         ));
     }
+
+    @Test
+    void testCheckAndUpdateStatusKeepsStatusOfUnavailableWorkspace() throws InterruptedException, ExecutionException {
+        CommonDto dto = CommonDto.builder()
+                .runId(123L)
+                .status("Running")
+                .build();
+        when(databricksApiService.checkJobStatus(anyString(), anyLong()))
+                .thenThrow(new WorkspaceUnavailableException("Databricks workspace is unavailable"));
+
+        CompletableFuture<DatabricksJobRunDto> actual = asyncJobCheckService.checkAndUpdateStatus(PROJECT_ID, dto);
+        assertNull(actual.get());
+        assertEquals("Running", dto.getStatus());
+    }
+
+    @Test
+    void testCheckAndUpdateStatusRecordsEvent() throws IOException {
+        CommonDto dto = CommonDto.builder().runId(123L).status("Pending").build();
+        when(databricksApiService.checkJobStatus(anyString(), anyLong()))
+                .thenReturn(DatabricksJobRunDto.builder()
+                        .startTime(Instant.parse("2024-05-22T10:14:00.000z").toEpochMilli())
+                        .state(DatabricksJobState.builder().build())
+                        .build());
+        when(mapperService.mapStatus(any())).thenReturn("Running");
+        Path file = Files.createTempFile("job-status-check", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(JobStatusCheckEvent.class);
+            recording.start();
+            asyncJobCheckService.checkAndUpdateStatus(PROJECT_ID, dto);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+
+        assertEquals(1, events.size());
+        assertEquals(PROJECT_ID, events.get(0).getString("projectId"));
+        assertEquals(123L, events.get(0).getLong("runId"));
+        assertEquals("Pending", events.get(0).getString("previousStatus"));
+        assertEquals("Running", events.get(0).getString("status"));
+    }
 }
@@ -0,0 +1,183 @@
+package eu.ibagroup.vfdatabricks.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
+import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobClusterDto;
+import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobLogDto;
+import eu.ibagroup.vfdatabricks.dto.jobs.databricks.JobLogDto;
+import eu.ibagroup.vfdatabricks.services.DatabricksRateLimiter.Priority;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static eu.ibagroup.vfdatabricks.dto.Constants.IDEMPOTENCY_KEY_HEADER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncJobLogArchiveServiceTest {
+    private static final String PROJECT_ID = "vf-project-name";
+    private static final String JOB_ID = "test-job";
+    private static final String CREATE_URL = "https://localhost:9990/vf/be/history/api/databricks/history/job/test-job/log";
+    private static final String APPEND_URL = CREATE_URL + "/logId";
+    private static final String LOGS = "24/05/29 05:29:21 INFO first\n" +
+            "24/05/29 05:29:22 ERROR second\n" +
+            "\tat stack.trace.Line\n" +
+            "24/05/29 05:29:23 INFO third\n" +
+            "24/05/29 05:29:24 INFO fourth\n" +
+            "24/05/29 05:29:25 INFO fifth\n";
+
+    @Mock
+    private DatabricksAPIService databricksApiService;
+    @Mock
+    private RestTemplate restTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ApplicationConfigurationProperties.HistoryService historyService;
+    private AsyncJobLogArchiveService archiveService;
+
+    @BeforeEach
+    void setUp() {
+        historyService = new ApplicationConfigurationProperties.HistoryService();
+        historyService.setHost("https://localhost:9990");
+        historyService.setLogChunkSize(2);
+        ApplicationConfigurationProperties appProperties = new ApplicationConfigurationProperties();
+        appProperties.setHistoryService(historyService);
+        archiveService = new AsyncJobLogArchiveService(databricksApiService, restTemplate, appProperties,
+                objectMapper);
+    }
+
+    @Test
+    void testArchiveLogsSendsAllLogsInOneRequest() {
+        when(restTemplate.postForEntity(eq(CREATE_URL), any(), eq(String.class)))
+                .thenReturn(ResponseEntity.ok("logId"));
+
+        assertEquals("logId", archiveService.archiveLogs(JOB_ID, 123L, LOGS));
+
+        ArgumentCaptor<HttpEntity<List<JobLogDto>>> captor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate).postForEntity(eq(CREATE_URL), captor.capture(), eq(String.class));
+        verifyNoMoreInteractions(restTemplate);
+        HttpEntity<List<JobLogDto>> entity = captor.getValue();
+        assertNull(entity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("test-job-123", entity.getHeaders().getFirst(IDEMPOTENCY_KEY_HEADER));
+        assertEquals(5, entity.getBody().size());
+        assertEquals("second\n\tat stack.trace.Line", entity.getBody().get(1).getMessage());
+    }
+
+    @Test
+    void testArchiveLogsSendsCompressedChunks() throws IOException {
+        historyService.setChunkedLogs(true);
+        when(restTemplate.postForEntity(eq(CREATE_URL), any(), eq(String.class)))
+                .thenReturn(ResponseEntity.ok("logId"));
+
+        assertEquals("logId", archiveService.archiveLogs(JOB_ID, 123L, LOGS));
+
+        ArgumentCaptor<HttpEntity<byte[]>> captor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate).postForEntity(eq(CREATE_URL), captor.capture(), eq(String.class));
+        verify(restTemplate, times(2)).postForEntity(eq(APPEND_URL), captor.capture(), eq(String.class));
+
+        assertEquals("test-job-123", captor.getAllValues().get(0).getHeaders().getFirst(IDEMPOTENCY_KEY_HEADER));
+        assertNull(captor.getAllValues().get(1).getHeaders().getFirst(IDEMPOTENCY_KEY_HEADER));
+        List<JobLogDto> archived = new ArrayList<>();
+        for (HttpEntity<byte[]> entity : captor.getAllValues()) {
+            assertEquals("gzip", entity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+            JsonNode chunk = decompress(entity.getBody());
+            chunk.forEach(node -> archived.add(JobLogDto.builder()
+                    .level(node.get("level").asText())
+                    .message(node.get("message").asText())
+                    .build()));
+        }
+        assertEquals(5, archived.size());
+        assertEquals("second\n\tat stack.trace.Line", archived.get(1).getMessage());
+        assertEquals("fifth", archived.get(4).getMessage());
+    }
+
+    @Test
+    void testArchiveLogsContinuesAfterFailedChunk() {
+        historyService.setChunkedLogs(true);
+        when(restTemplate.postForEntity(eq(CREATE_URL), any(), eq(String.class)))
+                .thenReturn(ResponseEntity.ok("logId"));
+        when(restTemplate.postForEntity(eq(APPEND_URL), any(), eq(String.class)))
+                .thenThrow(new ResourceAccessException("timeout"))
+                .thenReturn(ResponseEntity.ok("logId"));
+
+        assertEquals("logId", archiveService.archiveLogs(JOB_ID, 123L, LOGS));
+
+        verify(restTemplate).postForEntity(eq(CREATE_URL), any(), eq(String.class));
+        verify(restTemplate, times(2)).postForEntity(eq(APPEND_URL), any(), eq(String.class));
+    }
+
+    @Test
+    void testArchiveLogsFailsWhenLogRecordIsNotCreated() {
+        historyService.setChunkedLogs(true);
+        when(restTemplate.postForEntity(eq(CREATE_URL), any(), eq(String.class)))
+                .thenThrow(new ResourceAccessException("timeout"));
+
+        assertThrows(ResourceAccessException.class, () -> archiveService.archiveLogs(JOB_ID, 123L, LOGS));
+        verify(restTemplate).postForEntity(eq(CREATE_URL), any(), eq(String.class));
+        verify(restTemplate, never()).postForEntity(eq(APPEND_URL), any(), eq(String.class));
+    }
+
+    @Test
+    void testArchiveLogsFailsWhenRequestFailed() {
+        when(restTemplate.postForEntity(eq(CREATE_URL), any(), eq(String.class)))
+                .thenThrow(new ResourceAccessException("timeout"));
+
+        assertThrows(ResourceAccessException.class, () -> archiveService.archiveLogs(JOB_ID, 123L, LOGS));
+    }
+
+    @Test
+    void testArchiveJobLogs() {
+        when(databricksApiService.getClusterInfo(PROJECT_ID, 123L, Priority.BACKGROUND))
+                .thenReturn(DatabricksJobClusterDto.builder()
+                        .tasks(List.of(DatabricksJobClusterDto.Task.builder()
+                                .clusterInstance(DatabricksJobClusterDto.ClusterInstance.builder()
+                                        .clusterId("clusterId")
+                                        .build())
+                                .build()))
+                        .build());
+        when(databricksApiService.getJobLogs(PROJECT_ID, "clusterId", Priority.BACKGROUND))
+                .thenReturn(DatabricksJobLogDto.builder()
+                        .data(Base64.getEncoder().encodeToString(LOGS.getBytes(StandardCharsets.UTF_8)))
+                        .build());
+        when(restTemplate.postForEntity(eq(CREATE_URL), any(), eq(String.class)))
+                .thenReturn(ResponseEntity.ok("logId"));
+
+        assertEquals("logId", archiveService.archiveJobLogs(PROJECT_ID, JOB_ID, 123L).join());
+    }
+
+    @Test
+    void testParseLogsInChunksWithoutPattern() {
+        List<List<JobLogDto>> chunks = new ArrayList<>();
+
+        assertEquals(1, UtilsService.parseLogsInChunks("plain text", 2, chunks::add));
+        assertEquals(1, chunks.size());
+        assertEquals("plain text", chunks.get(0).get(0).getMessage());
+    }
+
+    private JsonNode decompress(byte[] bytes) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return objectMapper.readTree(gzip);
+        }
+    }
+}
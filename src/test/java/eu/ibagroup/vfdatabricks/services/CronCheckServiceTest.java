@@ -9,8 +9,10 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Collections;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
@@ -30,14 +32,27 @@ public class CronCheckServiceTest {
         PipelineOverviewDto pipelineOverviewDto = new PipelineOverviewDto();
         pipelineOverviewDto.setId("pipeline1");
         CronPipelineDto cronPipelineDto = new CronPipelineDto();
+        cronPipelineDto.setSchedule("0/5 * * * *");
         cronPipelineDto.setSuspend(true);
 
-        when(schedulerService.getCron(projectId, "pipeline1")).thenReturn(cronPipelineDto);
-        when(schedulerService.exists(projectId, "pipeline1")).thenReturn(CompletableFuture.completedFuture(true));
+        when(schedulerService.getCrons(projectId)).thenReturn(Map.of("pipeline1", cronPipelineDto));
         cronCheckService.checkAndUpdateCron(projectId, Collections.singleton(pipelineOverviewDto));
 
         assertTrue(pipelineOverviewDto.isCron());
         assertTrue(pipelineOverviewDto.isCronSuspend());
+        assertEquals("0/5 * * * *", pipelineOverviewDto.getCronExpression());
+    }
+
+    @Test
+    public void testUpdateCronDetailsNotExists() {
+        String projectId = "project1";
+        PipelineOverviewDto pipelineOverviewDto = new PipelineOverviewDto();
+        pipelineOverviewDto.setId("pipeline1");
+
+        when(schedulerService.getCrons(projectId)).thenReturn(Map.of());
+        cronCheckService.checkAndUpdateCron(projectId, Collections.singleton(pipelineOverviewDto));
+
+        assertFalse(pipelineOverviewDto.isCron());
     }
 
 }
\ No newline at end of file
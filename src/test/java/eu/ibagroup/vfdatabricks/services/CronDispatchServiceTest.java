@@ -0,0 +1,98 @@
+package eu.ibagroup.vfdatabricks.services;
+
+import eu.ibagroup.vfdatabricks.dto.pipelines.CronOverlapPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.quartz.TriggerKey;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CronDispatchServiceTest {
+    private static final String PROJECT_ID = "project1";
+    private static final String PIPELINE_ID = "pipeline1";
+    private static final TriggerKey TRIGGER_KEY = TriggerKey.triggerKey("trigger");
+
+    @Mock
+    private PipelineService pipelineService;
+    @Mock
+    private SchedulerService schedulerService;
+    @Mock
+    private ThreadPoolTaskExecutor executor;
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Runnable> tasks = new ArrayList<>();
+    private CronDispatchService cronDispatchService;
+
+    @BeforeEach
+    void setUp() {
+        cronDispatchService = new CronDispatchService(pipelineService, schedulerService, executor, meterRegistry);
+    }
+
+    @Test
+    void testDispatchShouldRunPipelineOnExecutor() {
+        doAnswer(invocation -> tasks.add(invocation.getArgument(0))).when(executor).execute(any(Runnable.class));
+        when(pipelineService.runScheduled(PROJECT_ID, PIPELINE_ID, CronOverlapPolicy.SKIP)).thenReturn(true);
+
+        cronDispatchService.dispatch(PROJECT_ID, PIPELINE_ID, CronOverlapPolicy.SKIP, TRIGGER_KEY);
+
+        verifyNoInteractions(pipelineService);
+        assertEquals(1.0, meterRegistry.get(CronDispatchService.QUEUE_DEPTH_METRIC).tag("project", PROJECT_ID)
+                .gauge().value());
+
+        tasks.forEach(Runnable::run);
+
+        verify(pipelineService).runScheduled(PROJECT_ID, PIPELINE_ID, CronOverlapPolicy.SKIP);
+        assertEquals(0.0, meterRegistry.get(CronDispatchService.QUEUE_DEPTH_METRIC).tag("project", PROJECT_ID)
+                .gauge().value());
+        assertEquals(1, meterRegistry.get(CronDispatchService.SUBMIT_METRIC).tag("result", "started")
+                .timer().count());
+    }
+
+    @Test
+    void testDispatchShouldQueueRunWhenPreviousIsActive() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+        when(pipelineService.runScheduled(PROJECT_ID, PIPELINE_ID, CronOverlapPolicy.QUEUE)).thenReturn(false);
+
+        cronDispatchService.dispatch(PROJECT_ID, PIPELINE_ID, CronOverlapPolicy.QUEUE, TRIGGER_KEY);
+
+        verify(schedulerService).deferRun(PROJECT_ID, PIPELINE_ID, 60_000L, TRIGGER_KEY);
+        assertEquals(1, meterRegistry.get(CronDispatchService.SUBMIT_METRIC).tag("result", "queued")
+                .timer().count());
+    }
+
+    @Test
+    void testDispatchShouldDeferRunWhenQueueIsFull() {
+        doThrow(new TaskRejectedException("full")).when(executor).execute(any(Runnable.class));
+
+        cronDispatchService.dispatch(PROJECT_ID, PIPELINE_ID, CronOverlapPolicy.SKIP, TRIGGER_KEY);
+
+        verify(schedulerService).deferRun(PROJECT_ID, PIPELINE_ID, 60_000L, TRIGGER_KEY);
+        assertEquals(1.0, meterRegistry.get(CronDispatchService.REJECTED_METRIC).counter().count());
+        assertEquals(0.0, meterRegistry.get(CronDispatchService.QUEUE_DEPTH_METRIC).gauge().value());
+    }
+
+    @Test
+    void testRecordFireLag() {
+        cronDispatchService.recordFireLag(PROJECT_ID, new Date(1000L), new Date(1500L));
+
+        assertEquals(500.0, meterRegistry.get(CronDispatchService.FIRE_LAG_METRIC).tag("project", PROJECT_ID)
+                .timer().totalTime(TimeUnit.MILLISECONDS));
+    }
+}
@@ -3,9 +3,11 @@ package eu.ibagroup.vfdatabricks.services;
 import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
 import eu.ibagroup.vfdatabricks.dto.connections.ConnectionDto;
 import eu.ibagroup.vfdatabricks.dto.databases.PingStatusDto;
-import eu.ibagroup.vfdatabricks.dto.parameters.ParameterDto;
-import eu.ibagroup.vfdatabricks.dto.parameters.ParameterOverviewDto;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
 import eu.ibagroup.vfdatabricks.dto.parameters.ParameterValue;
+import eu.ibagroup.vfdatabricks.model.Parameter;
+import eu.ibagroup.vfdatabricks.util.ParameterTemplate;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,7 +23,6 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -44,7 +45,9 @@ public class DatabasesServiceTest {
 
     @BeforeEach
     public void setUp() {
-        databasesService = new DatabasesService(connectionService, parameterService,
+        databasesService = new DatabasesService(connectionService,
+                new ParameterTemplateService(parameterService, CacheBuilder.newBuilder()
+                        .build(CacheLoader.from(ParameterTemplate::compile))),
                 restTemplate, appProperties);
     }
 
@@ -53,19 +56,20 @@ public class DatabasesServiceTest {
     public void testGetConnection() {
         String projectId = "test";
         String connectionName = "con";
-        Map<String, String> connectionVals = Map.of("db", "#db#");
-        ParameterDto paramDto = ParameterDto.builder().key("db").value(ParameterValue.builder()
+        Map<String, String> connectionVals = Map.of("db", "#db#", "url", "jdbc://#host#:#port#/#db#");
+        Parameter db = Parameter.builder().key("db").value(ParameterValue.builder()
                 .text("value")
                 .build()).secret(false).build();
-        ParameterOverviewDto mockParam = mock(ParameterOverviewDto.class);
-        when(parameterService.getAll(projectId)).thenReturn(mockParam);
-        when(mockParam.getParams()).thenReturn(List.of(paramDto));
+        Parameter host = Parameter.builder().key("host").value(ParameterValue.builder()
+                .text("#db#")
+                .build()).secret(false).build();
+        when(parameterService.getParameters(projectId)).thenReturn(Map.of("db", db, "host", host));
         ConnectionDto connectDto = ConnectionDto.builder().key("db2")
                 .value(connectionVals).build();
         when(connectionService.get(projectId, connectionName)).thenReturn(connectDto);
         ConnectionDto result = databasesService.getConnection(projectId, connectionName);
-        assertEquals(connectDto.getValue(), result.getValue(),
-                "The expected connection should be equal to actual one!");
+        assertEquals(Map.of("db", "value", "url", "jdbc://#db#:#port#/value"), result.getValue(),
+                "Known params should be substituted once, unknown ones should be kept");
     }
 
     @Test
@@ -9,8 +9,11 @@ import eu.ibagroup.vfdatabricks.dto.jobs.databricks.*;
 import eu.ibagroup.vfdatabricks.dto.parameters.ParameterValue;
 import eu.ibagroup.vfdatabricks.dto.pipelines.PipelineParams;
 import eu.ibagroup.vfdatabricks.exceptions.ForRetryRestTemplateException;
+import eu.ibagroup.vfdatabricks.exceptions.WorkspaceUnavailableException;
 import eu.ibagroup.vfdatabricks.model.Parameter;
 import io.fabric8.kubernetes.api.model.Secret;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -27,10 +30,18 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static eu.ibagroup.vfdatabricks.dto.Constants.DATABRICKS_JOBS_API_20;
 import static eu.ibagroup.vfdatabricks.services.UtilsService.decodeFromBase64;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -68,8 +79,12 @@ class DatabricksAPIServiceTest {
         map.put("host", Base64.getEncoder().encodeToString("host".getBytes()));
         map.put("cloud", Base64.getEncoder().encodeToString("AWS".getBytes()));
         map.put("authType", Base64.getEncoder().encodeToString("PAT".getBytes()));
-        when(secret.getData()).thenReturn(map);
-        databricksApiService = new DatabricksAPIService(kubernetesService, databricksRestTemplate, appProperties, tokenCache);
+        lenient().when(secret.getData()).thenReturn(map);
+        databricksApiService = new DatabricksAPIService(kubernetesService, databricksRestTemplate, appProperties, tokenCache,
+                Runnable::run, Runnable::run, Runnable::run,
+                new MetricsService(new SimpleMeterRegistry(), appProperties),
+                new TracingService(ObservationRegistry.NOOP), new DatabricksRateLimiter(appProperties),
+                new DatabricksCircuitBreaker(appProperties));
     }
 
     @Test
@@ -105,6 +120,127 @@ class DatabricksAPIServiceTest {
         verify(databricksRestTemplate, times(2)).exchange(eq("host/api/2.1/jobs/runs/submit"), eq(HttpMethod.POST), any(), eq(DatabricksRunIdDto.class));
     }
 
+    @Test
+    void shouldScheduleRunJobUntilRatePermitIsAvailable() {
+        DatabricksRateLimiter rateLimiter = mock(DatabricksRateLimiter.class);
+        when(rateLimiter.tryAcquire("host", DatabricksRateLimiter.Priority.INTERACTIVE)).thenReturn(50L, 0L);
+        databricksApiService = new DatabricksAPIService(kubernetesService, databricksRestTemplate, appProperties,
+                tokenCache, Runnable::run, Runnable::run, Runnable::run,
+                new MetricsService(new SimpleMeterRegistry(), appProperties),
+                new TracingService(ObservationRegistry.NOOP), rateLimiter, new DatabricksCircuitBreaker(appProperties));
+        DatabricksJobStorageRunDto body = new DatabricksJobStorageRunDto();
+        when(kubernetesService.getSecret(anyString())).thenReturn(secret);
+        DatabricksRunIdDto expected = new DatabricksRunIdDto();
+        when(databricksRestTemplate.exchange(anyString(), eq(HttpMethod.POST), any(), eq(DatabricksRunIdDto.class)))
+                .thenReturn(ResponseEntity.ok(expected));
+        JobParams params = new JobParams();
+        params.setIntervals("5");
+        params.setUpTo("10");
+
+        DatabricksRunIdDto result = databricksApiService.runJob("projectId", body, params).join();
+
+        assertEquals(expected, result);
+        verify(rateLimiter, times(2)).tryAcquire("host", DatabricksRateLimiter.Priority.INTERACTIVE);
+        verify(databricksRestTemplate).exchange(eq("host/api/2.1/jobs/runs/submit"), eq(HttpMethod.POST), any(), eq(DatabricksRunIdDto.class));
+    }
+
+    @Test
+    void shouldPostponeRunJobRejectedByBusyPool() {
+        AtomicInteger executions = new AtomicInteger();
+        databricksApiService = new DatabricksAPIService(kubernetesService, databricksRestTemplate, appProperties,
+                tokenCache, Runnable::run, Runnable::run, (Runnable task) -> {
+                    if (executions.incrementAndGet() == 1) {
+                        throw new RejectedExecutionException("Busy");
+                    }
+                    task.run();
+                }, new MetricsService(new SimpleMeterRegistry(), appProperties),
+                new TracingService(ObservationRegistry.NOOP), new DatabricksRateLimiter(appProperties),
+                new DatabricksCircuitBreaker(appProperties));
+        DatabricksJobStorageRunDto body = new DatabricksJobStorageRunDto();
+        when(kubernetesService.getSecret(anyString())).thenReturn(secret);
+        DatabricksRunIdDto expected = new DatabricksRunIdDto();
+        when(databricksRestTemplate.exchange(anyString(), eq(HttpMethod.POST), any(), eq(DatabricksRunIdDto.class)))
+                .thenReturn(ResponseEntity.ok(expected));
+        JobParams params = new JobParams();
+        params.setIntervals("1");
+        params.setUpTo("0");
+
+        DatabricksRunIdDto result = databricksApiService.runJob("projectId", body, params).join();
+
+        assertEquals(expected, result);
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void shouldNotRetryUnavailableWorkspace() {
+        DatabricksJobStorageRunDto body = new DatabricksJobStorageRunDto();
+        when(kubernetesService.getSecret(anyString())).thenReturn(secret);
+        when(databricksRestTemplate.exchange(anyString(), eq(HttpMethod.POST), any(), eq(DatabricksRunIdDto.class)))
+                .thenThrow(new WorkspaceUnavailableException("message"));
+        PipelineParams params = new PipelineParams();
+        params.setIntervals("5");
+        params.setUpTo("10");
+
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> databricksApiService.runJob("projectId", body, params).join());
+        assertInstanceOf(WorkspaceUnavailableException.class, exception.getCause());
+        verify(databricksRestTemplate).exchange(eq("host/api/2.1/jobs/runs/submit"), eq(HttpMethod.POST), any(), eq(DatabricksRunIdDto.class));
+    }
+
+    @Test
+    void shouldFailRunJobWhenRetryIsOutOfTime() {
+        DatabricksJobStorageRunDto body = new DatabricksJobStorageRunDto();
+        when(kubernetesService.getSecret(anyString())).thenReturn(secret);
+        when(databricksRestTemplate.exchange(anyString(), eq(HttpMethod.POST), any(), eq(DatabricksRunIdDto.class)))
+                .thenThrow(new ForRetryRestTemplateException("message"));
+        PipelineParams params = new PipelineParams();
+        params.setIntervals("1");
+        params.setUpTo("0");
+
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> databricksApiService.runJob("projectId", body, params).join());
+        assertInstanceOf(ForRetryRestTemplateException.class, exception.getCause());
+        verify(databricksRestTemplate).exchange(eq("host/api/2.1/jobs/runs/submit"), eq(HttpMethod.POST), any(), eq(DatabricksRunIdDto.class));
+    }
+
+    @Test
+    void testGetRetryDelayMillis() {
+        for (int attempt = 0; attempt < 5; attempt++) {
+            long backoff = 1000L << attempt;
+            long delay = DatabricksAPIService.getRetryDelayMillis(attempt, 1000L, 0, Long.MAX_VALUE);
+            assertTrue(delay >= backoff / 2 && delay <= backoff, "Delay must be within the backoff");
+        }
+        assertTrue(DatabricksAPIService.getRetryDelayMillis(100, 1000L, 0, Long.MAX_VALUE) <= 1000L << 16,
+                "Backoff must be capped");
+    }
+
+    @Test
+    void testGetRetryDelayMillisLeavesTimeForRetries() {
+        long remainingMillis = 3000;
+        for (int attempt = 0; attempt < 3; attempt++) {
+            long delay = DatabricksAPIService.getRetryDelayMillis(attempt, 1000L, 3, remainingMillis);
+            assertTrue(delay <= remainingMillis / (3 - attempt), "Delay must leave time for the next retries");
+            remainingMillis -= delay;
+        }
+        assertEquals(700, DatabricksAPIService.getRetryDelayMillis(10, 1000L, 3, 700),
+                "Last retry must take the remaining backoff time");
+    }
+
+    @Test
+    void shouldListSecretsSuccessfully() {
+        when(kubernetesService.getSecret(anyString())).thenReturn(secret);
+        when(databricksRestTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), eq(DataBricksSecretListDto.class)))
+                .thenReturn(ResponseEntity.ok(DataBricksSecretListDto.builder()
+                        .secrets(List.of(DataBricksSecretListDto.SecretMetadata.builder().key("param1").build()))
+                        .build()))
+                .thenReturn(ResponseEntity.ok(new DataBricksSecretListDto()));
+
+        assertEquals(List.of("param1"), databricksApiService.listSecrets(PROJECT_ID));
+        assertEquals(List.of(), databricksApiService.listSecrets(PROJECT_ID));
+        verify(databricksRestTemplate, times(2)).exchange(eq("host/api/2.0/secrets/list?scope=vf-project-name"),
+                eq(HttpMethod.GET), any(), eq(DataBricksSecretListDto.class));
+    }
+
     @Test
     void shouldCancelJobSuccessfully() {
         String projectId = "projectId";
@@ -258,7 +394,9 @@ class DatabricksAPIServiceTest {
                 "versions", "versionValue",
                 "node_types", List.of(NodeType.builder().build()),
                 "zones", "zoneValue",
-                "instance_profiles", "instance_profilesValue");
+                "instance_profiles", "instance_profilesValue",
+                "instance_pools", List.of(Map.of("instance_pool_id", "pool")),
+                "clusters", List.of(Map.of("cluster_id", "running", "state", "RUNNING")));
         List<LinkedHashMap<String, String>> policies = new ArrayList<>();
         LinkedHashMap<String, String> mapOfPolicies1 = new LinkedHashMap<>();
         mapOfPolicies1.put("policy_family_id", "job-cluster");
@@ -304,8 +442,102 @@ class DatabricksAPIServiceTest {
                 eq(Map.class)))
                 .thenReturn(ResponseEntity.ok(Map.of("instance_profiles", "instance_profilesValue")));
 
+        when(databricksRestTemplate.exchange(
+                eq(String.format("%s/%s/instance-pools/list", decodeFromBase64(HOST_VALUE), DATABRICKS_JOBS_API_20)),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                eq(Map.class)))
+                .thenReturn(ResponseEntity.ok(Map.of("instance_pools", List.of(Map.of("instance_pool_id", "pool")))));
+
+        when(databricksRestTemplate.exchange(
+                eq(String.format("%s/%s/clusters/list", decodeFromBase64(HOST_VALUE), DATABRICKS_JOBS_API_20)),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                eq(Map.class)))
+                .thenReturn(ResponseEntity.ok(Map.of("clusters", List.of(
+                        Map.of("cluster_id", "running", "state", "RUNNING"),
+                        Map.of("cluster_id", "terminated", "state", "TERMINATED"),
+                        Map.of("cluster_id", "job", "state", "RUNNING", "cluster_source", "JOB")))));
+
         assertEquals(expected,
                 databricksApiService.getDatabricksClusterConfigFields(PROJECT_ID), "Objects must be equals");
+        assertEquals(expected,
+                databricksApiService.getDatabricksClusterConfigFields(PROJECT_ID), "Objects must be equals");
+        verify(databricksRestTemplate, times(1)).exchange(
+                eq(String.format("%s/%s/clusters/spark-versions", decodeFromBase64(HOST_VALUE), DATABRICKS_JOBS_API_20)),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                eq(Map.class));
+
+        assertEquals(expected,
+                databricksApiService.refreshDatabricksClusterConfigFields(PROJECT_ID), "Objects must be equals");
+        verify(databricksRestTemplate, times(2)).exchange(
+                eq(String.format("%s/%s/clusters/spark-versions", decodeFromBase64(HOST_VALUE), DATABRICKS_JOBS_API_20)),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                eq(Map.class));
+        verify(databricksRestTemplate, times(3)).exchange(
+                eq(String.format("%s/%s/clusters/list", decodeFromBase64(HOST_VALUE), DATABRICKS_JOBS_API_20)),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                eq(Map.class));
+    }
+
+    @Test
+    void testGetDatabricksClusterConfigFieldsFailure() {
+        when(kubernetesService.getSecret(PROJECT_ID)).thenReturn(secret);
+        when(databricksRestTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(Map.class)))
+                .thenReturn(ResponseEntity.ok(Map.of()));
+        when(databricksRestTemplate.exchange(
+                eq(String.format("%s/%s/clusters/spark-versions", decodeFromBase64(HOST_VALUE), DATABRICKS_JOBS_API_20)),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                eq(Map.class)))
+                .thenThrow(new ForRetryRestTemplateException("error"));
+        when(databricksRestTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class),
+                eq(NodeTypeList.class)))
+                .thenReturn(ResponseEntity.ok(NodeTypeList.builder().nodeTypes(List.of()).build()));
+
+        assertThrows(ForRetryRestTemplateException.class,
+                () -> databricksApiService.getDatabricksClusterConfigFields(PROJECT_ID));
+    }
+
+    @Test
+    void testReloadsOfMoreProjectsThanThreadsComplete() throws InterruptedException {
+        ExecutorService requestExecutor = Executors.newFixedThreadPool(2);
+        ExecutorService refreshExecutor = Executors.newFixedThreadPool(2);
+        try {
+            databricksApiService = new DatabricksAPIService(kubernetesService, databricksRestTemplate, appProperties,
+                    tokenCache, requestExecutor, refreshExecutor, Runnable::run,
+                    new MetricsService(new SimpleMeterRegistry(), appProperties),
+                    new TracingService(ObservationRegistry.NOOP), new DatabricksRateLimiter(appProperties),
+                    new DatabricksCircuitBreaker(appProperties));
+            AtomicInteger version = new AtomicInteger(1);
+            when(kubernetesService.getSecret(anyString())).thenReturn(secret);
+            when(databricksRestTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class),
+                    eq(Map.class)))
+                    .thenAnswer(invocation -> ResponseEntity.ok(Map.of("policies", List.of(),
+                            "versions", version.get())));
+            when(databricksRestTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class),
+                    eq(NodeTypeList.class)))
+                    .thenReturn(ResponseEntity.ok(NodeTypeList.builder().nodeTypes(List.of()).build()));
+            List<String> projects = List.of("p1", "p2", "p3", "p4", "p5", "p6");
+            projects.forEach(databricksApiService::getDatabricksClusterConfigFields);
+
+            version.set(2);
+            projects.forEach(databricksApiService::reloadDatabricksClusterConfigFields);
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!projects.stream().allMatch(project ->
+                    Integer.valueOf(2).equals(databricksApiService.getDatabricksClusterConfigFields(project)
+                            .get("versions")))) {
+                assertTrue(System.currentTimeMillis() < deadline, "Reloads must not wait for each other");
+                Thread.sleep(10);
+            }
+        } finally {
+            requestExecutor.shutdownNow();
+            refreshExecutor.shutdownNow();
+        }
     }
 
-}
\ No newline at end of file
+}
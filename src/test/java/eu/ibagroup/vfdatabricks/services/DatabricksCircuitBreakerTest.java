@@ -0,0 +1,156 @@
+package eu.ibagroup.vfdatabricks.services;
+
+import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
+import eu.ibagroup.vfdatabricks.exceptions.RateLimitExceededException;
+import eu.ibagroup.vfdatabricks.exceptions.WorkspaceUnavailableException;
+import eu.ibagroup.vfdatabricks.services.DatabricksCircuitBreaker.State;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.client.ExpectedCount.times;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withException;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class DatabricksCircuitBreakerTest {
+    private static final String WORKSPACE = "workspace.cloud.databricks.com";
+    private static final String URL = "https://" + WORKSPACE + "/api/2.1/jobs/runs/get?run_id=1";
+    private final AtomicLong clock = new AtomicLong();
+    private ApplicationConfigurationProperties.DatabricksCircuitBreakerSettings settings;
+    private DatabricksCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        settings = new ApplicationConfigurationProperties.DatabricksCircuitBreakerSettings();
+        settings.setFailureThreshold(3);
+        settings.setOpenMillis(1000);
+        circuitBreaker = new DatabricksCircuitBreaker(settings, clock::get);
+    }
+
+    @Test
+    void testCircuitOpensAfterConsecutiveFailures() {
+        circuitBreaker.acquire(WORKSPACE);
+        circuitBreaker.onResponse(WORKSPACE, HttpStatus.SERVICE_UNAVAILABLE.value());
+        circuitBreaker.onFailure(WORKSPACE);
+        circuitBreaker.onResponse(WORKSPACE, HttpStatus.TOO_MANY_REQUESTS.value());
+        circuitBreaker.onResponse(WORKSPACE, HttpStatus.INTERNAL_SERVER_ERROR.value());
+        circuitBreaker.onResponse(WORKSPACE, HttpStatus.BAD_GATEWAY.value());
+        assertEquals(State.CLOSED, circuitBreaker.getState(WORKSPACE));
+
+        circuitBreaker.onResponse(WORKSPACE, HttpStatus.GATEWAY_TIMEOUT.value());
+
+        assertEquals(State.OPEN, circuitBreaker.getState(WORKSPACE));
+        assertThrows(WorkspaceUnavailableException.class, () -> circuitBreaker.acquire(WORKSPACE));
+        circuitBreaker.acquire("other.cloud.databricks.com");
+    }
+
+    @Test
+    void testHalfOpenCircuitLetsOneProbeThrough() {
+        open();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertThrows(WorkspaceUnavailableException.class, () -> circuitBreaker.acquire(WORKSPACE));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        circuitBreaker.acquire(WORKSPACE);
+        assertEquals(State.HALF_OPEN, circuitBreaker.getState(WORKSPACE));
+        assertThrows(WorkspaceUnavailableException.class, () -> circuitBreaker.acquire(WORKSPACE));
+
+        circuitBreaker.onResponse(WORKSPACE, HttpStatus.OK.value());
+        assertEquals(State.CLOSED, circuitBreaker.getState(WORKSPACE));
+        circuitBreaker.acquire(WORKSPACE);
+    }
+
+    @Test
+    void testFailedProbeOpensCircuitAgain() {
+        open();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        circuitBreaker.acquire(WORKSPACE);
+
+        circuitBreaker.onFailure(WORKSPACE);
+
+        assertEquals(State.OPEN, circuitBreaker.getState(WORKSPACE));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThrows(WorkspaceUnavailableException.class, () -> circuitBreaker.acquire(WORKSPACE));
+    }
+
+    @Test
+    void testProbeWithoutResultIsReplacedAfterOpenTime() {
+        open();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        circuitBreaker.acquire(WORKSPACE);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertThrows(WorkspaceUnavailableException.class, () -> circuitBreaker.acquire(WORKSPACE));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        circuitBreaker.acquire(WORKSPACE);
+        assertEquals(State.HALF_OPEN, circuitBreaker.getState(WORKSPACE));
+        assertThrows(WorkspaceUnavailableException.class, () -> circuitBreaker.acquire(WORKSPACE));
+
+        circuitBreaker.onResponse(WORKSPACE, HttpStatus.OK.value());
+        assertEquals(State.CLOSED, circuitBreaker.getState(WORKSPACE));
+    }
+
+    @Test
+    void testInterceptorFailsFastWhenCircuitIsOpen() {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(circuitBreaker.interceptor());
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(times(2), requestTo(URL)).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        server.expect(requestTo(URL)).andRespond(withException(new IOException("Connection refused")));
+
+        assertThrows(HttpServerErrorException.class, () -> restTemplate.getForEntity(URL, String.class));
+        assertThrows(HttpServerErrorException.class, () -> restTemplate.getForEntity(URL, String.class));
+        assertThrows(ResourceAccessException.class, () -> restTemplate.getForEntity(URL, String.class));
+        assertThrows(WorkspaceUnavailableException.class, () -> restTemplate.getForEntity(URL, String.class));
+
+        server.verify();
+        server.reset();
+        server.expect(requestTo(URL)).andRespond(withSuccess());
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        restTemplate.getForEntity(URL, String.class);
+        server.verify();
+        assertEquals(State.CLOSED, circuitBreaker.getState(WORKSPACE));
+    }
+
+    @Test
+    void testInterceptorIgnoresRequestsWithoutRatePermit() {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(circuitBreaker.interceptor());
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            throw new RateLimitExceededException("Throttled");
+        });
+
+        for (int i = 0; i < settings.getFailureThreshold(); i++) {
+            assertThrows(RateLimitExceededException.class, () -> restTemplate.getForEntity(URL, String.class));
+        }
+
+        assertEquals(State.CLOSED, circuitBreaker.getState(WORKSPACE));
+    }
+
+    @Test
+    void testDisabledCircuitBreaker() {
+        settings.setEnabled(false);
+        open();
+
+        circuitBreaker.acquire(WORKSPACE);
+    }
+
+    private void open() {
+        circuitBreaker.acquire(WORKSPACE);
+        for (int i = 0; i < settings.getFailureThreshold(); i++) {
+            circuitBreaker.onFailure(WORKSPACE);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package eu.ibagroup.vfdatabricks.services;
+
+import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
+import eu.ibagroup.vfdatabricks.exceptions.RateLimitExceededException;
+import eu.ibagroup.vfdatabricks.services.DatabricksRateLimiter.Priority;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.InterruptedIOException;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static eu.ibagroup.vfdatabricks.dto.Constants.RETRY_PERMIT_ATTRIBUTE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class DatabricksRateLimiterTest {
+    private static final String WORKSPACE = "workspace.cloud.databricks.com";
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong slept = new AtomicLong();
+    private ApplicationConfigurationProperties.DatabricksRateLimitSettings settings;
+    private DatabricksRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        settings = new ApplicationConfigurationProperties.DatabricksRateLimitSettings();
+        settings.setInitialRate(10);
+        settings.setMinRate(1);
+        settings.setMaxRate(20);
+        rateLimiter = new DatabricksRateLimiter(settings, clock::get, (long nanos) -> {
+            slept.addAndGet(nanos);
+            clock.addAndGet(nanos);
+        });
+    }
+
+    @Test
+    void testAcquireWaitsWhenBurstIsUsed() throws InterruptedIOException {
+        for (int i = 0; i < 10; i++) {
+            rateLimiter.acquire(WORKSPACE, Priority.INTERACTIVE);
+        }
+        assertEquals(0, slept.get());
+
+        rateLimiter.acquire(WORKSPACE, Priority.INTERACTIVE);
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), slept.get(), TimeUnit.MICROSECONDS.toNanos(1));
+    }
+
+    @Test
+    void testRateIsIncreasedAdditivelyAndDecreasedMultiplicatively() throws InterruptedIOException {
+        rateLimiter.acquire(WORKSPACE, Priority.INTERACTIVE);
+        for (int i = 0; i < 10; i++) {
+            rateLimiter.onResponse(WORKSPACE, HttpStatus.OK.value(), 0);
+        }
+        assertEquals(11, rateLimiter.getRate(WORKSPACE), 0.1);
+
+        rateLimiter.onResponse(WORKSPACE, HttpStatus.TOO_MANY_REQUESTS.value(), 0);
+        rateLimiter.onResponse(WORKSPACE, HttpStatus.TOO_MANY_REQUESTS.value(), 0);
+        assertEquals(5.5, rateLimiter.getRate(WORKSPACE), 0.1);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.onResponse(WORKSPACE, HttpStatus.TOO_MANY_REQUESTS.value(), 0);
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        }
+        assertEquals(settings.getMinRate(), rateLimiter.getRate(WORKSPACE));
+    }
+
+    @Test
+    void testAcquireFailsFastWhenWaitIsTooLong() throws InterruptedIOException {
+        settings.setMaxInteractiveWaitMillis(50);
+        settings.setMaxBackgroundWaitMillis(2000);
+        for (int i = 0; i < 10; i++) {
+            rateLimiter.acquire(WORKSPACE, Priority.INTERACTIVE);
+        }
+
+        assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire(WORKSPACE, Priority.INTERACTIVE));
+        assertEquals(0, slept.get());
+
+        rateLimiter.onResponse(WORKSPACE, HttpStatus.TOO_MANY_REQUESTS.value(), 3000);
+        assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire(WORKSPACE, Priority.BACKGROUND));
+        assertEquals(0, slept.get());
+    }
+
+    @Test
+    void testTryAcquireDoesNotWait() {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, rateLimiter.tryAcquire(WORKSPACE, Priority.INTERACTIVE));
+        }
+
+        assertEquals(100, rateLimiter.tryAcquire(WORKSPACE, Priority.INTERACTIVE));
+        assertEquals(100, rateLimiter.tryAcquire(WORKSPACE, Priority.INTERACTIVE));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(0, rateLimiter.tryAcquire(WORKSPACE, Priority.INTERACTIVE));
+        assertEquals(100, rateLimiter.tryAcquire(WORKSPACE, Priority.INTERACTIVE));
+        assertEquals(0, slept.get());
+    }
+
+    @Test
+    void testInterceptorSkipsAcquiredPermit() {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(rateLimiter.interceptor());
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo("https://" + WORKSPACE + "/api/2.1/jobs/runs/submit")).andRespond(withSuccess());
+        for (int i = 0; i < 10; i++) {
+            rateLimiter.tryAcquire(WORKSPACE, Priority.INTERACTIVE);
+        }
+
+        new RetryTemplate().execute((RetryContext context) -> {
+            context.setAttribute(RETRY_PERMIT_ATTRIBUTE, true);
+            return restTemplate.postForEntity("https://" + WORKSPACE + "/api/2.1/jobs/runs/submit", null,
+                    String.class);
+        });
+
+        server.verify();
+        assertEquals(0, slept.get());
+    }
+
+    @Test
+    void testInterceptorHonorsRetryAfter() {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(rateLimiter.interceptor());
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "3");
+        server.expect(requestTo("https://" + WORKSPACE + "/api/2.1/jobs/runs/get?run_id=1"))
+                .andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS).headers(headers));
+        server.expect(requestTo("https://" + WORKSPACE + "/api/2.1/jobs/runs/get?run_id=1"))
+                .andRespond(withSuccess());
+
+        assertThrows(HttpClientErrorException.TooManyRequests.class, () -> restTemplate.getForEntity(
+                "https://" + WORKSPACE + "/api/2.1/jobs/runs/get?run_id=1", String.class));
+        restTemplate.getForEntity("https://" + WORKSPACE + "/api/2.1/jobs/runs/get?run_id=1", String.class);
+
+        server.verify();
+        assertTrue(slept.get() >= TimeUnit.SECONDS.toNanos(3));
+        assertEquals(5.2, rateLimiter.getRate(WORKSPACE), 0.01);
+    }
+
+    @Test
+    void testRetryAfterIsCapped() throws InterruptedIOException {
+        settings.setMaxRetryAfterMillis(1000);
+        rateLimiter.acquire(WORKSPACE, Priority.INTERACTIVE);
+        rateLimiter.onResponse(WORKSPACE, HttpStatus.SERVICE_UNAVAILABLE.value(), 3_600_000);
+
+        rateLimiter.acquire(WORKSPACE, Priority.INTERACTIVE);
+
+        assertTrue(slept.get() < TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    void testGetRetryAfterMillis() {
+        HttpHeaders headers = new HttpHeaders();
+        assertEquals(0, DatabricksRateLimiter.getRetryAfterMillis(headers));
+        headers.set(HttpHeaders.RETRY_AFTER, "2");
+        assertEquals(2000, DatabricksRateLimiter.getRetryAfterMillis(headers));
+        headers.setZonedDateTime(HttpHeaders.RETRY_AFTER, ZonedDateTime.now().plusMinutes(1));
+        assertTrue(DatabricksRateLimiter.getRetryAfterMillis(headers) > 50_000);
+        headers.set(HttpHeaders.RETRY_AFTER, "soon");
+        assertEquals(0, DatabricksRateLimiter.getRetryAfterMillis(headers));
+    }
+
+    @Test
+    void testBackgroundRequestsYieldToInteractive() throws Exception {
+        CountDownLatch interactiveWaiting = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        CountDownLatch interactiveDone = new CountDownLatch(1);
+        List<Priority> order = new CopyOnWriteArrayList<>();
+        Thread main = Thread.currentThread();
+        rateLimiter = new DatabricksRateLimiter(settings, clock::get, (long nanos) -> {
+            if (Thread.currentThread() == main) {
+                released.countDown();
+                interactiveDone.await();
+            } else {
+                interactiveWaiting.countDown();
+                released.await();
+            }
+            clock.addAndGet(nanos);
+        });
+        for (int i = 0; i < 10; i++) {
+            rateLimiter.acquire(WORKSPACE, Priority.INTERACTIVE);
+        }
+        Thread interactive = new Thread(() -> {
+            try {
+                rateLimiter.acquire(WORKSPACE, Priority.INTERACTIVE);
+                order.add(Priority.INTERACTIVE);
+            } catch (InterruptedIOException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                interactiveDone.countDown();
+            }
+        });
+        interactive.start();
+        interactiveWaiting.await();
+
+        rateLimiter.acquire(WORKSPACE, Priority.BACKGROUND);
+        order.add(Priority.BACKGROUND);
+        interactive.join();
+
+        assertEquals(List.of(Priority.INTERACTIVE, Priority.BACKGROUND), order);
+    }
+}
@@ -0,0 +1,228 @@
+package eu.ibagroup.vfdatabricks.services;
+
+import com.google.common.cache.CacheBuilder;
+import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
+import eu.ibagroup.vfdatabricks.dto.pipelines.CronOverlapPolicy;
+import eu.ibagroup.vfdatabricks.dto.pipelines.PipelineDto;
+import eu.ibagroup.vfdatabricks.dto.pipelines.PipelineOverviewDto;
+import eu.ibagroup.vfdatabricks.dto.pipelines.PipelineOverviewListDto;
+import eu.ibagroup.vfdatabricks.services.events.PipelineFinishedEvent;
+import eu.ibagroup.vfdatabricks.services.events.PipelineStartedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DependencyTriggerServiceTest {
+    private static final String PROJECT_ID = "project1";
+
+    @Mock
+    private PipelineService pipelineService;
+    @Mock
+    private ThreadPoolTaskExecutor executor;
+    private DependencyTriggerService dependencyTriggerService;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationConfigurationProperties appProperties = new ApplicationConfigurationProperties();
+        appProperties.getScheduler().setDependencyConcurrency(1);
+        lenient().doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+        dependencyTriggerService = new DependencyTriggerService(pipelineService, executor, appProperties,
+                CacheBuilder.newBuilder().build());
+    }
+
+    private static PipelineOverviewDto pipeline(String id, String status, String... dependencies) {
+        PipelineOverviewDto pipeline = PipelineOverviewDto.builder()
+                .dependentPipelineIds(Arrays.asList(dependencies))
+                .build();
+        pipeline.setId(id);
+        pipeline.setStatus(status);
+        return pipeline;
+    }
+
+    private void givenPipelines(PipelineOverviewDto... pipelines) {
+        when(pipelineService.getOverviews(PROJECT_ID, null))
+                .thenReturn(PipelineOverviewListDto.builder().pipelines(List.of(pipelines)).build());
+    }
+
+    @Test
+    void testFindCyclic() {
+        Map<String, Set<String>> dependencies = Map.of(
+                "a", Set.of(),
+                "b", Set.of("a", "d"),
+                "c", Set.of("b"),
+                "d", Set.of("c"),
+                "e", Set.of("d"));
+
+        assertEquals(Set.of("b", "c", "d"), DependencyTriggerService.findCyclic(dependencies));
+    }
+
+    @Test
+    void testSucceededPipelineShouldTriggerReadyDependents() {
+        givenPipelines(
+                pipeline("a", "Running"),
+                pipeline("b", "Succeeded"),
+                pipeline("c", "Draft", "a"),
+                pipeline("d", "Draft", "a", "b"),
+                pipeline("e", "Draft", "a", "f"),
+                pipeline("f", "Failed"));
+        when(pipelineService.runScheduled(eq(PROJECT_ID), anyString(), eq(CronOverlapPolicy.SKIP)))
+                .thenReturn(false);
+        dependencyTriggerService = new DependencyTriggerService(pipelineService, executor, concurrency(5),
+                CacheBuilder.newBuilder().build());
+
+        dependencyTriggerService.onPipelineFinished(new PipelineFinishedEvent(PROJECT_ID, "a", 1L, "Succeeded"));
+
+        verify(pipelineService).runScheduled(PROJECT_ID, "c", CronOverlapPolicy.SKIP);
+        verify(pipelineService).runScheduled(PROJECT_ID, "d", CronOverlapPolicy.SKIP);
+        verify(pipelineService, never()).runScheduled(PROJECT_ID, "e", CronOverlapPolicy.SKIP);
+    }
+
+    @Test
+    void testCyclicDependentsShouldNotBeTriggered() {
+        givenPipelines(
+                pipeline("a", "Succeeded", "b"),
+                pipeline("b", "Succeeded", "a"));
+
+        dependencyTriggerService.onPipelineFinished(new PipelineFinishedEvent(PROJECT_ID, "a", 1L, "Succeeded"));
+
+        verify(pipelineService, never()).runScheduled(anyString(), anyString(), any());
+    }
+
+    @Test
+    void testRunShouldBeHandledOnce() {
+        givenPipelines(pipeline("a", "Succeeded"), pipeline("b", "Draft", "a"));
+        when(pipelineService.runScheduled(PROJECT_ID, "b", CronOverlapPolicy.SKIP)).thenReturn(false);
+
+        dependencyTriggerService.onPipelineFinished(new PipelineFinishedEvent(PROJECT_ID, "a", 1L, "Succeeded"));
+        dependencyTriggerService.onPipelineFinished(new PipelineFinishedEvent(PROJECT_ID, "a", 1L, "Succeeded"));
+
+        verify(pipelineService, times(1)).runScheduled(PROJECT_ID, "b", CronOverlapPolicy.SKIP);
+    }
+
+    @Test
+    void testConcurrencyCapShouldQueueDependents() {
+        givenPipelines(
+                pipeline("a", "Succeeded"),
+                pipeline("b", "Draft", "a"),
+                pipeline("c", "Draft", "a"));
+        when(pipelineService.runScheduled(eq(PROJECT_ID), anyString(), eq(CronOverlapPolicy.SKIP))).thenReturn(true);
+
+        dependencyTriggerService.onPipelineFinished(new PipelineFinishedEvent(PROJECT_ID, "a", 1L, "Succeeded"));
+
+        verify(pipelineService, times(1)).runScheduled(eq(PROJECT_ID), anyString(), eq(CronOverlapPolicy.SKIP));
+
+        dependencyTriggerService.onPipelineFinished(new PipelineFinishedEvent(PROJECT_ID, "b", 2L, "Failed"));
+
+        verify(pipelineService).runScheduled(PROJECT_ID, "b", CronOverlapPolicy.SKIP);
+        verify(pipelineService).runScheduled(PROJECT_ID, "c", CronOverlapPolicy.SKIP);
+    }
+
+    @Test
+    void testRejectedRunShouldBeHandledAgain() {
+        givenPipelines(pipeline("a", "Succeeded"), pipeline("b", "Draft", "a"));
+        when(pipelineService.runScheduled(PROJECT_ID, "b", CronOverlapPolicy.SKIP)).thenReturn(false);
+        doThrow(new TaskRejectedException("busy")).doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+
+        dependencyTriggerService.onPipelineFinished(new PipelineFinishedEvent(PROJECT_ID, "a", 1L, "Succeeded"));
+
+        verify(pipelineService, never()).runScheduled(anyString(), anyString(), any());
+
+        dependencyTriggerService.onPipelineFinished(new PipelineFinishedEvent(PROJECT_ID, "a", 1L, "Succeeded"));
+
+        verify(pipelineService).runScheduled(PROJECT_ID, "b", CronOverlapPolicy.SKIP);
+    }
+
+    @Test
+    void testQueuedDependentsShouldBeStartedOnExecutor() {
+        givenPipelines(
+                pipeline("a", "Succeeded"),
+                pipeline("b", "Draft", "a"),
+                pipeline("c", "Draft", "a"));
+        when(pipelineService.runScheduled(eq(PROJECT_ID), anyString(), eq(CronOverlapPolicy.SKIP))).thenReturn(true);
+        PipelineDto failed = PipelineDto.builder().build();
+        failed.setStatus("Failed");
+        when(pipelineService.getByIdAndFetchStatus(eq(PROJECT_ID), anyString())).thenReturn(failed);
+        dependencyTriggerService.onPipelineFinished(new PipelineFinishedEvent(PROJECT_ID, "a", 1L, "Succeeded"));
+        List<Runnable> tasks = new ArrayList<>();
+        doAnswer(invocation -> tasks.add(invocation.getArgument(0))).when(executor).execute(any(Runnable.class));
+
+        dependencyTriggerService.onPipelineFinished(new PipelineFinishedEvent(PROJECT_ID, "b", 2L, "Failed"));
+        dependencyTriggerService.reconcileWatched();
+
+        verify(pipelineService, times(1)).runScheduled(eq(PROJECT_ID), anyString(), eq(CronOverlapPolicy.SKIP));
+
+        tasks.forEach(Runnable::run);
+
+        verify(pipelineService).runScheduled(PROJECT_ID, "b", CronOverlapPolicy.SKIP);
+        verify(pipelineService).runScheduled(PROJECT_ID, "c", CronOverlapPolicy.SKIP);
+    }
+
+    @Test
+    void testWatchedPipelineShouldBeReconciled() {
+        givenPipelines(pipeline("a", "Draft"), pipeline("b", "Draft", "a"));
+        PipelineDto running = PipelineDto.builder().build();
+        running.setStatus("Running");
+        PipelineDto failed = PipelineDto.builder().build();
+        failed.setStatus("Failed");
+        when(pipelineService.getByIdAndFetchStatus(PROJECT_ID, "a")).thenReturn(running, failed);
+
+        dependencyTriggerService.onPipelineStarted(new PipelineStartedEvent(PROJECT_ID, "a", 1L));
+        dependencyTriggerService.reconcileWatched();
+        dependencyTriggerService.reconcileWatched();
+        dependencyTriggerService.reconcileWatched();
+
+        verify(pipelineService, times(2)).getByIdAndFetchStatus(PROJECT_ID, "a");
+    }
+
+    @Test
+    void testStartedPipelinesShouldBeLookedUpInIndex() {
+        givenPipelines(pipeline("a", "Draft"), pipeline("b", "Draft", "a"), pipeline("c", "Draft"));
+
+        dependencyTriggerService.onPipelineStarted(new PipelineStartedEvent(PROJECT_ID, "a", 1L));
+        dependencyTriggerService.onPipelineStarted(new PipelineStartedEvent(PROJECT_ID, "b", 2L));
+        dependencyTriggerService.onPipelineStarted(new PipelineStartedEvent(PROJECT_ID, "c", 3L));
+        dependencyTriggerService.reconcileWatched();
+
+        verify(pipelineService).getOverviews(PROJECT_ID, null);
+        verify(pipelineService).getByIdAndFetchStatus(PROJECT_ID, "a");
+        verify(pipelineService, never()).getByIdAndFetchStatus(PROJECT_ID, "b");
+    }
+
+    @Test
+    void testFailedIndexShouldNotFailStart() {
+        when(pipelineService.getOverviews(PROJECT_ID, null)).thenThrow(new IllegalStateException("unavailable"));
+
+        dependencyTriggerService.onPipelineStarted(new PipelineStartedEvent(PROJECT_ID, "a", 1L));
+        dependencyTriggerService.reconcileWatched();
+
+        verify(pipelineService, never()).getByIdAndFetchStatus(anyString(), anyString());
+    }
+
+    private static ApplicationConfigurationProperties concurrency(int concurrency) {
+        ApplicationConfigurationProperties appProperties = new ApplicationConfigurationProperties();
+        appProperties.getScheduler().setDependencyConcurrency(concurrency);
+        return appProperties;
+    }
+}
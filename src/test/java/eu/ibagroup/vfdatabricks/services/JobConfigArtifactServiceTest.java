@@ -0,0 +1,110 @@
+package eu.ibagroup.vfdatabricks.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.CacheBuilder;
+import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+
+import static eu.ibagroup.vfdatabricks.dto.Constants.PATH_TO_FILE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobConfigArtifactServiceTest {
+    private static final String PROJECT_ID = "projectId";
+    private static final String DIRECTORY = "/Volumes/vf/job-configs";
+
+    @Mock
+    private DatabricksAPIService databricksApiService;
+    @Mock
+    private KubernetesService kubernetesService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ApplicationConfigurationProperties appProperties;
+    private JobConfigArtifactService artifactService;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new ApplicationConfigurationProperties();
+        appProperties.setDatabricks(new ApplicationConfigurationProperties.DatabricksSettings());
+        appProperties.getDatabricks().setJobConfigArtifacts(true);
+        Secret secret = new SecretBuilder()
+                .addToData(PATH_TO_FILE, Base64.getEncoder().encodeToString("/Volumes/vf".getBytes()))
+                .build();
+        lenient().when(kubernetesService.getSecret(PROJECT_ID)).thenReturn(secret);
+        artifactService = new JobConfigArtifactService(databricksApiService, kubernetesService, appProperties,
+                objectMapper, CacheBuilder.newBuilder().build());
+    }
+
+    @Test
+    void testStoreUploadsArtifactOnce() throws IOException {
+        when(databricksApiService.uploadFile(eq(PROJECT_ID), eq(DIRECTORY), any(), anyString())).thenReturn(true);
+
+        String path = artifactService.store(PROJECT_ID, "{\"nodes\":[]}", "{\"graph\":[]}");
+
+        assertEquals(path, artifactService.store(PROJECT_ID, "{\"nodes\":[]}", "{\"graph\":[]}"));
+        ArgumentCaptor<byte[]> content = ArgumentCaptor.forClass(byte[].class);
+        ArgumentCaptor<String> fileName = ArgumentCaptor.forClass(String.class);
+        verify(databricksApiService).uploadFile(eq(PROJECT_ID), eq(DIRECTORY), content.capture(), fileName.capture());
+        assertEquals(DIRECTORY + "/" + fileName.getValue(), path);
+        assertTrue(fileName.getValue().matches("[0-9a-f]{64}\\.json\\.gz"));
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(content.getValue()))) {
+            JsonNode payload = objectMapper.readTree(gzip);
+            assertEquals("{\"nodes\":[]}", payload.get("JOB_CONFIG").asText());
+            assertEquals("{\"graph\":[]}", payload.get("JOB_DEFINITION").asText());
+        }
+    }
+
+    @Test
+    void testStoreDifferentConfigsAsDifferentArtifacts() {
+        when(databricksApiService.uploadFile(eq(PROJECT_ID), eq(DIRECTORY), any(), anyString())).thenReturn(true);
+
+        String first = artifactService.store(PROJECT_ID, "{\"nodes\":[1]}", "{}");
+        String second = artifactService.store(PROJECT_ID, "{\"nodes\":[2]}", "{}");
+
+        assertNotEquals(first, second);
+        verify(databricksApiService, times(2)).uploadFile(eq(PROJECT_ID), eq(DIRECTORY), any(), anyString());
+    }
+
+    @Test
+    void testStoreFallsBackWhenUploadFailed() {
+        when(databricksApiService.uploadFile(eq(PROJECT_ID), eq(DIRECTORY), any(), anyString())).thenReturn(false);
+
+        assertNull(artifactService.store(PROJECT_ID, "{}", "{}"));
+        assertNull(artifactService.store(PROJECT_ID, "{}", "{}"));
+        verify(databricksApiService, times(2)).uploadFile(eq(PROJECT_ID), eq(DIRECTORY), any(), anyString());
+    }
+
+    @Test
+    void testStoreWhenDisabled() {
+        appProperties.getDatabricks().setJobConfigArtifacts(false);
+
+        assertNull(artifactService.store(PROJECT_ID, "{}", "{}"));
+        verifyNoInteractions(databricksApiService);
+    }
+
+    @Test
+    void testHash() {
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+                JobConfigArtifactService.hash("".getBytes(StandardCharsets.UTF_8)));
+    }
+}
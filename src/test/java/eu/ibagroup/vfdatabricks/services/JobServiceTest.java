@@ -2,6 +2,7 @@ package eu.ibagroup.vfdatabricks.services;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.CacheBuilder;
 import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
 import eu.ibagroup.vfdatabricks.dto.jobs.*;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.*;
@@ -14,6 +15,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -27,6 +29,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 import static eu.ibagroup.vfdatabricks.dto.Constants.*;
@@ -51,13 +54,16 @@ class JobServiceTest {
     private ApplicationConfigurationProperties appProperties;
     @Mock
     private AsyncJobCheckService asyncJobCheckService;
+    @Mock
+    private AsyncJobLogArchiveService asyncJobLogArchiveService;
     private JobService jobService;
     private SecurityContext securityContextMock;
 
     @BeforeEach
     void setUp() {
         securityContextMock = mock(SecurityContext.class, RETURNS_DEEP_STUBS);
-        this.jobService = new JobService(mapperService, databricksApiService, appProperties, restTemplate, asyncJobCheckService);
+        this.jobService = new JobService(mapperService, databricksApiService, appProperties, restTemplate, asyncJobCheckService,
+                asyncJobLogArchiveService, CacheBuilder.newBuilder().build());
         Authentication authentication = mock(Authentication.class);
         SecurityContextHolder.setContext(securityContextMock);
         when(securityContextMock.getAuthentication()).thenReturn(authentication);
@@ -101,7 +107,7 @@ class JobServiceTest {
     }
 
     @Test
-    void testGetAndFetchStatusWithHistory() throws InterruptedException, IOException {
+    void testGetAndFetchStatusWithHistory() throws InterruptedException {
         when(restTemplate.getForEntity(
                 eq(String.format("%s/%s/%s/%s/job/%s",
                         appProperties.getJobStorage().getHost(),
@@ -120,34 +126,12 @@ class JobServiceTest {
                         PROJECT_ID,
                         JOB_ID,
                         "Pending")), any(), any())).thenReturn(new ResponseEntity<>(HttpStatusCode.valueOf(200)));
-
-        Path file = Path.of("", "src/test/resources").resolve("logs.json");
-        ObjectMapper objectMapper = new ObjectMapper();
-        String data = objectMapper.readValue(Files.readString(file), JsonNode.class).get("data").asText();
-        when(databricksApiService.getClusterInfo(PROJECT_ID, 123L))
-                .thenReturn(DatabricksJobClusterDto.builder()
-                        .tasks(List.of(DatabricksJobClusterDto.Task.builder()
-                                .clusterInstance(DatabricksJobClusterDto.ClusterInstance.
-                                        builder()
-                                        .clusterId("clusterId")
-                                        .build())
-                                .build()))
-                        .build());
-
-        when(databricksApiService.getJobLogs(PROJECT_ID, "clusterId"))
-                .thenReturn(DatabricksJobLogDto.builder().data(data).build());
-        when(restTemplate.postForEntity(
-                eq(String.format("%s/%s/%s/history/job/%s/log",
-                        appProperties.getHistoryService().getHost(),
-                        CONTEXT_PATH_HISTORY,
-                        HISTORY_SERVICE_API,
-                        JOB_ID)),
-                any(),
-                eq(String.class)
-        )).thenReturn(ResponseEntity.ok(""));
+        when(asyncJobLogArchiveService.archiveJobLogs(PROJECT_ID, JOB_ID, 123L))
+                .thenReturn(CompletableFuture.completedFuture("logId"));
 
         assertEquals(JobDto.builder().build(), jobService.getAndFetchStatus(PROJECT_ID, JOB_ID), "Objects must be equal");
-        verify(restTemplate, times(2)).getForEntity(anyString(), eq(JobDto.class));
+        verify(restTemplate).getForEntity(anyString(), eq(JobDto.class));
+        verify(asyncJobLogArchiveService).archiveJobLogs(PROJECT_ID, JOB_ID, 123L);
     }
 
     @Test
@@ -202,6 +186,7 @@ class JobServiceTest {
                         .builder()
                         .params(params)
                         .build()));
+        when(mapperService.mapRequestToJobRun(any(), eq(PROJECT_ID))).thenReturn(new DatabricksJobStorageRunDto());
         when(databricksApiService.runJob(anyString(), any(), any()))
                 .thenReturn(CompletableFuture.completedFuture(
                         DatabricksRunIdDto.builder().runId(123).build()
@@ -210,7 +195,9 @@ class JobServiceTest {
         jobService.run(PROJECT_ID, JOB_ID);
 
         verify(restTemplate).getForEntity(anyString(), eq(JobDto.class));
-        verify(databricksApiService).runJob(eq(PROJECT_ID), any(), eq(params));
+        verify(databricksApiService).runJob(eq(PROJECT_ID),
+                argThat((DatabricksJobStorageRunDto run) -> UUID.fromString(run.getIdempotencyToken()) != null),
+                eq(params));
     }
 
     @Test
@@ -228,6 +215,7 @@ class JobServiceTest {
                         .builder()
                         .params(JobParams.builder().intervals("2").upTo("10").build())
                         .build()));
+        when(mapperService.mapRequestToJobRun(any(), eq(PROJECT_ID))).thenReturn(new DatabricksJobStorageRunDto());
         when(databricksApiService.runJob(anyString(), any(), any() ))
                 .thenReturn(CompletableFuture.failedFuture(new ForRetryRestTemplateException("message")));
 
@@ -339,46 +327,51 @@ class JobServiceTest {
     }
 
     @Test
-    void testSaveHistory() throws IOException {
-        when(restTemplate.getForEntity(
-                eq(String.format("%s/%s/%s/%s/job/%s",
-                        appProperties.getJobStorage().getHost(),
-                        CONTEXT_PATH,
-                        JOB_STORAGE_API,
-                        PROJECT_ID,
-                        JOB_ID
-                )),
-                eq(JobDto.class))).thenReturn(ResponseEntity.ok(JobDto.builder().runId(123L).status("Pending").build()));
-
-        Path file = Path.of("", "src/test/resources").resolve("logs.json");
-        ObjectMapper objectMapper = new ObjectMapper();
-        String data = objectMapper.readValue(Files.readString(file), JsonNode.class).get("data").asText();
-        when(databricksApiService.getClusterInfo(PROJECT_ID, 123L))
-                .thenReturn(DatabricksJobClusterDto.builder()
-                        .tasks(List.of(DatabricksJobClusterDto.Task.builder()
-                                .clusterInstance(DatabricksJobClusterDto.ClusterInstance.
-                                        builder()
-                                        .clusterId("clusterId")
-                                        .build())
-                                .build()))
-                        .build());
-
-        when(databricksApiService.getJobLogs(PROJECT_ID, "clusterId"))
-                .thenReturn(DatabricksJobLogDto.builder().data(data).build());
-        when(restTemplate.postForEntity(
-                eq(String.format("%s/%s/%s/history/job/%s/log",
-                        appProperties.getHistoryService().getHost(),
-                        CONTEXT_PATH_HISTORY,
-                        HISTORY_SERVICE_API,
-                        JOB_ID)),
-                any(),
-                eq(String.class)
-        )).thenReturn(ResponseEntity.ok(""));
-        jobService.saveHistory(DatabricksJobRunDto.builder().startTime(1716097075861L).endTime(1716097407535L).build(), CommonDto.builder().id(JOB_ID).build(), PROJECT_ID);
+    void testSaveHistory() {
+        when(asyncJobLogArchiveService.archiveJobLogs(PROJECT_ID, JOB_ID, 123L))
+                .thenReturn(CompletableFuture.completedFuture("logId"));
+        jobService.saveHistory(DatabricksJobRunDto.builder().startTime(1716097075861L).endTime(1716097407535L).build(), CommonDto.builder().id(JOB_ID).runId(123L).build(), PROJECT_ID).join();
         verify(restTemplate).postForEntity(eq(String.format("%s/%s/%s/history/job",
                 appProperties.getHistoryService().getHost(),
                 CONTEXT_PATH_HISTORY,
-                HISTORY_SERVICE_API)), any(JobHistoryDto.class), eq(String.class));
+                HISTORY_SERVICE_API)), argThat((HttpEntity<JobHistoryDto> entity) ->
+                "logId".equals(entity.getBody().getLogId())
+                        && "test-job-123".equals(entity.getHeaders().getFirst(IDEMPOTENCY_KEY_HEADER))), eq(String.class));
+    }
+
+    @Test
+    void testSaveHistoryOnlyOncePerRun() {
+        when(asyncJobLogArchiveService.archiveJobLogs(PROJECT_ID, JOB_ID, 123L))
+                .thenReturn(CompletableFuture.completedFuture("logId"));
+        DatabricksJobRunDto runDto = DatabricksJobRunDto.builder().startTime(1716097075861L).endTime(1716097407535L).build();
+        jobService.saveHistory(runDto, CommonDto.builder().id(JOB_ID).runId(123L).build(), PROJECT_ID).join();
+        jobService.saveHistory(runDto, CommonDto.builder().id(JOB_ID).runId(123L).build(), PROJECT_ID).join();
+        verify(asyncJobLogArchiveService).archiveJobLogs(PROJECT_ID, JOB_ID, 123L);
+        verify(restTemplate).postForEntity(anyString(), any(HttpEntity.class), eq(String.class));
+    }
+
+    @Test
+    void testSaveHistoryWhenArchiveFailed() {
+        when(asyncJobLogArchiveService.archiveJobLogs(PROJECT_ID, JOB_ID, 123L))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("message")))
+                .thenReturn(CompletableFuture.completedFuture("logId"));
+        DatabricksJobRunDto runDto = DatabricksJobRunDto.builder().startTime(1716097075861L).endTime(1716097407535L).build();
+        jobService.saveHistory(runDto, CommonDto.builder().id(JOB_ID).runId(123L).build(), PROJECT_ID).join();
+        verify(restTemplate, never()).postForEntity(anyString(), any(HttpEntity.class), eq(String.class));
+        jobService.saveHistory(runDto, CommonDto.builder().id(JOB_ID).runId(123L).build(), PROJECT_ID).join();
+        verify(restTemplate).postForEntity(anyString(), any(HttpEntity.class), eq(String.class));
+    }
+
+    @Test
+    void testSaveHistoryWithoutLogRecord() {
+        when(asyncJobLogArchiveService.archiveJobLogs(PROJECT_ID, JOB_ID, 123L))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.completedFuture("logId"));
+        DatabricksJobRunDto runDto = DatabricksJobRunDto.builder().startTime(1716097075861L).endTime(1716097407535L).build();
+        jobService.saveHistory(runDto, CommonDto.builder().id(JOB_ID).runId(123L).build(), PROJECT_ID).join();
+        verify(restTemplate, never()).postForEntity(anyString(), any(HttpEntity.class), eq(String.class));
+        jobService.saveHistory(runDto, CommonDto.builder().id(JOB_ID).runId(123L).build(), PROJECT_ID).join();
+        verify(restTemplate).postForEntity(anyString(), any(HttpEntity.class), eq(String.class));
     }
 
     @Test
@@ -7,6 +7,8 @@ import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.api.model.SecretBuilder;
 import io.fabric8.kubernetes.api.model.SecretListBuilder;
 import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -39,7 +41,9 @@ public class KubernetesServiceTest {
     @BeforeEach
     void setUp() {
         server.before();
-        kubernetesService = new KubernetesService(appProperties, server.getClient());
+        kubernetesService = new KubernetesService(appProperties, server.getClient(),
+                new MetricsService(new SimpleMeterRegistry(), appProperties),
+                new TracingService(ObservationRegistry.NOOP));
     }
 
     @AfterEach
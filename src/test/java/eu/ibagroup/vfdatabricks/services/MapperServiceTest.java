@@ -12,6 +12,7 @@ import eu.ibagroup.vfdatabricks.dto.jobs.JobParams;
 import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.api.model.SecretBuilder;
 import org.apache.hc.client5.http.utils.Base64;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -41,7 +42,11 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 @ExtendWith({MockitoExtension.class, SpringExtension.class})
@@ -95,13 +100,20 @@ class MapperServiceTest {
     private final ObjectMapper MAPPER = new ObjectMapper();
     @Mock
     private KubernetesService kubernetesService;
+    @Mock
+    private JobConfigArtifactService jobConfigArtifactService;
     @Autowired
     private ApplicationConfigurationProperties appProperties;
     private MapperService mapperService;
 
     @BeforeEach
     void setUp() {
-        mapperService = new MapperService(kubernetesService, MAPPER);
+        mapperService = new MapperService(kubernetesService, MAPPER, jobConfigArtifactService, appProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        appProperties.getDatabricks().setExistingClusters(false);
     }
 
     @Test
@@ -214,6 +226,91 @@ class MapperServiceTest {
         assertEquals(expected, actual, "Objects must be equal");
     }
 
+    private Secret projectSecret(String instancePoolId) {
+        SecretBuilder builder = new SecretBuilder()
+                .addToData(HOST, HOST_VALUE)
+                .addToData(TOKEN, TOKEN_VALUE)
+                .addToData(PATH_TO_FILE, PATH_TO_FILE_VALUE)
+                .addToData(CLOUD, CLOUD_VALUE);
+        if (instancePoolId != null) {
+            builder.addToData(INSTANCE_POOL_ID, Base64.encodeBase64String(
+                    instancePoolId.getBytes(StandardCharsets.UTF_8)));
+        }
+        return builder.build();
+    }
+
+    private JobDto jobDto(JobParams params) throws JsonProcessingException {
+        return JobDto.builder()
+                .name("name")
+                .definition(MAPPER.readTree(INPUT_GRAPH))
+                .params(params)
+                .build();
+    }
+
+    @Test
+    void testMapJobToExistingClusterTask() throws JsonProcessingException {
+        appProperties.getDatabricks().setExistingClusters(true);
+        when(kubernetesService.getSecret(PROJECT_ID)).thenReturn(projectSecret(null));
+
+        DatabricksJobTask task = mapperService.mapJobDtoToDatabricksJobTask(jobDto(JobParams.builder()
+                .upTo("600")
+                .intervals("30")
+                .existingClusterId("cluster1")
+                .build()), PROJECT_ID);
+
+        assertEquals("cluster1", task.getExistingClusterId());
+        assertNull(task.getNewCluster());
+        assertTrue(task.isDedicatedCluster());
+        List<String> parameters = task.getSparkJarTask().getParameters();
+        assertTrue(parameters.contains(UP_TO + "=600"));
+        assertTrue(parameters.contains(VISUAL_FLOW_DATABRICKS_SECRET_SCOPE + "=" + PROJECT_ID));
+        assertTrue(parameters.stream().anyMatch(parameter -> parameter.startsWith(JOB_CONFIG_FIELD + "=")));
+    }
+
+    @Test
+    void testMapJobToNewClusterWhenExistingClustersAreDisabled() throws JsonProcessingException {
+        when(kubernetesService.getSecret(PROJECT_ID)).thenReturn(projectSecret(null));
+
+        DatabricksJobTask task = mapperService.mapJobDtoToDatabricksJobTask(jobDto(JobParams.builder()
+                .upTo("600")
+                .intervals("30")
+                .existingClusterId("cluster1")
+                .clusterDatabricksSchema(Map.of("node_type_id", "m5.large", "num_workers", 2))
+                .build()), PROJECT_ID);
+
+        assertNull(task.getExistingClusterId());
+        assertEquals("600", task.getNewCluster().getSparkEnvVars().get(UP_TO));
+        assertNull(task.getSparkJarTask().getParameters());
+    }
+
+    @Test
+    void testMapJobToProjectInstancePool() throws JsonProcessingException {
+        when(kubernetesService.getSecret(PROJECT_ID)).thenReturn(projectSecret("pool1"));
+
+        DatabricksJobTask task = mapperService.mapJobDtoToDatabricksJobTask(jobDto(JobParams.builder()
+                .upTo("600")
+                .intervals("30")
+                .clusterDatabricksSchema(Map.of("node_type_id", "m5.large", "num_workers", 2))
+                .build()), PROJECT_ID);
+
+        assertEquals("pool1", task.getNewCluster().getInstancePoolId());
+        assertNull(task.getNewCluster().getNodeTypeId());
+        assertEquals(2, task.getNewCluster().getNumWorkers());
+    }
+
+    @Test
+    void testMapJobKeepsOwnInstancePool() throws JsonProcessingException {
+        when(kubernetesService.getSecret(PROJECT_ID)).thenReturn(projectSecret("pool1"));
+
+        DatabricksJobTask task = mapperService.mapJobDtoToDatabricksJobTask(jobDto(JobParams.builder()
+                .upTo("600")
+                .intervals("30")
+                .clusterDatabricksSchema(Map.of("instance_pool_id", "pool2"))
+                .build()), PROJECT_ID);
+
+        assertEquals("pool2", task.getNewCluster().getInstancePoolId());
+    }
+
     @Test
     void shouldMapEmailNotificationsWhenEmailNotificationIsNull() {
         EmailNotification emailNotification = null;
@@ -269,6 +366,22 @@ class MapperServiceTest {
         assertEquals(expectedStatus, MapperService.resolveOverallStatus(inputStatuses));
     }
 
+    @Test
+    void shouldPrepareSparkEnvWithJobConfigArtifact() throws JsonProcessingException {
+        JobDto jobDto = JobDto.builder()
+                .definition(MAPPER.readTree("{\"graph\": [{\"value\": {\"key\": \"#value#\"}, \"vertex\": true}]}"))
+                .params(JobParams.builder().upTo("upTo").intervals("intervals").build())
+                .build();
+        when(jobConfigArtifactService.store(eq(PROJECT_ID), anyString(), anyString()))
+                .thenReturn("/Volumes/job-configs/hash.json.gz");
+
+        Map<String, String> result = mapperService.prepareSparkEnv(jobDto, PROJECT_ID, Map.of());
+
+        assertEquals("/Volumes/job-configs/hash.json.gz", result.get(JOB_CONFIG_ARTIFACT_FIELD));
+        assertFalse(result.containsKey(JOB_CONFIG_FIELD));
+        assertFalse(result.containsKey(JOB_DEFINITION_FIELD));
+    }
+
     @Test
     void shouldPrepareSparkEnvSuccessfully() throws JsonProcessingException {
         JobDto jobDto = JobDto.builder()
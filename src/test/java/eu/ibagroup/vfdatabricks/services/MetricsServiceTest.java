@@ -0,0 +1,136 @@
+package eu.ibagroup.vfdatabricks.services;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import static eu.ibagroup.vfdatabricks.dto.Constants.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class MetricsServiceTest {
+    private SimpleMeterRegistry meterRegistry;
+    private MetricsService metricsService;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationConfigurationProperties.JobStorage jobStorage = new ApplicationConfigurationProperties.JobStorage();
+        jobStorage.setHost("https://localhost:8080");
+        ApplicationConfigurationProperties.HistoryService historyService =
+                new ApplicationConfigurationProperties.HistoryService();
+        historyService.setHost("https://localhost:9990");
+        ApplicationConfigurationProperties appProperties = new ApplicationConfigurationProperties();
+        appProperties.setJobStorage(jobStorage);
+        appProperties.setHistoryService(historyService);
+        meterRegistry = new SimpleMeterRegistry();
+        metricsService = new MetricsService(meterRegistry, appProperties);
+    }
+
+    @Test
+    void testUpstreamInterceptorResolvesUpstreamAndEndpoint() {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(metricsService.upstreamInterceptor(null));
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo("https://localhost:8080/vf/be/api/project/vf-project/job/"
+                        + "0b4fa1a2-5b1c-4c2d-9e1f-2a3b4c5d6e7f/status?status=Running"))
+                .andRespond(withSuccess());
+        server.expect(requestTo("https://localhost:9990/vf/be/history/api/databricks/history/job/"
+                        + "0b4fa1a2-5b1c-4c2d-9e1f-2a3b4c5d6e7f/log/last"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+        restTemplate.postForEntity("https://localhost:8080/vf/be/api/project/vf-project/job/"
+                + "0b4fa1a2-5b1c-4c2d-9e1f-2a3b4c5d6e7f/status?status=Running", null, Void.class);
+        assertThrows(HttpClientErrorException.class, () -> restTemplate.getForEntity(
+                "https://localhost:9990/vf/be/history/api/databricks/history/job/"
+                        + "0b4fa1a2-5b1c-4c2d-9e1f-2a3b4c5d6e7f/log/last", String.class));
+
+        assertNotNull(find(JOB_STORAGE_UPSTREAM, "job/{id}/status", "vf-project", "200", "0"));
+        assertNotNull(find(HISTORY_SERVICE_UPSTREAM, "history/job/{id}/log/last", NONE_TAG_VALUE, "404", "0"));
+    }
+
+    @Test
+    void testDatabricksInterceptorTakesProjectAndRetriesFromRetryContext() {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(metricsService.upstreamInterceptor(DATABRICKS_UPSTREAM));
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo("https://workspace/api/2.1/jobs/runs/get?run_id=1"))
+                .andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS));
+        server.expect(requestTo("https://workspace/api/2.1/jobs/runs/get?run_id=1"))
+                .andRespond(withSuccess());
+        RetryTemplate retryTemplate = new RetryTemplate();
+        retryTemplate.setRetryPolicy(new SimpleRetryPolicy(2));
+
+        retryTemplate.execute((RetryContext context) -> {
+            context.setAttribute(RETRY_PROJECT_ATTRIBUTE, "vf-project");
+            return restTemplate.exchange("https://workspace/api/2.1/jobs/runs/get?run_id=1", HttpMethod.GET,
+                    null, String.class);
+        });
+
+        assertNotNull(find(DATABRICKS_UPSTREAM, "runs/get", "vf-project", "429", "0"));
+        assertNotNull(find(DATABRICKS_UPSTREAM, "runs/get", "vf-project", "200", "1"));
+    }
+
+    @Test
+    void testDatabricksFileEndpointsDropFilePath() {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(metricsService.upstreamInterceptor(DATABRICKS_UPSTREAM));
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo("https://workspace/api/2.0/fs/directories/Volumes/catalog/schema/files"))
+                .andRespond(withSuccess());
+
+        restTemplate.put("https://workspace/api/2.0/fs/directories/Volumes/catalog/schema/files", null);
+
+        assertNotNull(find(DATABRICKS_UPSTREAM, "fs/directories", NONE_TAG_VALUE, "200", "0"));
+    }
+
+    @Test
+    void testRecordKubernetesCall() {
+        assertNull(metricsService.recordKubernetesCall("secrets/get", "vf-project", () -> null));
+        assertThrows(KubernetesClientException.class, () -> metricsService.recordKubernetesCall("secrets/delete",
+                "vf-project", () -> {
+                    throw new KubernetesClientException("Forbidden", 403, null);
+                }));
+
+        assertNotNull(find(KUBERNETES_UPSTREAM, "secrets/get", "vf-project", "404", "0"));
+        assertNotNull(find(KUBERNETES_UPSTREAM, "secrets/delete", "vf-project", "403", "0"));
+    }
+
+    @Test
+    void testMonitorCache() {
+        Cache<String, String> cache = metricsService.monitorCache(CacheBuilder.newBuilder().recordStats().build(),
+                "tokenCache");
+        cache.put("key", "value");
+        cache.getIfPresent("key");
+        cache.getIfPresent("missing");
+
+        assertEquals(1, meterRegistry.get("cache.gets").tags("cache", "tokenCache", "result", "hit")
+                .functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tags("cache", "tokenCache", "result", "miss")
+                .functionCounter().count());
+    }
+
+    private Timer find(String upstream, String endpoint, String project, String status, String retries) {
+        return meterRegistry.find(UPSTREAM_REQUESTS_METRIC)
+                .tags(UPSTREAM_TAG, upstream, ENDPOINT_TAG, endpoint, PROJECT_TAG, project, STATUS_TAG, status,
+                        RETRIES_TAG, retries)
+                .timer();
+    }
+}
@@ -2,6 +2,7 @@ package eu.ibagroup.vfdatabricks.services;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.CacheBuilder;
 import eu.ibagroup.vfdatabricks.dto.parameters.ParameterDto;
 import eu.ibagroup.vfdatabricks.dto.parameters.ParameterValue;
 import io.fabric8.kubernetes.api.model.Secret;
@@ -11,17 +12,23 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
 import org.springframework.data.redis.core.HashOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static eu.ibagroup.vfdatabricks.dto.Constants.*;
 import static eu.ibagroup.vfdatabricks.dto.Constants.DESCRIPTION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -39,6 +46,9 @@ public class ParameterServiceTest {
     @Mock
     private DatabricksAPIService databricksAPIService;
 
+    @Mock
+    private SecretSyncService secretSyncService;
+
     private ParameterService parameterService;
 
     private static final String PROJECT_ID = "vf-project-name";
@@ -46,7 +56,8 @@ public class ParameterServiceTest {
 
     @BeforeEach
     void setUp() {
-        parameterService = new ParameterService(redisTemplate, new ObjectMapper(), databricksAPIService);
+        parameterService = new ParameterService(redisTemplate, new ObjectMapper(), databricksAPIService,
+                secretSyncService, CacheBuilder.newBuilder().build());
     }
 
     @Test
@@ -64,7 +75,6 @@ public class ParameterServiceTest {
     @Test
     void testUpdate() throws JsonProcessingException {
         when(redisTemplate.opsForHash()).thenReturn(hashOperations);
-        when(hashOperations.delete(any(), any())).thenReturn(1L);
         doNothing().when(hashOperations).put(anyString(), anyString(), any());
         parameterService.update("vf-project-name", "key", ParameterDto.builder()
                 .key("key")
@@ -72,6 +82,47 @@ public class ParameterServiceTest {
                 .value(ParameterValue.builder().text("123").build())
                 .build());
         verify(hashOperations).put(eq("projectParams:vf-project-name"), anyString(), any());
+        verify(hashOperations, never()).delete(any(), any());
+        verify(secretSyncService, never()).delete(anyString(), anyString());
+        verify(secretSyncService).put(eq(PROJECT_ID), any());
+    }
+
+    @Test
+    void testUpdateWithNewKey() throws JsonProcessingException {
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(List.of(1L, true));
+        parameterService.update("vf-project-name", "oldKey", ParameterDto.builder()
+                .key("key")
+                .secret(false)
+                .value(ParameterValue.builder().text("123").build())
+                .build());
+        verify(redisTemplate).executePipelined(any(SessionCallback.class));
+        verify(redisTemplate, never()).opsForHash();
+        verify(secretSyncService).delete(PROJECT_ID, "oldKey");
+        verify(secretSyncService).put(eq(PROJECT_ID), any());
+    }
+
+    @Test
+    void testCreateAll() throws JsonProcessingException {
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        parameterService.createAll(PROJECT_ID, List.of(
+                ParameterDto.builder().key("key1").value(ParameterValue.builder().text("1").build()).build(),
+                ParameterDto.builder().key("key2").value(ParameterValue.builder().text("2").build()).build()));
+        verify(hashOperations).putAll(eq("projectParams:vf-project-name"),
+                argThat((Map<String, String> fields) -> fields.keySet().equals(Set.of(
+                        "projectParams:vf-project-name:params:key1",
+                        "projectParams:vf-project-name:params:key2"))));
+        verify(hashOperations, never()).put(any(), any(), any());
+        verify(secretSyncService, times(2)).put(eq(PROJECT_ID), any());
+    }
+
+    @Test
+    void testDeleteAll() {
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        parameterService.deleteAll(PROJECT_ID, List.of("key1", "key2"));
+        verify(hashOperations).delete("projectParams:vf-project-name",
+                "projectParams:vf-project-name:params:key1", "projectParams:vf-project-name:params:key2");
+        verify(secretSyncService).delete(PROJECT_ID, "key1");
+        verify(secretSyncService).delete(PROJECT_ID, "key2");
     }
 
     @Test
@@ -102,4 +153,70 @@ public class ParameterServiceTest {
         verify(hashOperations).delete(any(), any());
     }
 
+    @Test
+    void testGetParametersIsCached() throws IOException {
+        String jsonParameter = Files.readString(Path.of("", "src/test/resources").resolve("params.json"));
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries("projectParams:vf-project-name"))
+                .thenReturn(Map.of("projectParams:vf-project-name:params:param1", jsonParameter));
+
+        assertEquals("param1Value", parameterService.getParameters(PROJECT_ID).get("param1").getValue().getText());
+        assertEquals(1, parameterService.getAll(PROJECT_ID).getParams().size());
+        verify(hashOperations).entries(any());
+
+        parameterService.onMessage(new DefaultMessage(PARAMETER_CACHE_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                PROJECT_ID.getBytes(StandardCharsets.UTF_8)), null);
+        parameterService.getParameters(PROJECT_ID);
+        verify(hashOperations, times(2)).entries(any());
+    }
+
+    @Test
+    void testCacheInvalidationAcrossInstances() throws IOException {
+        String jsonParameter = Files.readString(Path.of("", "src/test/resources").resolve("params.json"));
+        ParameterService otherInstance = new ParameterService(redisTemplate, new ObjectMapper(), databricksAPIService,
+                secretSyncService, CacheBuilder.newBuilder().build());
+        // Redis pub/sub delivers the message to every subscribed replica, including the publisher
+        doAnswer(invocation -> {
+            DefaultMessage message = new DefaultMessage(
+                    invocation.<String>getArgument(0).getBytes(StandardCharsets.UTF_8),
+                    invocation.<String>getArgument(1).getBytes(StandardCharsets.UTF_8));
+            parameterService.onMessage(message, null);
+            otherInstance.onMessage(message, null);
+            return 2L;
+        }).when(redisTemplate).convertAndSend(eq(PARAMETER_CACHE_CHANNEL), anyString());
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries("projectParams:vf-project-name"))
+                .thenReturn(Map.of("projectParams:vf-project-name:params:param1", jsonParameter))
+                .thenReturn(Map.of("projectParams:vf-project-name:params:param1",
+                        jsonParameter.replace("param1Value", "newValue")));
+
+        assertEquals("param1Value", otherInstance.getParameters(PROJECT_ID).get("param1").getValue().getText());
+        assertEquals("param1Value", otherInstance.getParameters(PROJECT_ID).get("param1").getValue().getText());
+        verify(hashOperations).entries(any());
+
+        parameterService.update(PROJECT_ID, "param1", ParameterDto.builder()
+                .key("param1")
+                .value(ParameterValue.builder().text("newValue").build())
+                .build());
+
+        assertEquals("newValue", otherInstance.getParameters(PROJECT_ID).get("param1").getValue().getText());
+        assertEquals("newValue", otherInstance.getParameters(PROJECT_ID).get("param1").getValue().getText());
+        verify(hashOperations, times(2)).entries(any());
+    }
+
+    @Test
+    void testReconcileSecrets() throws IOException {
+        String jsonParameter = Files.readString(Path.of("", "src/test/resources").resolve("params.json"));
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries("projectParams:vf-project-name")).thenReturn(Map.of(
+                "projectParams:vf-project-name:params:param1", jsonParameter,
+                "projectParams:vf-project-name:params:param2", jsonParameter.replace("param1", "param2")));
+        when(databricksAPIService.listSecrets(PROJECT_ID)).thenReturn(List.of("param2", "stale"));
+
+        assertEquals(2, parameterService.reconcileSecrets(PROJECT_ID));
+
+        verify(secretSyncService).put(eq(PROJECT_ID), argThat(parameter -> "param1".equals(parameter.getKey())));
+        verify(secretSyncService).delete(PROJECT_ID, "stale");
+        verifyNoMoreInteractions(secretSyncService);
+    }
 }
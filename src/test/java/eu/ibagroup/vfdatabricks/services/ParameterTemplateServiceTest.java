@@ -0,0 +1,79 @@
+package eu.ibagroup.vfdatabricks.services;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import eu.ibagroup.vfdatabricks.dto.parameters.ParameterValue;
+import eu.ibagroup.vfdatabricks.model.Parameter;
+import eu.ibagroup.vfdatabricks.util.ParameterTemplate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ParameterTemplateServiceTest {
+    private static final String PROJECT_ID = "vf-project-name";
+
+    @Mock
+    private ParameterService parameterService;
+    private LoadingCache<String, ParameterTemplate> templateCache;
+    private ParameterTemplateService templateService;
+
+    @BeforeEach
+    void setUp() {
+        templateCache = CacheBuilder.newBuilder().build(CacheLoader.from(ParameterTemplate::compile));
+        templateService = new ParameterTemplateService(parameterService, templateCache);
+    }
+
+    @Test
+    void testCompile() {
+        ParameterTemplate template = ParameterTemplate.compile("#a#-#b#:#a#");
+
+        assertTrue(template.hasParams());
+        assertEquals("1-#b#:1", template.render(Map.of("a", "1")));
+        assertEquals("1-$2\\:1", template.render(Map.of("a", "1", "b", "$2\\")));
+        assertFalse(ParameterTemplate.compile("no params").hasParams());
+        assertEquals("a#b", ParameterTemplate.compile("a#b").render(Map.of("b", "x")));
+    }
+
+    @Test
+    void testSubstitute() {
+        assertEquals("user=admin;pass=#secret#", templateService.substitute("user=#user#;pass=#secret#",
+                Map.of("user", "admin")));
+        assertEquals("plain", templateService.substitute("plain", Map.of()));
+        assertEquals(1, templateCache.size());
+
+        assertEquals("user=root;pass=#secret#", templateService.substitute("user=#user#;pass=#secret#",
+                Map.of("user", "root")));
+        assertEquals(1, templateCache.size());
+        assertSame(templateCache.getUnchecked("user=#user#;pass=#secret#"),
+                templateCache.getUnchecked("user=#user#;pass=#secret#"));
+    }
+
+    @Test
+    void testSubstituteAll() {
+        when(parameterService.getParameters(PROJECT_ID)).thenReturn(Map.of(
+                "host", Parameter.builder().key("host").value(ParameterValue.builder().text("localhost").build())
+                        .build(),
+                "empty", Parameter.builder().key("empty").build()));
+        Map<String, String> connection = new LinkedHashMap<>();
+        connection.put("url", "jdbc://#host#:5432/#empty#");
+        connection.put("user", "admin");
+
+        Map<String, String> result = templateService.substituteAll(PROJECT_ID, connection);
+
+        assertEquals(Map.of("url", "jdbc://localhost:5432/#empty#", "user", "admin"), result);
+        assertEquals("jdbc://#host#:5432/#empty#", connection.get("url"));
+    }
+}
@@ -8,22 +8,30 @@ import eu.ibagroup.vfdatabricks.dto.jobs.CommonDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.JobDto;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.*;
 import eu.ibagroup.vfdatabricks.dto.notifications.EmailNotification;
+import eu.ibagroup.vfdatabricks.dto.pipelines.CronOverlapPolicy;
 import eu.ibagroup.vfdatabricks.dto.pipelines.PipelineDto;
 import eu.ibagroup.vfdatabricks.dto.pipelines.PipelineOverviewDto;
 import eu.ibagroup.vfdatabricks.dto.pipelines.PipelineParams;
+import eu.ibagroup.vfdatabricks.services.events.PipelineFinishedEvent;
+import eu.ibagroup.vfdatabricks.services.events.PipelineStartedEvent;
+import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Answers.RETURNS_DEEP_STUBS;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -47,6 +55,10 @@ class PipelineServiceTest {
     private CronCheckService cronCheckService;
     @Mock
     private SchedulerService schedulerService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Spy
+    private TracingService tracingService = new TracingService(ObservationRegistry.NOOP);
 
     @Spy
     @InjectMocks
@@ -136,6 +148,91 @@ class PipelineServiceTest {
         pipelineService.run(projectId, id);
 
         verify(restTemplate, times(2)).put(anyString(), any(PipelineDto.class));
+        verify(eventPublisher).publishEvent(any(PipelineStartedEvent.class));
+        verify(databricksApiService).runJob(eq(projectId),
+                argThat((DatabricksJobStorageRunDto run) -> UUID.fromString(run.getIdempotencyToken()) != null),
+                any());
+    }
+
+    @Test
+    void shouldPublishFinishedEventWhenRunIsObservedFinished() throws JsonProcessingException {
+        PipelineDto pipelineDto = PipelineDto.builder()
+                .definition(objectMapper.readTree("{\"graph\": []}"))
+                .build();
+        pipelineDto.setId("id");
+        pipelineDto.setRunId(123);
+        DatabricksJobRunDto result = DatabricksJobRunDto.builder().tasks(List.of()).build();
+        when(restTemplate.getForEntity(anyString(), eq(PipelineDto.class)))
+                .thenReturn(ResponseEntity.ok(pipelineDto));
+        when(asyncJobCheckService.checkAndUpdateStatus(anyString(), any())).thenAnswer(invocation -> {
+            pipelineDto.setStatus("Succeeded");
+            return CompletableFuture.completedFuture(result);
+        });
+
+        pipelineService.getByIdAndFetchStatus("projectId", "id");
+
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof PipelineFinishedEvent finished
+                && finished.getRunId() == 123 && "Succeeded".equals(finished.getStatus())));
+    }
+
+    @Test
+    void shouldSkipScheduledRunWhenPreviousRunIsActive() {
+        PipelineDto pipelineDto = PipelineDto.builder().build();
+        pipelineDto.setStatus("Running");
+        pipelineDto.setRunId(123);
+        DatabricksJobState state = new DatabricksJobState();
+        when(restTemplate.getForEntity(anyString(), eq(PipelineDto.class)))
+                .thenReturn(ResponseEntity.ok(pipelineDto));
+        when(databricksApiService.checkJobStatus("projectId", 123))
+                .thenReturn(DatabricksJobRunDto.builder().state(state).build());
+        when(mapperService.mapStatus(state)).thenReturn("Running");
+
+        assertFalse(pipelineService.runScheduled("projectId", "id", CronOverlapPolicy.QUEUE));
+
+        verify(databricksApiService, never()).runJob(anyString(), any(), any());
+        verify(jobService, never()).getJob(anyString(), anyString());
+    }
+
+    @Test
+    void shouldCancelPreviousRunOnScheduledRun() throws JsonProcessingException {
+        PipelineDto pipelineDto = PipelineDto.builder()
+                .definition(objectMapper.readTree("{\"graph\": []}"))
+                .params(PipelineParams.builder().email(EmailNotification.builder().build()).build())
+                .build();
+        pipelineDto.setStatus("Pending");
+        when(restTemplate.getForEntity(anyString(), eq(PipelineDto.class)))
+                .thenReturn(ResponseEntity.ok(pipelineDto));
+        when(databricksApiService.runJob(anyString(), any(DatabricksJobStorageRunDto.class), any()))
+                .thenReturn(CompletableFuture.completedFuture(new DatabricksRunIdDto()));
+
+        assertTrue(pipelineService.runScheduled("projectId", "id", CronOverlapPolicy.CANCEL_PREVIOUS));
+
+        verify(databricksApiService).cancelJob("projectId", 0);
+        verify(databricksApiService, never()).checkJobStatus(anyString(), anyLong());
+        verify(asyncJobCheckService, never()).checkAndUpdateStatus(anyString(), any());
+    }
+
+    @Test
+    void shouldStartScheduledRunWhenStoredStatusIsOutdated() throws JsonProcessingException {
+        PipelineDto pipelineDto = PipelineDto.builder()
+                .definition(objectMapper.readTree("{\"graph\": []}"))
+                .params(PipelineParams.builder().email(EmailNotification.builder().build()).build())
+                .build();
+        pipelineDto.setStatus("Running");
+        pipelineDto.setRunId(123);
+        DatabricksJobState state = new DatabricksJobState();
+        when(restTemplate.getForEntity(anyString(), eq(PipelineDto.class)))
+                .thenReturn(ResponseEntity.ok(pipelineDto));
+        when(databricksApiService.checkJobStatus("projectId", 123))
+                .thenReturn(DatabricksJobRunDto.builder().state(state).build());
+        when(mapperService.mapStatus(state)).thenReturn("Succeeded");
+        when(databricksApiService.runJob(anyString(), any(DatabricksJobStorageRunDto.class), any()))
+                .thenReturn(CompletableFuture.completedFuture(new DatabricksRunIdDto()));
+
+        assertTrue(pipelineService.runScheduled("projectId", "id", CronOverlapPolicy.SKIP));
+
+        verify(databricksApiService, never()).cancelJob(anyString(), anyLong());
+        verify(restTemplate, times(2)).put(anyString(), any(PipelineDto.class));
     }
 
     @Test
@@ -4,18 +4,37 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import eu.ibagroup.vfdatabricks.dto.GraphDto;
+import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobCluster;
+import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobNewCluster;
+import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobSparkJarTask;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DatabricksJobTask;
 import eu.ibagroup.vfdatabricks.dto.jobs.databricks.DependentTask;
+import eu.ibagroup.vfdatabricks.dto.jobs.databricks.RunIf;
+import eu.ibagroup.vfdatabricks.exceptions.BadRequestException;
+import eu.ibagroup.vfdatabricks.services.jfr.PipelineCompileEvent;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.apache.commons.lang3.ArrayUtils;
 import org.hamcrest.Matcher;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class PipelineTransformerTest {
     public static final String GRAPH = """
@@ -328,4 +347,197 @@ class PipelineTransformerTest {
                 )
         ));
     }
-}
\ No newline at end of file
+
+    private static DatabricksJobTask task(String taskKey, String nodeType, String jobConfig, boolean dedicated) {
+        return DatabricksJobTask.builder()
+                .taskKey(taskKey)
+                .newCluster(DatabricksJobNewCluster.builder()
+                        .nodeTypeId(nodeType)
+                        .autoScale(new DatabricksJobNewCluster.AutoScale(1, 2))
+                        .sparkEnvVars(Map.of("JOB_CONFIG", jobConfig, "JOB_DEFINITION", "def", "UP_TO", "10"))
+                        .build())
+                .sparkJarTask(DatabricksJobSparkJarTask.builder().mainClassName("Main").build())
+                .dedicatedCluster(dedicated)
+                .build();
+    }
+
+    @Test
+    void shareJobClustersShouldGroupIdenticalSpecs() {
+        List<DatabricksJobTask> tasks = List.of(
+                task("a", "small", "configA", false),
+                task("b", "small", "configB", false),
+                task("c", "large", "configC", false),
+                task("d", "small", "configD", true));
+
+        List<DatabricksJobCluster> jobClusters = PipelineTransformer.shareJobClusters(tasks);
+
+        assertThat(jobClusters, hasSize(1));
+        DatabricksJobCluster jobCluster = jobClusters.get(0);
+        assertThat(jobCluster.getNewCluster().getNodeTypeId(), is("small"));
+        assertThat(jobCluster.getNewCluster().getSparkEnvVars(), is(Map.of("UP_TO", "10")));
+        assertThat(tasks.get(0).getJobClusterKey(), is(jobCluster.getJobClusterKey()));
+        assertThat(tasks.get(0).getNewCluster(), nullValue());
+        assertThat(tasks.get(0).getSparkJarTask().getMainClassName(), is("Main"));
+        assertThat(tasks.get(0).getSparkJarTask().getParameters(),
+                contains("JOB_CONFIG=configA", "JOB_DEFINITION=def"));
+        assertThat(tasks.get(1).getJobClusterKey(), is(jobCluster.getJobClusterKey()));
+        assertThat(tasks.get(1).getSparkJarTask().getParameters(),
+                contains("JOB_CONFIG=configB", "JOB_DEFINITION=def"));
+        assertThat(tasks.get(2).getJobClusterKey(), nullValue());
+        assertThat(tasks.get(2).getNewCluster(), notNullValue());
+        assertThat(tasks.get(3).getJobClusterKey(), nullValue());
+        assertThat(tasks.get(3).getSparkJarTask().getParameters(), nullValue());
+    }
+
+    private static GraphDto.NodeDto node(String id, Map<String, String> value) {
+        return GraphDto.NodeDto.builder().id(id).value(value).edges(new ArrayList<>()).build();
+    }
+
+    private static GraphDto.NodeDto jobNode(String id) {
+        return node(id, Map.of("operation", "JOB", "jobId", "job" + id, "name", "job"));
+    }
+
+    private static GraphDto.NodeDto pipelineNode(String id, String pipelineId) {
+        return node(id, Map.of("operation", "PIPELINE", "pipelineId", pipelineId, "name", "pipe"));
+    }
+
+    private static void connect(GraphDto.NodeDto source, GraphDto.NodeDto target, String successPath) {
+        GraphDto.EdgeDto edge = new GraphDto.EdgeDto(Map.of("successPath", successPath),
+                source.getId(), target.getId());
+        source.getEdges().add(edge);
+        target.getEdges().add(edge);
+    }
+
+    /**
+     * Chain of diamonds: each fork node is followed by two branches joined by the next fork node.
+     * Every fifth left branch is a nested pipeline, which is a diamond itself.
+     */
+    private static GraphDto diamonds(int diamondCount) {
+        List<GraphDto.NodeDto> nodes = new ArrayList<>();
+        GraphDto.NodeDto fork = jobNode("0");
+        nodes.add(fork);
+        for (int i = 0; i < diamondCount; i++) {
+            GraphDto.NodeDto left = i % 5 == 0 ? pipelineNode("l" + i, "diamond") : jobNode("l" + i);
+            GraphDto.NodeDto right = jobNode("r" + i);
+            GraphDto.NodeDto join = jobNode(String.valueOf(i + 1));
+            connect(fork, left, "true");
+            connect(fork, right, "true");
+            connect(left, join, "true");
+            connect(right, join, "true");
+            nodes.addAll(List.of(left, right, join));
+            fork = join;
+        }
+        return new GraphDto(nodes, List.of());
+    }
+
+    private static GraphDto diamond() {
+        GraphDto.NodeDto top = jobNode("1");
+        GraphDto.NodeDto left = jobNode("2");
+        GraphDto.NodeDto right = jobNode("3");
+        GraphDto.NodeDto bottom = jobNode("4");
+        connect(top, left, "true");
+        connect(top, right, "false");
+        connect(left, bottom, "true");
+        connect(right, bottom, "true");
+        return new GraphDto(List.of(top, left, right, bottom), List.of());
+    }
+
+    private static Map<String, DatabricksJobTask> byTaskKey(List<DatabricksJobTask> tasks) {
+        Map<String, DatabricksJobTask> result = new HashMap<>();
+        tasks.forEach(task -> result.put(task.getTaskKey(), task));
+        return result;
+    }
+
+    @Test
+    void transformShouldResolveDiamondsAndNestedPipelines() {
+        AtomicInteger providerCalls = new AtomicInteger();
+        PipelineTransformer pipelineTransformer = new PipelineTransformer(pipelineId -> {
+            providerCalls.incrementAndGet();
+            return diamond();
+        }, jobId -> new DatabricksJobTask());
+
+        Map<String, DatabricksJobTask> tasks = byTaskKey(pipelineTransformer.transform(diamonds(6)));
+
+        assertThat(tasks.size(), is(1 + 6 * 3 + 2 * 3));
+        assertThat(providerCalls.get(), is(1));
+        assertThat(tasks.get("job-0"), getDatabricksJobTaskMatcher("job-0"));
+        assertThat(tasks.get("job-l0-1"), getDatabricksJobTaskMatcher("job-l0-1", "job-0"));
+        assertThat(tasks.get("job-l0-3"), getDatabricksJobTaskMatcher("job-l0-3", "job-l0-1"));
+        assertThat(tasks.get("job-l0-3").getRunIf(), is(RunIf.ALL_FAILED));
+        assertThat(tasks.get("job-1"), getDatabricksJobTaskMatcher("job-1", "job-l0-4", "job-r0"));
+        assertThat(tasks.get("job-l1"), getDatabricksJobTaskMatcher("job-l1", "job-1"));
+        assertThat(tasks.get("job-2"), getDatabricksJobTaskMatcher("job-2", "job-l1", "job-r1"));
+        assertThat(tasks.get("job-2").getRunIf(), is(RunIf.ALL_SUCCESS));
+        assertThat(tasks.get("job-l5-1"), getDatabricksJobTaskMatcher("job-l5-1", "job-5"));
+        assertThat(tasks.get("job-6"), getDatabricksJobTaskMatcher("job-6", "job-l5-4", "job-r5"));
+    }
+
+    @Test
+    void transformShouldRecordCompileEvent() throws IOException {
+        PipelineTransformer pipelineTransformer =
+                new PipelineTransformer(pipelineId -> diamond(), jobId -> new DatabricksJobTask());
+        Path file = Files.createTempFile("pipeline-compile", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(PipelineCompileEvent.class);
+            recording.start();
+            pipelineTransformer.transform(diamonds(6));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+
+        assertThat(events.size(), is(1));
+        assertThat(events.get(0).getInt("nodes"), is(1 + 6 * 3 + 2 * 4));
+        assertThat(events.get(0).getInt("tasks"), is(1 + 6 * 3 + 2 * 3));
+        assertThat(events.get(0).getInt("nestedPipelines"), is(1));
+        assertThat(events.get(0).getInt("nestingDepth"), is(1));
+    }
+
+    @Test
+    void transformShouldFailOnMixedIncomingPaths() {
+        GraphDto.NodeDto first = jobNode("1");
+        GraphDto.NodeDto second = jobNode("2");
+        GraphDto.NodeDto third = jobNode("3");
+        connect(first, third, "true");
+        connect(second, third, "false");
+        PipelineTransformer pipelineTransformer = new PipelineTransformer(provider, jobId -> new DatabricksJobTask());
+        GraphDto graphDto = new GraphDto(List.of(first, second, third), List.of());
+
+        assertThrows(BadRequestException.class, () -> pipelineTransformer.transform(graphDto));
+    }
+
+    @Test
+    void transformShouldFailOnSelfIncludedPipeline() {
+        GraphDto.NodeDto first = jobNode("1");
+        GraphDto.NodeDto pipeline = pipelineNode("2", "loop");
+        connect(first, pipeline, "true");
+        GraphDto graphDto = new GraphDto(List.of(first, pipeline), List.of());
+        PipelineTransformer pipelineTransformer =
+                new PipelineTransformer(pipelineId -> graphDto, jobId -> new DatabricksJobTask());
+
+        assertThrows(BadRequestException.class, () -> pipelineTransformer.transform(graphDto));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {500, 5000})
+    void transformShouldCallProvidersOncePerPipelineAndTask(int diamondCount) {
+        AtomicInteger pipelineProviderCalls = new AtomicInteger();
+        AtomicInteger taskProviderCalls = new AtomicInteger();
+        PipelineTransformer pipelineTransformer = new PipelineTransformer(pipelineId -> {
+            pipelineProviderCalls.incrementAndGet();
+            return diamond();
+        }, jobId -> {
+            taskProviderCalls.incrementAndGet();
+            return new DatabricksJobTask();
+        });
+        int nestedPipelines = (diamondCount + 4) / 5;
+
+        List<DatabricksJobTask> tasks = pipelineTransformer.transform(diamonds(diamondCount));
+
+        assertThat(tasks, hasSize(1 + diamondCount * 3 + nestedPipelines * 3));
+        assertThat(pipelineProviderCalls.get(), is(1));
+        assertThat(taskProviderCalls.get(), is(tasks.size()));
+    }
+}
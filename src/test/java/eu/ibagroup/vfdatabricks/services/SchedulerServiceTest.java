@@ -1,15 +1,35 @@
 package eu.ibagroup.vfdatabricks.services;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import eu.ibagroup.vfdatabricks.dto.pipelines.CronOverlapPolicy;
 import eu.ibagroup.vfdatabricks.dto.pipelines.CronPipelineDto;
+import eu.ibagroup.vfdatabricks.services.quartz.CronJob;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.quartz.*;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.quartz.JobStoreType;
+import org.springframework.boot.autoconfigure.quartz.QuartzProperties;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
 import org.springframework.scheduling.quartz.SchedulerFactoryBean;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static eu.ibagroup.vfdatabricks.dto.Constants.CRON_CACHE_CHANNEL;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -20,13 +40,21 @@ class SchedulerServiceTest {
     private SchedulerFactoryBean schedulerFactoryBean;
     @Mock
     private Scheduler scheduler;
-
-    @InjectMocks
+    @Mock
+    private ObjectProvider<JdbcTemplate> jdbcTemplateProvider;
+    @Mock
+    private QuartzProperties quartzProperties;
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+    private Cache<String, Map<String, CronPipelineDto>> cronCache;
     private SchedulerService schedulerService;
 
     @BeforeEach
     void setUp() throws SchedulerException {
-        when(schedulerFactoryBean.getScheduler()).thenReturn(scheduler);
+        lenient().when(schedulerFactoryBean.getScheduler()).thenReturn(scheduler);
+        cronCache = CacheBuilder.newBuilder().build();
+        schedulerService = new SchedulerService(schedulerFactoryBean, quartzProperties, jdbcTemplateProvider,
+                redisTemplate, cronCache);
     }
 
     @Test
@@ -75,12 +103,167 @@ class SchedulerServiceTest {
     void testGetCronShouldReturnCronPipelineDto() throws SchedulerException {
         CronTrigger cronTrigger = mock(CronTrigger.class);
         doReturn("0 0/5 * * * ?").when(cronTrigger).getCronExpression();
-        when(scheduler.getTrigger(any(TriggerKey.class))).thenReturn(cronTrigger);
-        when(scheduler.getTriggerState(any(TriggerKey.class))).thenReturn(Trigger.TriggerState.PAUSED);
+        TriggerKey triggerKey = TriggerKey.triggerKey("TriggerName-pipeline1", "TriggerGroupproject1");
+        when(quartzProperties.getJobStoreType()).thenReturn(JobStoreType.MEMORY);
+        when(scheduler.getTriggerKeys(any())).thenReturn(Set.of(triggerKey));
+        when(scheduler.getTrigger(triggerKey)).thenReturn(cronTrigger);
+        when(scheduler.getTriggerState(triggerKey)).thenReturn(Trigger.TriggerState.PAUSED);
 
         CronPipelineDto actual = schedulerService.getCron("project1", "pipeline1");
         CronPipelineDto expected = CronPipelineDto.builder().schedule("0/5 * * * *").suspend(true).build();
         assertEquals(expected, actual);
+        assertNull(schedulerService.getCron("project1", "pipeline2"));
+        verify(scheduler).getTriggerKeys(any());
     }
 
+    @Test
+    void testGetCronShouldReturnOverlapSettings() throws SchedulerException {
+        cronCache.put("project1", Map.of("pipeline1", CronPipelineDto.builder().schedule("* * * * *").build()));
+        JobDetail jobDetail = JobBuilder.newJob(CronJob.class)
+                .withIdentity("job")
+                .usingJobData("overlapPolicy", "QUEUE")
+                .usingJobData("jitterSeconds", 120)
+                .build();
+        when(scheduler.getJobDetail(JobKey.jobKey("JobName-pipeline1", "JobGroupproject1"))).thenReturn(jobDetail);
+
+        CronPipelineDto expected = CronPipelineDto.builder()
+                .schedule("* * * * *")
+                .overlapPolicy(CronOverlapPolicy.QUEUE)
+                .jitterSeconds(120)
+                .build();
+        assertEquals(expected, schedulerService.getCron("project1", "pipeline1"));
+    }
+
+    @Test
+    void testUpdateCronShouldStoreOverlapSettings() throws SchedulerException {
+        when(scheduler.getTrigger(any(TriggerKey.class))).thenReturn(mock(CronTrigger.class));
+        JobDetail jobDetail = JobBuilder.newJob(CronJob.class)
+                .withIdentity("job")
+                .usingJobData("overlapPolicy", "QUEUE")
+                .storeDurably()
+                .build();
+        when(scheduler.getJobDetail(any(JobKey.class))).thenReturn(jobDetail);
+
+        schedulerService.updateCron("project1", "pipeline1", CronPipelineDto.builder().jitterSeconds(30).build());
+
+        ArgumentCaptor<JobDetail> captor = ArgumentCaptor.forClass(JobDetail.class);
+        verify(scheduler).addJob(captor.capture(), eq(true));
+        assertEquals("QUEUE", captor.getValue().getJobDataMap().getString("overlapPolicy"));
+        assertEquals(30, captor.getValue().getJobDataMap().getIntValue("jitterSeconds"));
+    }
+
+    @Test
+    void testDeferRunShouldCoalesceWaitingRuns() throws SchedulerException {
+        TriggerKey firing = TriggerKey.triggerKey("DeferredTriggerName-pipeline1-1", "DeferredTriggerGroupproject1");
+        Trigger firingTrigger = mock(Trigger.class);
+        when(firingTrigger.getKey()).thenReturn(firing);
+        doReturn(List.of(firingTrigger)).when(scheduler).getTriggersOfJob(any(JobKey.class));
+
+        assertTrue(schedulerService.deferRun("project1", "pipeline1", 1000L, firing));
+        ArgumentCaptor<Trigger> captor = ArgumentCaptor.forClass(Trigger.class);
+        verify(scheduler).scheduleJob(captor.capture());
+        assertEquals("DeferredTriggerGroupproject1", captor.getValue().getKey().getGroup());
+        assertTrue(captor.getValue().getJobDataMap().containsKey("deferred"));
+
+        assertFalse(schedulerService.deferRun("project1", "pipeline1", 1000L, null));
+        verify(scheduler, times(1)).scheduleJob(any(Trigger.class));
+    }
+
+    @Test
+    void testGetCronsShouldServeCachedCrons() throws SchedulerException {
+        Map<String, CronPipelineDto> crons = Map.of("pipeline1", CronPipelineDto.builder().schedule("* * * * *").build());
+        cronCache.put("project1", crons);
+
+        assertEquals(crons, schedulerService.getCrons("project1"));
+        verify(scheduler, never()).getTriggerKeys(any());
+    }
+
+    @Test
+    void testCronMutationsShouldUpdateCacheAndNotifyReplicas() throws SchedulerException {
+        cronCache.put("project1", Map.of("pipeline1", CronPipelineDto.builder().schedule("* * * * *").build()));
+        when(scheduler.getTrigger(any(TriggerKey.class))).thenReturn(mock(CronTrigger.class));
+        when(scheduler.getTriggerState(any(TriggerKey.class))).thenReturn(Trigger.TriggerState.NORMAL);
+
+        schedulerService.createCron("project1", "pipeline2", CronPipelineDto.builder().schedule("0 12 * * *").build());
+        schedulerService.updateCron("project1", "pipeline1", CronPipelineDto.builder().suspend(true).build());
+        schedulerService.deleteCron("project1", "pipeline2");
+
+        assertEquals(Map.of("pipeline1", CronPipelineDto.builder().schedule("* * * * *").suspend(true).build()),
+                schedulerService.getCrons("project1"));
+        verify(redisTemplate, times(3)).convertAndSend(eq(CRON_CACHE_CHANNEL), endsWith(":project1"));
+        verify(scheduler, never()).getTriggerKeys(any());
+    }
+
+    @Test
+    void testOnMessageShouldInvalidateOnlyChangesOfOtherReplicas() throws SchedulerException {
+        cronCache.put("project1", Map.of());
+        when(scheduler.deleteJob(any(JobKey.class))).thenReturn(true);
+        schedulerService.deleteCron("project1", "pipeline1");
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(CRON_CACHE_CHANNEL), captor.capture());
+
+        schedulerService.onMessage(message(captor.getValue()));
+        assertNotNull(cronCache.getIfPresent("project1"));
+
+        schedulerService.onMessage(message("other-replica:project1"));
+        assertNull(cronCache.getIfPresent("project1"));
+    }
+
+    @Test
+    void testGetCronsShouldUseSchedulerApiForMemoryStore() throws SchedulerException {
+        CronTrigger cronTrigger = mock(CronTrigger.class);
+        doReturn("0 0/5 * * * ?").when(cronTrigger).getCronExpression();
+        TriggerKey triggerKey = TriggerKey.triggerKey("TriggerName-pipeline1", "TriggerGroupproject1");
+        when(quartzProperties.getJobStoreType()).thenReturn(JobStoreType.MEMORY);
+        when(scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals("TriggerGroupproject1")))
+                .thenReturn(Set.of(triggerKey));
+        when(scheduler.getTrigger(triggerKey)).thenReturn(cronTrigger);
+        when(scheduler.getTriggerState(triggerKey)).thenReturn(Trigger.TriggerState.NORMAL);
+
+        Map<String, CronPipelineDto> actual = schedulerService.getCrons("project1");
+
+        assertEquals(Map.of("pipeline1", CronPipelineDto.builder().schedule("0/5 * * * *").build()), actual);
+    }
+
+    @Test
+    void testGetCronsShouldQueryTriggerTablesForJdbcStore() throws SchedulerException {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).build();
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+            jdbcTemplate.execute("CREATE TABLE QRTZ_TRIGGERS (SCHED_NAME VARCHAR(120), TRIGGER_NAME VARCHAR(200), "
+                    + "TRIGGER_GROUP VARCHAR(200), TRIGGER_STATE VARCHAR(16))");
+            jdbcTemplate.execute("CREATE TABLE QRTZ_CRON_TRIGGERS (SCHED_NAME VARCHAR(120), "
+                    + "TRIGGER_NAME VARCHAR(200), TRIGGER_GROUP VARCHAR(200), CRON_EXPRESSION VARCHAR(120))");
+            insertTrigger(jdbcTemplate, "vf", "pipeline1", "project1", "WAITING", "0 0/5 * * * ?");
+            insertTrigger(jdbcTemplate, "vf", "pipeline2", "project1", "PAUSED_BLOCKED", "0 0 12 * * ?");
+            insertTrigger(jdbcTemplate, "vf", "pipeline3", "project2", "WAITING", "0 0 12 * * ?");
+            insertTrigger(jdbcTemplate, "other", "pipeline4", "project1", "WAITING", "0 0 12 * * ?");
+            when(quartzProperties.getJobStoreType()).thenReturn(JobStoreType.JDBC);
+            when(jdbcTemplateProvider.getIfAvailable()).thenReturn(jdbcTemplate);
+            when(scheduler.getSchedulerName()).thenReturn("vf");
+
+            Map<String, CronPipelineDto> actual = schedulerService.getCrons("project1");
+
+            assertEquals(Map.of(
+                    "pipeline1", CronPipelineDto.builder().schedule("0/5 * * * *").build(),
+                    "pipeline2", CronPipelineDto.builder().schedule("0 12 * * *").suspend(true).build()
+            ), actual);
+            verify(scheduler, never()).getTrigger(any(TriggerKey.class));
+        } finally {
+            database.shutdown();
+        }
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CRON_CACHE_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void insertTrigger(JdbcTemplate jdbcTemplate, String schedulerName, String pipelineId,
+                                      String projectId, String state, String cronExpression) {
+        jdbcTemplate.update("INSERT INTO QRTZ_TRIGGERS VALUES (?, ?, ?, ?)", schedulerName,
+                "TriggerName-" + pipelineId, "TriggerGroup" + projectId, state);
+        jdbcTemplate.update("INSERT INTO QRTZ_CRON_TRIGGERS VALUES (?, ?, ?, ?)", schedulerName,
+                "TriggerName-" + pipelineId, "TriggerGroup" + projectId, cronExpression);
+    }
 }
@@ -0,0 +1,130 @@
+package eu.ibagroup.vfdatabricks.services;
+
+import eu.ibagroup.vfdatabricks.config.ApplicationConfigurationProperties;
+import eu.ibagroup.vfdatabricks.dto.parameters.ParameterValue;
+import eu.ibagroup.vfdatabricks.exceptions.ForRetryRestTemplateException;
+import eu.ibagroup.vfdatabricks.exceptions.RestTemplateException;
+import eu.ibagroup.vfdatabricks.model.Parameter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SecretSyncServiceTest {
+    private static final String PROJECT_ID = "vf-project-name";
+
+    @Mock
+    private DatabricksAPIService databricksAPIService;
+    @Mock
+    private ThreadPoolTaskScheduler taskScheduler;
+    private final List<Runnable> queued = new ArrayList<>();
+    private SecretSyncService secretSyncService;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationConfigurationProperties.DatabricksSettings databricks =
+                new ApplicationConfigurationProperties.DatabricksSettings();
+        databricks.getSecretSync().setMaxAttempts(3);
+        ApplicationConfigurationProperties appProperties = new ApplicationConfigurationProperties();
+        appProperties.setDatabricks(databricks);
+        lenient().doAnswer(invocation -> queued.add(invocation.getArgument(0)))
+                .when(taskScheduler).execute(any(Runnable.class));
+        secretSyncService = new SecretSyncService(databricksAPIService, taskScheduler, appProperties);
+    }
+
+    @Test
+    void testRepeatedWritesAreCoalesced() {
+        secretSyncService.put(PROJECT_ID, parameter("key", "1"));
+        secretSyncService.put(PROJECT_ID, parameter("key", "2"));
+        secretSyncService.put(PROJECT_ID, parameter("other", "3"));
+        assertEquals(2, secretSyncService.getPendingCount());
+        assertEquals(2, queued.size());
+
+        runQueued();
+
+        ArgumentCaptor<Parameter> captor = ArgumentCaptor.forClass(Parameter.class);
+        verify(databricksAPIService, times(2)).addSecret(eq(PROJECT_ID), captor.capture());
+        assertEquals("2", captor.getAllValues().get(0).getValue().getText());
+        assertEquals("3", captor.getAllValues().get(1).getValue().getText());
+        assertEquals(0, secretSyncService.getPendingCount());
+    }
+
+    @Test
+    void testDeleteAfterPutSendsOnlyDelete() {
+        secretSyncService.put(PROJECT_ID, parameter("key", "1"));
+        secretSyncService.delete(PROJECT_ID, "key");
+
+        runQueued();
+
+        verify(databricksAPIService).deleteSecret(PROJECT_ID, "key");
+        verify(databricksAPIService, never()).addSecret(anyString(), any());
+    }
+
+    @Test
+    void testThrottledOperationIsRetriedWithBackoff() {
+        doThrow(new ForRetryRestTemplateException("429")).doNothing()
+                .when(databricksAPIService).deleteSecret(PROJECT_ID, "key");
+        secretSyncService.delete(PROJECT_ID, "key");
+
+        runQueued();
+
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).schedule(retry.capture(), any(Instant.class));
+        retry.getValue().run();
+        runQueued();
+        verify(databricksAPIService, times(2)).deleteSecret(PROJECT_ID, "key");
+    }
+
+    @Test
+    void testOutdatedRetryIsDropped() {
+        doThrow(new ForRetryRestTemplateException("429"))
+                .when(databricksAPIService).addSecret(eq(PROJECT_ID), any());
+        secretSyncService.put(PROJECT_ID, parameter("key", "1"));
+        runQueued();
+        secretSyncService.delete(PROJECT_ID, "key");
+        runQueued();
+
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).schedule(retry.capture(), any(Instant.class));
+        retry.getValue().run();
+
+        assertEquals(0, secretSyncService.getPendingCount());
+        assertEquals(0, queued.size());
+        verify(databricksAPIService).addSecret(eq(PROJECT_ID), any());
+        verify(databricksAPIService).deleteSecret(PROJECT_ID, "key");
+    }
+
+    @Test
+    void testNonRetryableErrorIsNotRetried() {
+        doThrow(new RestTemplateException("RESOURCE_DOES_NOT_EXIST"))
+                .when(databricksAPIService).deleteSecret(PROJECT_ID, "key");
+        secretSyncService.delete(PROJECT_ID, "key");
+
+        runQueued();
+
+        verify(taskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    private void runQueued() {
+        while (!queued.isEmpty()) {
+            queued.remove(0).run();
+        }
+    }
+
+    private static Parameter parameter(String key, String value) {
+        return Parameter.builder().key(key).value(ParameterValue.builder().text(value).build()).build();
+    }
+}
@@ -0,0 +1,100 @@
+package eu.ibagroup.vfdatabricks.services;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import io.micrometer.tracing.test.simple.SimpleSpan;
+import io.micrometer.tracing.test.simple.SimpleTracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static eu.ibagroup.vfdatabricks.dto.Constants.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TracingServiceTest {
+    private SimpleTracer tracer;
+    private ObservationRegistry observationRegistry;
+    private TracingService tracingService;
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        tracer = new SimpleTracer();
+        observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultTracingObservationHandler(tracer));
+        tracingService = new TracingService(observationRegistry);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testTraceCreatesChildSpans() {
+        String result = tracingService.trace("pipeline run", "vf-project", () ->
+                tracingService.trace("pipeline compile", null, () -> "compiled"));
+
+        assertEquals("compiled", result);
+        Map<String, SimpleSpan> spans = getSpans();
+        assertEquals(2, spans.size());
+        assertEquals(Map.of(OPERATION_TAG, "pipeline run", PROJECT_TAG, "vf-project"),
+                spans.get("pipeline run").getTags());
+        assertEquals(NONE_TAG_VALUE, spans.get("pipeline compile").getTags().get(PROJECT_TAG));
+        assertEquals(spans.get("pipeline run").getSpanId(), spans.get("pipeline compile").getParentId());
+    }
+
+    @Test
+    void testTraceRecordsErrorAndEvents() {
+        assertThrows(IllegalStateException.class, () -> tracingService.trace("databricks runs/submit",
+                "vf-project", () -> {
+                    tracingService.event(RETRY_EVENT);
+                    throw new IllegalStateException("failed");
+                }));
+
+        SimpleSpan span = getSpans().get("databricks runs/submit");
+        assertEquals(IllegalStateException.class, span.getError().getClass());
+        assertEquals(RETRY_EVENT, span.getEvents().iterator().next().getValue());
+    }
+
+    @Test
+    void testTraceContextIsPropagatedToExecutor() {
+        Observation.createNotStarted("http.server.requests", observationRegistry).contextualName("request")
+                .observe(() -> CompletableFuture.runAsync(() ->
+                        tracingService.trace("kubernetes secrets/get", "vf-project", () -> { }), executor).join());
+
+        Map<String, SimpleSpan> spans = getSpans();
+        assertEquals(spans.get("request").getSpanId(), spans.get("kubernetes secrets/get").getParentId());
+        assertEquals(spans.get("request").getTraceId(), spans.get("kubernetes secrets/get").getTraceId());
+    }
+
+    @Test
+    void testTraceAsyncEndsWhenStepCompletes() {
+        CompletableFuture<String> step = new CompletableFuture<>();
+        CompletableFuture<String> result = tracingService.traceAsync("databricks runs/submit", "vf-project", () -> {
+            Runnable retry = tracingService.wrap(() -> tracingService.event(RETRY_EVENT));
+            CompletableFuture.runAsync(retry, executor).thenRun(() -> step.complete("submitted"));
+            return step;
+        });
+
+        assertEquals("submitted", result.join());
+        SimpleSpan span = getSpans().get("databricks runs/submit");
+        assertEquals(RETRY_EVENT, span.getEvents().iterator().next().getValue());
+        assertEquals("vf-project", span.getTags().get(PROJECT_TAG));
+    }
+
+    private Map<String, SimpleSpan> getSpans() {
+        return tracer.getSpans().stream().collect(Collectors.toMap(SimpleSpan::getName, span -> span));
+    }
+}
@@ -1,6 +1,8 @@
 package eu.ibagroup.vfdatabricks.services.quartz;
 
-import eu.ibagroup.vfdatabricks.services.PipelineService;
+import eu.ibagroup.vfdatabricks.dto.pipelines.CronOverlapPolicy;
+import eu.ibagroup.vfdatabricks.services.CronDispatchService;
+import eu.ibagroup.vfdatabricks.services.SchedulerService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -11,40 +13,106 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
 import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
 
+import java.util.Date;
+
+import static eu.ibagroup.vfdatabricks.dto.Constants.CRON_DEFERRED;
+import static eu.ibagroup.vfdatabricks.dto.Constants.CRON_JITTER_SECONDS;
+import static eu.ibagroup.vfdatabricks.dto.Constants.CRON_OVERLAP_POLICY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class CronJobTest {
+    private static final String PROJECT_ID = "projectId";
+    private static final String PIPELINE_ID = "pipelineId";
+    private static final TriggerKey TRIGGER_KEY = TriggerKey.triggerKey("trigger");
 
     @Mock
-    private PipelineService pipelineService;
+    private CronDispatchService cronDispatchService;
+    @Mock
+    private SchedulerService schedulerService;
     @Mock
     private JobExecutionContext jobExecutionContext;
     @Mock
     private JobDetail jobDetail;
     @Mock
-    private JobDataMap jobDataMap;
+    private Trigger trigger;
 
     @InjectMocks
     private CronJob cronJob;
 
+    private final JobDataMap jobDataMap = new JobDataMap();
+
     @BeforeEach
     void setUp() {
-        when(jobExecutionContext.getJobDetail()).thenReturn(jobDetail);
-        when(jobDetail.getJobDataMap()).thenReturn(jobDataMap);
+        jobDataMap.put("projectId", PROJECT_ID);
+        jobDataMap.put("pipelineId", PIPELINE_ID);
+        lenient().when(jobExecutionContext.getMergedJobDataMap()).thenReturn(jobDataMap);
+        lenient().when(jobExecutionContext.getJobDetail()).thenReturn(jobDetail);
+        lenient().when(jobDetail.getKey()).thenReturn(JobKey.jobKey("job"));
+        lenient().when(jobExecutionContext.getTrigger()).thenReturn(trigger);
+        lenient().when(trigger.getKey()).thenReturn(TRIGGER_KEY);
     }
 
     @Test
     @DisplayName("Execute job with valid project and pipeline IDs")
     void testExecuteJobShouldRunPipeline() {
-        String projectId = "projectId";
-        when(jobDataMap.getString("projectId")).thenReturn(projectId);
-        String pipelineId = "pipelineId";
-        when(jobDataMap.getString("pipelineId")).thenReturn(pipelineId);
+        Date scheduledFireTime = new Date(1000L);
+        Date fireTime = new Date(1500L);
+        when(jobExecutionContext.getScheduledFireTime()).thenReturn(scheduledFireTime);
+        when(jobExecutionContext.getFireTime()).thenReturn(fireTime);
 
         cronJob.executeInternal(jobExecutionContext);
 
-        verify(pipelineService, times(1)).run(projectId, pipelineId);
+        verify(cronDispatchService).recordFireLag(PROJECT_ID, scheduledFireTime, fireTime);
+        verify(cronDispatchService, times(1)).dispatch(PROJECT_ID, PIPELINE_ID, CronOverlapPolicy.SKIP, TRIGGER_KEY);
+        verifyNoInteractions(schedulerService);
+    }
+
+    @Test
+    void testExecuteJobShouldPassOverlapPolicy() {
+        jobDataMap.put(CRON_OVERLAP_POLICY, CronOverlapPolicy.QUEUE.name());
+
+        cronJob.executeInternal(jobExecutionContext);
+
+        verify(cronDispatchService).dispatch(PROJECT_ID, PIPELINE_ID, CronOverlapPolicy.QUEUE, TRIGGER_KEY);
+    }
+
+    @Test
+    void testExecuteJobShouldDeferRunByJitter() {
+        jobDataMap.put(CRON_JITTER_SECONDS, 300);
+        long jitterMillis = CronJob.getJitterMillis(PROJECT_ID, PIPELINE_ID, 300);
+
+        cronJob.executeInternal(jobExecutionContext);
+
+        verify(schedulerService).deferRun(PROJECT_ID, PIPELINE_ID, jitterMillis, TRIGGER_KEY);
+        verify(cronDispatchService, never()).dispatch(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void testExecuteDeferredJobShouldNotApplyJitter() {
+        jobDataMap.put(CRON_JITTER_SECONDS, 300);
+        jobDataMap.put(CRON_DEFERRED, true);
+
+        cronJob.executeInternal(jobExecutionContext);
+
+        verify(schedulerService, never()).deferRun(anyString(), anyString(), anyLong(), any());
+        verify(cronDispatchService).dispatch(PROJECT_ID, PIPELINE_ID, CronOverlapPolicy.SKIP, TRIGGER_KEY);
+    }
+
+    @Test
+    void testJitterIsStableAndBounded() {
+        long jitterMillis = CronJob.getJitterMillis(PROJECT_ID, PIPELINE_ID, 300);
+
+        assertEquals(jitterMillis, CronJob.getJitterMillis(PROJECT_ID, PIPELINE_ID, 300));
+        assertTrue(jitterMillis >= 0 && jitterMillis < 300_000L);
     }
-}
\ No newline at end of file
+}